@@ -0,0 +1,53 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.DotaChallengeApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * The application without the web layer, started once per JMH fork.
+ */
+final class BenchmarkApplication {
+
+	private static final String[] MATCH_TABLES = { "dota_combat_log", "dota_hero_kill_stat", "dota_hero_spell_stat",
+			"dota_hero_damage_stat", "dota_match" };
+
+	private BenchmarkApplication() {
+	}
+
+	/**
+	 * @param properties {@code key=value} overrides; passed as command line arguments, which take precedence over
+	 *                   {@code application.yml}
+	 */
+	static ConfigurableApplicationContext start(String... properties) {
+		String[] args = Stream.concat(Stream.of("spring.main.banner-mode=off",
+						"spring.jpa.properties.hibernate.generate_statistics=false",
+						"dota.query-cache.enabled=false",
+						"dota.ingest.deduplicate=false",
+						"logging.level.root=WARN"), Arrays.stream(properties))
+				.map(property -> "--" + property)
+				.toArray(String[]::new);
+		return new SpringApplicationBuilder(DotaChallengeApplication.class)
+				.web(WebApplicationType.NONE)
+				.run(args);
+	}
+
+	/**
+	 * Empties the match tables, so repeated imports measure the same database size. Names are kept, like they are
+	 * across real imports.
+	 */
+	static void deleteMatches(ConfigurableApplicationContext context) {
+		var jdbcTemplate = context.getBean(JdbcTemplate.class);
+		jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
+		for (String table : MATCH_TABLES) {
+			jdbcTemplate.execute("TRUNCATE TABLE " + table);
+		}
+		jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+	}
+
+}
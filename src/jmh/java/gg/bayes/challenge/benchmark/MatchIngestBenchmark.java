@@ -0,0 +1,73 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of one full {@link MatchLogCommandService#importData} of a sample log scaled to {@code lines}, read from a
+ * file the way an upload is streamed. The match tables are emptied after every import. For the 10M line case run
+ * with {@code -Djmh.args="MatchIngestBenchmark -p lines=10000000 -prof gc"} and a heap of several GB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MatchIngestBenchmark {
+
+	@Param({ "data/combatlog_1.txt", "data/combatlog_2.txt" })
+	private String sample;
+
+	@Param({ "100000", "1000000" })
+	private int lines;
+
+	private ConfigurableApplicationContext context;
+	private MatchLogCommandService matchLogCommandService;
+	private Path log;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		log = SyntheticCombatLog.file(Path.of(sample), lines);
+		context = BenchmarkApplication.start();
+		matchLogCommandService = context.getBean(MatchLogCommandService.class);
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteMatches() {
+		BenchmarkApplication.deleteMatches(context);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		context.close();
+		Files.deleteIfExists(log);
+	}
+
+	@Benchmark
+	public Long importData() throws IOException {
+		try (var reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+			return matchLogCommandService.importData(reader);
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.business.service.match.MatchLogQueryService;
+import gg.bayes.challenge.config.rest.model.HeroDamage;
+import gg.bayes.challenge.config.rest.model.HeroItem;
+import gg.bayes.challenge.config.rest.model.HeroKills;
+import gg.bayes.challenge.config.rest.model.HeroSpells;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of each {@link MatchLogQueryService} method of the given storage engine, without the response cache
+ * in front of it, on one imported match of {@code lines} lines. Hero scoped queries cycle through every hero of the
+ * match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchQueryJmhBenchmark {
+
+	@Param({ "data/combatlog_1.txt", "data/combatlog_2.txt" })
+	private String sample;
+
+	@Param({ "100000" })
+	private int lines;
+
+	@Param({ "jpa", "columnar" })
+	private String engine;
+
+	private ConfigurableApplicationContext context;
+	private MatchLogQueryService matchLogQueryService;
+	private Long matchId;
+	private List<String> heroes;
+	private int hero;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		context = BenchmarkApplication.start("dota.storage.engine=" + engine);
+		matchLogQueryService = BeanFactoryAnnotationUtils.qualifiedBeanOfType(context.getBeanFactory(),
+				MatchLogQueryService.class, MatchLogQueryService.BACKEND);
+		Path log = SyntheticCombatLog.file(Path.of(sample), lines);
+		try (var reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+			matchId = context.getBean(MatchLogCommandService.class).importData(reader);
+		} finally {
+			Files.deleteIfExists(log);
+		}
+		heroes = matchLogQueryService.getHeroesByMatch(matchId);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<HeroKills> heroKills() {
+		return matchLogQueryService.getHeroKillsByMatch(matchId);
+	}
+
+	@Benchmark
+	public List<String> heroes() {
+		return matchLogQueryService.getHeroesByMatch(matchId);
+	}
+
+	@Benchmark
+	public List<HeroItem> heroItems() {
+		return matchLogQueryService.getHeroItemsByMatch(matchId, nextHero());
+	}
+
+	@Benchmark
+	public List<HeroSpells> heroSpells() {
+		return matchLogQueryService.getHeroSpellsByMatchAndHero(matchId, nextHero());
+	}
+
+	@Benchmark
+	public List<HeroDamage> heroDamage() {
+		return matchLogQueryService.getHeroDamageByMatch(matchId, nextHero());
+	}
+
+	private String nextHero() {
+		String next = heroes.get(hero);
+		hero = hero + 1 == heroes.size() ? 0 : hero + 1;
+		return next;
+	}
+
+}
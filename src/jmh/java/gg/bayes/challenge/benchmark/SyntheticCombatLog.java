@@ -0,0 +1,114 @@
+package gg.bayes.challenge.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Scales one of the sample combat logs up to any number of lines by replaying it back to back. Every replay is
+ * shifted by the length of the sample, so timestamps keep increasing and the result reads like one long match.
+ */
+public final class SyntheticCombatLog {
+
+	private static final long MILLIS_PER_SECOND = 1000;
+	private static final long MILLIS_PER_MINUTE = 60 * MILLIS_PER_SECOND;
+	private static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+
+	private SyntheticCombatLog() {
+	}
+
+	/**
+	 * @param sample one of {@code data/combatlog_*.txt}
+	 * @param lines  number of lines to produce
+	 * @return the generated lines, for logs that comfortably fit on the heap
+	 */
+	public static List<String> lines(Path sample, int lines) throws IOException {
+		List<String> result = new ArrayList<>(lines);
+		generate(sample, lines, result::add);
+		return result;
+	}
+
+	/**
+	 * Writes the generated log to a temporary file, for logs of millions of lines. The caller deletes the file.
+	 *
+	 * @param sample one of {@code data/combatlog_*.txt}
+	 * @param lines  number of lines to produce
+	 */
+	public static Path file(Path sample, int lines) throws IOException {
+		Path file = Files.createTempFile("combatlog-" + lines + "-", ".txt");
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			IOException[] failure = new IOException[1];
+			generate(sample, lines, line -> {
+				try {
+					writer.write(line);
+					writer.newLine();
+				} catch (IOException e) {
+					failure[0] = e;
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+		}
+		return file;
+	}
+
+	private static void generate(Path sample, int lines, Consumer<String> sink) throws IOException {
+		List<String> template = new ArrayList<>();
+		for (String line : Files.readAllLines(sample, StandardCharsets.UTF_8)) {
+			if (timestamp(line) >= 0) {
+				template.add(line);
+			}
+		}
+		if (template.isEmpty()) {
+			throw new IllegalArgumentException(sample + " has no timestamped lines");
+		}
+		long matchLength = timestamp(template.get(template.size() - 1)) + MILLIS_PER_SECOND;
+
+		var builder = new StringBuilder(128);
+		for (int i = 0; i < lines; i++) {
+			String line = template.get(i % template.size());
+			long shift = (i / template.size()) * matchLength;
+			if (shift == 0) {
+				sink.accept(line);
+				continue;
+			}
+			builder.setLength(0);
+			builder.append('[');
+			appendTimestamp(builder, timestamp(line) + shift);
+			builder.append(line, line.indexOf(']'), line.length());
+			sink.accept(builder.toString());
+		}
+	}
+
+	private static long timestamp(String line) {
+		if (line.length() < 14 || line.charAt(0) != '[' || line.charAt(13) != ']') {
+			return -1;
+		}
+		return Long.parseLong(line.substring(1, 3)) * MILLIS_PER_HOUR
+				+ Long.parseLong(line.substring(4, 6)) * MILLIS_PER_MINUTE
+				+ Long.parseLong(line.substring(7, 9)) * MILLIS_PER_SECOND
+				+ Long.parseLong(line.substring(10, 13));
+	}
+
+	private static void appendTimestamp(StringBuilder builder, long millis) {
+		pad(builder, millis / MILLIS_PER_HOUR, 2).append(':');
+		pad(builder, millis / MILLIS_PER_MINUTE % 60, 2).append(':');
+		pad(builder, millis / MILLIS_PER_SECOND % 60, 2).append('.');
+		pad(builder, millis % MILLIS_PER_SECOND, 3);
+	}
+
+	private static StringBuilder pad(StringBuilder builder, long value, int width) {
+		String digits = Long.toString(value);
+		for (int i = digits.length(); i < width; i++) {
+			builder.append('0');
+		}
+		return builder.append(digits);
+	}
+
+}
@@ -0,0 +1,91 @@
+package gg.bayes.challenge.business.parser;
+
+import gg.bayes.challenge.benchmark.SyntheticCombatLog;
+import gg.bayes.challenge.business.dictionary.NamePool;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the parsing hot path: the timestamp alone and the whole line, one line per operation, and a
+ * chunk of {@link IngestProperties#getChunkSize()} lines through {@link ParallelCombatLogParser}. The lines are
+ * taken round robin from a sample log scaled to {@code lines}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CombatLogParseBenchmark {
+
+	@Param({ "data/combatlog_1.txt", "data/combatlog_2.txt" })
+	private String sample;
+
+	@Param({ "100000", "1000000" })
+	private int lines;
+
+	private List<String> log;
+	private CombatLogTokenizer combatLogTokenizer;
+	private ParallelCombatLogParser parallelCombatLogParser;
+	private int chunkSize;
+	private int line;
+	private int chunk;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		log = SyntheticCombatLog.lines(Path.of(sample), lines);
+		var ingestProperties = new IngestProperties();
+		chunkSize = Math.min(ingestProperties.getChunkSize(), lines);
+		combatLogTokenizer = new CombatLogTokenizer(new NamePool(ingestProperties));
+		parallelCombatLogParser = new ParallelCombatLogParser(combatLogTokenizer, ingestProperties);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		parallelCombatLogParser.destroy();
+	}
+
+	@Benchmark
+	public long timestamp() {
+		String next = nextLine();
+		return CombatLogTokenizer.parseTimestamp(next, 1, next.indexOf(']'));
+	}
+
+	@Benchmark
+	public CombatLogEntryEntity tokenizeLine() {
+		return combatLogTokenizer.tokenize(nextLine());
+	}
+
+	@Benchmark
+	public void parseChunk(Blackhole blackhole) {
+		int from = chunk;
+		int to = Math.min(from + chunkSize, log.size());
+		chunk = to == log.size() ? 0 : to;
+		blackhole.consume(parallelCombatLogParser.parse(log.subList(from, to)));
+	}
+
+	private String nextLine() {
+		String next = log.get(line);
+		line = line + 1 == log.size() ? 0 : line + 1;
+		return next;
+	}
+
+}
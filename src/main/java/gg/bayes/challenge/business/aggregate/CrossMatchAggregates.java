@@ -0,0 +1,143 @@
+package gg.bayes.challenge.business.aggregate;
+
+import gg.bayes.challenge.business.event.MatchIngestedEvent;
+import gg.bayes.challenge.common.constants.Constants;
+import gg.bayes.challenge.config.rest.model.AbilityDamage;
+import gg.bayes.challenge.config.rest.model.HeroKillRate;
+import gg.bayes.challenge.config.rest.model.ItemPurchases;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Totals over every ingested match: kills, deaths and matches played per hero, purchases per hero and item, and
+ * damage per ability. They are folded in from the {@link MatchStatsAccumulator} of each match once its ingest has
+ * committed, so reading them costs one pass over the heroes, items or abilities, however many matches and events
+ * were stored.
+ * <p>
+ * Counters are updated without locking; a reader running concurrently with an ingest may see part of that match
+ * counted already.
+ */
+@Slf4j
+@Component
+public class CrossMatchAggregates {
+
+	private final LongAdder matches = new LongAdder();
+	private final ConcurrentMap<String, HeroTotals> heroes = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, ConcurrentMap<String, LongAdder>> purchases = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, DamageTotals> abilityDamage = new ConcurrentHashMap<>();
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onMatchIngested(MatchIngestedEvent event) {
+		if (event.isAppended()) {
+			addEvents(event.getStats());
+		} else {
+			add(event.getStats());
+		}
+		log.debug("Added match {} to the cross-match totals", event.getMatchId());
+	}
+
+	/**
+	 * Adds a match that was not counted before.
+	 */
+	public void add(MatchStatsAccumulator stats) {
+		matches.increment();
+		addEvents(stats);
+	}
+
+	/**
+	 * Adds events appended to a match that was counted before. The totals must only list the heroes that join the
+	 * match with these events, see {@link MatchStatsAccumulator#removeHeroes}.
+	 */
+	public void addEvents(MatchStatsAccumulator stats) {
+		stats.getHeroes().forEach(hero -> hero(hero).matches.increment());
+		stats.getKills().forEach((hero, kills) -> hero(hero).kills.add(kills));
+		stats.getDeaths().forEach((hero, deaths) -> hero(hero).deaths.add(deaths));
+		stats.getPurchases().forEach((key, count) -> purchases
+				.computeIfAbsent(key.getHero(), hero -> new ConcurrentHashMap<>())
+				.computeIfAbsent(key.getName(), item -> new LongAdder())
+				.add(count));
+		stats.getAbilityDamage().forEach((ability, totals) -> {
+			var damage = abilityDamage.computeIfAbsent(ability, key -> new DamageTotals());
+			damage.instances.add(totals[0]);
+			damage.total.add(totals[1]);
+		});
+	}
+
+	public long getMatchCount() {
+		return matches.sum();
+	}
+
+	/**
+	 * @return every hero seen in any match, by kills per match played, descending
+	 */
+	public List<HeroKillRate> getHeroKillRates() {
+		return heroes.entrySet().stream()
+				.filter(entry -> entry.getValue().matches.sum() > 0)
+				.map(entry -> {
+					long played = entry.getValue().matches.sum();
+					long kills = entry.getValue().kills.sum();
+					return new HeroKillRate(entry.getKey(), played, kills, entry.getValue().deaths.sum(),
+							(double) kills / played);
+				})
+				.sorted(Comparator.comparing(HeroKillRate::getKillsPerMatch).reversed()
+						.thenComparing(HeroKillRate::getHero))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @param hero the hero name, with or without the {@code npc_dota_hero_} prefix
+	 * @return the items bought most often by the hero across all matches, most purchased first
+	 */
+	public List<ItemPurchases> getMostPurchasedItems(String hero, int limit) {
+		var items = purchases.get(hero.replace(Constants.HERO_KEYWORD, ""));
+		if (items == null) {
+			return List.of();
+		}
+		return items.entrySet().stream()
+				.map(entry -> new ItemPurchases(entry.getKey(), entry.getValue().sum()))
+				.sorted(Comparator.comparing(ItemPurchases::getPurchases).reversed()
+						.thenComparing(ItemPurchases::getItem))
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the damage done with every ability across all matches, by average damage per hit, descending
+	 */
+	public List<AbilityDamage> getAbilityDamage() {
+		return abilityDamage.entrySet().stream()
+				.map(entry -> {
+					long instances = entry.getValue().instances.sum();
+					long total = entry.getValue().total.sum();
+					return new AbilityDamage(entry.getKey(), instances, total,
+							instances == 0 ? 0 : (double) total / instances);
+				})
+				.sorted(Comparator.comparing(AbilityDamage::getAverageDamage).reversed()
+						.thenComparing(AbilityDamage::getAbility))
+				.collect(Collectors.toList());
+	}
+
+	private HeroTotals hero(String hero) {
+		return heroes.computeIfAbsent(hero, key -> new HeroTotals());
+	}
+
+	private static class HeroTotals {
+		private final LongAdder matches = new LongAdder();
+		private final LongAdder kills = new LongAdder();
+		private final LongAdder deaths = new LongAdder();
+	}
+
+	private static class DamageTotals {
+		private final LongAdder instances = new LongAdder();
+		private final LongAdder total = new LongAdder();
+	}
+
+}
@@ -0,0 +1,195 @@
+package gg.bayes.challenge.business.aggregate;
+
+import gg.bayes.challenge.common.constants.Constants;
+import gg.bayes.challenge.config.rest.model.HeroKills;
+import gg.bayes.challenge.config.rest.model.LiveMatchStats;
+import gg.bayes.challenge.persistence.model.ColumnarMatchSummary;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.model.HeroDamageStatEntity;
+import gg.bayes.challenge.persistence.model.HeroKillStatEntity;
+import gg.bayes.challenge.persistence.model.HeroSpellStatEntity;
+import gg.bayes.challenge.persistence.model.MatchEntity;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Folds parsed combat log entries into the per-hero kill, spell and damage totals of one match while the log is
+ * being ingested. Not thread-safe; one accumulator belongs to one ingest.
+ * <p>
+ * Besides the per-match summary rows it also collects what {@link CrossMatchAggregates} needs: the heroes taking
+ * part, the deaths, the items bought per hero and the damage per ability. It is handed over with the
+ * {@code MatchIngestedEvent} once the ingest is done and not modified afterwards.
+ */
+public class MatchStatsAccumulator {
+
+	@Getter(AccessLevel.PACKAGE)
+	private final Map<String, Integer> kills = new HashMap<>();
+	private final Map<HeroKey, Integer> casts = new HashMap<>();
+	private final Map<HeroKey, long[]> damage = new HashMap<>();
+
+	@Getter
+	private final Set<String> heroes = new HashSet<>();
+	@Getter(AccessLevel.PACKAGE)
+	private final Map<String, Integer> deaths = new HashMap<>();
+	@Getter(AccessLevel.PACKAGE)
+	private final Map<HeroKey, Integer> purchases = new HashMap<>();
+	@Getter(AccessLevel.PACKAGE)
+	private final Map<String, long[]> abilityDamage = new HashMap<>();
+
+	public void addAll(List<CombatLogEntryEntity> entries) {
+		entries.forEach(this::add);
+	}
+
+	public void add(CombatLogEntryEntity entry) {
+		add(entry.getType(), entry.getActor(), entry.getTarget(), entry.getAbility(), entry.getItem(),
+				entry.getDamage());
+	}
+
+	/**
+	 * Folds the stored summary of a columnar match or of events appended to it, e.g. to rebuild the cross-match
+	 * totals at startup without decoding the events.
+	 */
+	public void addAll(ColumnarMatchSummary summary) {
+		heroes.addAll(summary.getHeroes());
+		summary.getKills().forEach((hero, count) -> kills.merge(hero, count, Integer::sum));
+		summary.getDeaths().forEach((hero, count) -> deaths.merge(hero, count, Integer::sum));
+		summary.getPurchases().forEach((hero, items) -> items.forEach((item, count) ->
+				purchases.merge(new HeroKey(hero, item), count, Integer::sum)));
+		summary.getAbilityDamage().forEach((ability, totals) ->
+				add(abilityDamage.computeIfAbsent(ability, missing -> new long[2]), totals));
+	}
+
+	private void add(CombatLogEntryEntity.Type type, String actor, String target, String ability, String item,
+			Integer amount) {
+		// The tokenizer drops the hero prefix, so heroes are the actors without the npc_dota_ prefix of other units.
+		if (!actor.startsWith(Constants.NON_HERO_KEYWORD)) {
+			heroes.add(actor);
+		}
+		switch (type) {
+		case HERO_KILLED:
+			kills.merge(actor, 1, Integer::sum);
+			deaths.merge(target, 1, Integer::sum);
+			break;
+		case SPELL_CAST:
+			casts.merge(new HeroKey(actor, ability), 1, Integer::sum);
+			break;
+		case DAMAGE_DONE:
+			long[] totals = damage.computeIfAbsent(new HeroKey(actor, target), key -> new long[2]);
+			totals[0]++;
+			totals[1] += amount;
+			long[] abilityTotals = abilityDamage.computeIfAbsent(ability, key -> new long[2]);
+			abilityTotals[0]++;
+			abilityTotals[1] += amount;
+			break;
+		case ITEM_PURCHASED:
+			purchases.merge(new HeroKey(actor, item), 1, Integer::sum);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Forgets the heroes already known to take part in the match, so that events appended to a stored match only
+	 * count the heroes joining with them as playing it.
+	 */
+	public void removeHeroes(Set<String> knownHeroes) {
+		heroes.removeAll(knownHeroes);
+	}
+
+	/**
+	 * Adds the totals of another accumulator, e.g. to coalesce the deltas of several appends.
+	 */
+	public void addAll(MatchStatsAccumulator other) {
+		other.kills.forEach((hero, count) -> kills.merge(hero, count, Integer::sum));
+		other.casts.forEach((key, count) -> casts.merge(key, count, Integer::sum));
+		other.damage.forEach((key, totals) -> add(damage.computeIfAbsent(key, missing -> new long[2]), totals));
+		heroes.addAll(other.heroes);
+		other.deaths.forEach((hero, count) -> deaths.merge(hero, count, Integer::sum));
+		other.purchases.forEach((key, count) -> purchases.merge(key, count, Integer::sum));
+		other.abilityDamage.forEach((ability, totals) ->
+				add(abilityDamage.computeIfAbsent(ability, missing -> new long[2]), totals));
+	}
+
+	private static void add(long[] totals, long[] other) {
+		totals[0] += other[0];
+		totals[1] += other[1];
+	}
+
+	/**
+	 * @return the cross-match share of the folded events, to be stored with the columns of a match
+	 */
+	public ColumnarMatchSummary summary() {
+		Map<String, Map<String, Integer>> items = new HashMap<>();
+		purchases.forEach((key, count) -> items.computeIfAbsent(key.getHero(), hero -> new HashMap<>())
+				.put(key.getName(), count));
+		Map<String, long[]> damageByAbility = new HashMap<>();
+		abilityDamage.forEach((ability, totals) -> damageByAbility.put(ability, totals.clone()));
+		return new ColumnarMatchSummary(new HashSet<>(heroes), new HashMap<>(kills), new HashMap<>(deaths), items,
+				damageByAbility);
+	}
+
+	public List<HeroKillStatEntity> killStats(MatchEntity match) {
+		List<HeroKillStatEntity> stats = new ArrayList<>(kills.size());
+		kills.forEach((hero, count) -> stats.add(HeroKillStatEntity.builder()
+				.match(match)
+				.hero(hero)
+				.kills(count)
+				.build()));
+		return stats;
+	}
+
+	public List<HeroSpellStatEntity> spellStats(MatchEntity match) {
+		List<HeroSpellStatEntity> stats = new ArrayList<>(casts.size());
+		casts.forEach((key, count) -> stats.add(HeroSpellStatEntity.builder()
+				.match(match)
+				.hero(key.getHero())
+				.ability(key.getName())
+				.casts(count)
+				.build()));
+		return stats;
+	}
+
+	public List<HeroDamageStatEntity> damageStats(MatchEntity match) {
+		List<HeroDamageStatEntity> stats = new ArrayList<>(damage.size());
+		damage.forEach((key, totals) -> stats.add(HeroDamageStatEntity.builder()
+				.match(match)
+				.hero(key.getHero())
+				.target(key.getName())
+				.damageInstances((int) totals[0])
+				.totalDamage(totals[1])
+				.build()));
+		return stats;
+	}
+
+	public LiveMatchStats liveStats(Long matchId) {
+		List<HeroKills> killRows = new ArrayList<>(kills.size());
+		kills.forEach((hero, count) -> killRows.add(new HeroKills(hero, count)));
+		List<LiveMatchStats.SpellCasts> spellRows = new ArrayList<>(casts.size());
+		casts.forEach((key, count) -> spellRows.add(new LiveMatchStats.SpellCasts(key.getHero(), key.getName(), count)));
+		List<LiveMatchStats.TargetDamage> damageRows = new ArrayList<>(damage.size());
+		damage.forEach((key, totals) -> damageRows.add(
+				new LiveMatchStats.TargetDamage(key.getHero(), key.getName(), (int) totals[0], totals[1])));
+		List<LiveMatchStats.ItemCount> itemRows = new ArrayList<>(purchases.size());
+		purchases.forEach((key, count) -> itemRows.add(new LiveMatchStats.ItemCount(key.getHero(), key.getName(), count)));
+		return new LiveMatchStats(matchId, killRows, spellRows, damageRows, itemRows);
+	}
+
+	/**
+	 * A hero together with the ability or target a total belongs to.
+	 */
+	@Value
+	static class HeroKey {
+		String hero;
+		String name;
+	}
+
+}
@@ -0,0 +1,119 @@
+package gg.bayes.challenge.business.dictionary;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.repository.NameBatchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory view of the {@code dota_name} dictionary that maps hero, ability and item names to small integer ids.
+ * <p>
+ * Ids for unseen names are taken from {@code dota_name_sequence} right away and cached, but the dictionary rows
+ * are only written when an ingest calls {@link #persist(Map)} with every name it used. Each ingest therefore
+ * commits the names its entries reference in the same transaction as the entries, whichever ingest allocated
+ * them first.
+ */
+@Component
+@RequiredArgsConstructor
+public class NameDictionary {
+
+	private final NameBatchRepository nameBatchRepository;
+
+	private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, String> names = new ConcurrentHashMap<>();
+	/**
+	 * A lock rather than {@code synchronized}, as it is held over JDBC calls, which would pin the carrier of a
+	 * virtual thread.
+	 */
+	private final ReentrantLock registerLock = new ReentrantLock();
+
+	/**
+	 * Replaces the names of the entry by their dictionary ids.
+	 *
+	 * @param entry     a parsed entry
+	 * @param usedNames collects the names referenced by the ingest, to be passed to {@link #persist(Map)}
+	 */
+	public void encode(CombatLogEntryEntity entry, Map<Integer, String> usedNames) {
+		entry.setActorId(idOf(entry.getActor(), usedNames));
+		entry.setTargetId(idOf(entry.getTarget(), usedNames));
+		entry.setAbilityId(idOf(entry.getAbility(), usedNames));
+		entry.setItemId(idOf(entry.getItem(), usedNames));
+	}
+
+	/**
+	 * Writes the dictionary rows for the given names in the current transaction.
+	 */
+	public void persist(Map<Integer, String> usedNames) {
+		nameBatchRepository.mergeAll(usedNames);
+	}
+
+	/**
+	 * Looks up the id of a stored name without allocating one.
+	 *
+	 * @return the id, or {@code null} if no stored entry references the name
+	 */
+	public Integer find(String name) {
+		Integer id = ids.get(name);
+		if (id == null) {
+			id = nameBatchRepository.findIdByName(name);
+			if (id != null) {
+				cache(name, id);
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * @return the name for the id, or {@code null} for an unknown id
+	 */
+	public String nameOf(int id) {
+		String name = names.get(id);
+		if (name == null) {
+			name = nameBatchRepository.findNameById(id);
+			if (name != null) {
+				cache(name, id);
+			}
+		}
+		return name;
+	}
+
+	private Integer idOf(String name, Map<Integer, String> usedNames) {
+		if (name == null) {
+			return null;
+		}
+		Integer id = ids.get(name);
+		if (id == null) {
+			id = register(name);
+		}
+		usedNames.put(id, name);
+		return id;
+	}
+
+	private Integer register(String name) {
+		registerLock.lock();
+		try {
+			Integer id = ids.get(name);
+			if (id == null) {
+				id = nameBatchRepository.findIdByName(name);
+				if (id == null) {
+					id = nameBatchRepository.nextId();
+				}
+				cache(name, id);
+			}
+			return id;
+		} finally {
+			registerLock.unlock();
+		}
+	}
+
+	private void cache(String name, Integer id) {
+		names.put(id, name);
+		ids.put(name, id);
+	}
+
+}
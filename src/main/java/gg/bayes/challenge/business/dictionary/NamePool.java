@@ -0,0 +1,96 @@
+package gg.bayes.challenge.business.dictionary;
+
+import gg.bayes.challenge.config.properties.IngestProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free interning table for the hero, ability and item names cut out of combat log lines.
+ * <p>
+ * A match only has ten heroes and a few hundred distinct abilities and items, so almost every name the tokenizer
+ * cuts is one it has cut before. The name is looked up by its position in the line, before any substring is
+ * taken; on a hit the pooled instance is returned and nothing is allocated. Every entry of every ingest then
+ * shares one instance per name, its hash code is computed once, and the map lookups done while encoding and
+ * grouping compare names by reference before falling back to their characters.
+ * <p>
+ * The table is direct-mapped: each name hashes to exactly one slot, and a miss overwrites whatever the slot held.
+ * Memory stays bounded however many distinct names come in, at the cost of the odd duplicate instance when two
+ * names share a slot. Slots are read and written without synchronization; strings are immutable and safely
+ * published, so a racing reader sees either the old name, the new one, or an empty slot, and the worst outcome is
+ * one extra miss.
+ */
+@Component
+public class NamePool implements MeterBinder {
+
+	private final String[] slots;
+	private final int mask;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	public NamePool(IngestProperties ingestProperties) {
+		int size = ingestProperties.getNamePoolSize();
+		int capacity = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+		this.slots = new String[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the pooled instance equal to {@code line.substring(start, end)}, pooling a new one on a miss.
+	 */
+	public String intern(String line, int start, int end) {
+		int length = end - start;
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + line.charAt(i);
+		}
+		int slot = (hash ^ (hash >>> 16)) & mask;
+
+		String pooled = slots[slot];
+		if (pooled != null && pooled.length() == length && line.regionMatches(start, pooled, 0, length)) {
+			hits.increment();
+			return pooled;
+		}
+		String name = line.substring(start, end);
+		slots[slot] = name;
+		misses.increment();
+		return name;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the share of lookups answered from the pool, or 0 before the first lookup
+	 */
+	public double getHitRatio() {
+		long hit = hits.sum();
+		long total = hit + misses.sum();
+		return total == 0 ? 0 : (double) hit / total;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder("dota.ingest.names", this, NamePool::getHits)
+				.description("Names cut out of combat log lines, by whether the pool already held them")
+				.tag("result", "hit")
+				.register(registry);
+		FunctionCounter.builder("dota.ingest.names", this, NamePool::getMisses)
+				.description("Names cut out of combat log lines, by whether the pool already held them")
+				.tag("result", "miss")
+				.register(registry);
+		Gauge.builder("dota.ingest.names.hit.ratio", this, NamePool::getHitRatio)
+				.description("Share of names answered from the pool since startup")
+				.register(registry);
+	}
+
+}
@@ -0,0 +1,21 @@
+package gg.bayes.challenge.business.event;
+
+import gg.bayes.challenge.business.aggregate.MatchStatsAccumulator;
+import gg.bayes.challenge.business.service.match.MatchPosition;
+import lombok.Value;
+
+/**
+ * Published by the ingest path for every match whose events were written. Listeners that need the data to be
+ * visible should use {@code @TransactionalEventListener}. The totals gathered while ingesting come along and must
+ * not be modified by listeners.
+ * <p>
+ * For events appended to a stored match {@code appended} is set and the totals only cover the new events. The
+ * position is the one the match reached with this ingest.
+ */
+@Value
+public class MatchIngestedEvent {
+	Long matchId;
+	MatchStatsAccumulator stats;
+	boolean appended;
+	MatchPosition position;
+}
@@ -0,0 +1,145 @@
+package gg.bayes.challenge.business.metrics;
+
+import gg.bayes.challenge.business.parser.ParsedLines;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the ingest path, shared by both storage engines:
+ * <ul>
+ * <li>{@code dota.ingest} times whole ingests, tagged by operation and outcome;</li>
+ * <li>{@code dota.ingest.stage} times the stages of each chunk: parse, encode, write and summary;</li>
+ * <li>{@code dota.ingest.lines} counts lines read, {@code dota.ingest.lines.ignored} those that are not a stored
+ * event, tagged by reason: {@code not_stored} for well-formed events of other kinds and {@code malformed} for lines
+ * that could not be read as an event, and {@code dota.ingest.events} the parsed events by type;</li>
+ * <li>{@code dota.ingest.rows} counts the event rows written;</li>
+ * <li>{@code dota.ingest.duplicates} counts uploaded logs answered with a match imported before.</li>
+ * </ul>
+ */
+@Component
+public class IngestMetrics {
+
+	public enum Operation {
+		IMPORT, BATCH, APPEND
+	}
+
+	public enum Stage {
+		/**
+		 * Tokenizing a chunk of lines on the parse pool.
+		 */
+		PARSE,
+		/**
+		 * Encoding names against the dictionary and folding the entries into the match totals.
+		 */
+		ENCODE,
+		/**
+		 * Writing the event rows or columns.
+		 */
+		WRITE,
+		/**
+		 * Writing the dictionary names and per-match summary rows once the whole log is in.
+		 */
+		SUMMARY
+	}
+
+	private final MeterRegistry meterRegistry;
+	private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+	private final Map<CombatLogEntryEntity.Type, Counter> events = new EnumMap<>(CombatLogEntryEntity.Type.class);
+	private final Counter lines;
+	private final Counter notStoredLines;
+	private final Counter malformedLines;
+	private final Counter rows;
+	private final Counter duplicates;
+
+	public IngestMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		for (Stage stage : Stage.values()) {
+			stages.put(stage, Timer.builder("dota.ingest.stage")
+					.description("Time spent in one stage of the ingest of a chunk")
+					.tag("stage", tag(stage))
+					.publishPercentileHistogram()
+					.register(meterRegistry));
+		}
+		for (CombatLogEntryEntity.Type type : CombatLogEntryEntity.Type.values()) {
+			events.put(type, Counter.builder("dota.ingest.events")
+					.description("Parsed combat log events")
+					.tag("type", tag(type))
+					.register(meterRegistry));
+		}
+		this.lines = Counter.builder("dota.ingest.lines")
+				.description("Combat log lines read")
+				.register(meterRegistry);
+		this.notStoredLines = Counter.builder("dota.ingest.lines.ignored")
+				.description("Combat log lines that are not an event of a stored type or could not be parsed")
+				.tag("reason", "not_stored")
+				.register(meterRegistry);
+		this.malformedLines = Counter.builder("dota.ingest.lines.ignored")
+				.description("Combat log lines that are not an event of a stored type or could not be parsed")
+				.tag("reason", "malformed")
+				.register(meterRegistry);
+		this.rows = Counter.builder("dota.ingest.rows")
+				.description("Combat log event rows written")
+				.register(meterRegistry);
+		this.duplicates = Counter.builder("dota.ingest.duplicates")
+				.description("Uploaded combat logs that had been imported before and were not imported again")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Times a whole ingest and tags it with its outcome.
+	 */
+	public <T> T record(Operation operation, Supplier<T> ingest) {
+		var sample = Timer.start(meterRegistry);
+		boolean success = false;
+		try {
+			T result = ingest.get();
+			success = true;
+			return result;
+		} finally {
+			sample.stop(Timer.builder("dota.ingest")
+					.description("Time to ingest a combat log")
+					.tag("operation", tag(operation))
+					.tag("outcome", success ? "success" : "failure")
+					.publishPercentileHistogram()
+					.register(meterRegistry));
+		}
+	}
+
+	public <T> T time(Stage stage, Supplier<T> work) {
+		return stages.get(stage).record(work);
+	}
+
+	public void time(Stage stage, Runnable work) {
+		stages.get(stage).record(work);
+	}
+
+	public void countParsed(ParsedLines parsed) {
+		lines.increment(parsed.getLineCount());
+		notStoredLines.increment(parsed.getNotStoredLines());
+		malformedLines.increment(parsed.getMalformedLines());
+		for (var entry : parsed.getEntries()) {
+			events.get(entry.getType()).increment();
+		}
+	}
+
+	public void countWritten(int rowCount) {
+		rows.increment(rowCount);
+	}
+
+	public void countDuplicate() {
+		duplicates.increment();
+	}
+
+	private static String tag(Enum<?> value) {
+		return value.name().toLowerCase(Locale.ROOT);
+	}
+
+}
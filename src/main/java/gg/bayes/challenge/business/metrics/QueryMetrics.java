@@ -0,0 +1,60 @@
+package gg.bayes.challenge.business.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the query path, tagged by query:
+ * <ul>
+ * <li>{@code dota.query} times the queries that reach the storage engine, i.e. response cache misses;</li>
+ * <li>{@code dota.query.rows} summarizes the rows they return;</li>
+ * <li>{@code dota.query.rows.scanned} counts the event rows the columnar engine scans to answer them. The JPA
+ * engine leaves the scan to the database and does not report it.</li>
+ * </ul>
+ */
+@Component
+public class QueryMetrics {
+
+	public static final String KILLS = "kills";
+	public static final String SPELLS = "spells";
+	public static final String DAMAGE = "damage";
+	public static final String ITEMS = "items";
+	public static final String HEROES = "heroes";
+	public static final String DAMAGE_TIMELINE = "damage_timeline";
+
+	private final MeterRegistry meterRegistry;
+
+	public QueryMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	public <T> List<T> time(String query, Supplier<List<T>> loader) {
+		List<T> rows = Timer.builder("dota.query")
+				.description("Time to answer a query from the storage engine")
+				.tag("query", query)
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(loader);
+		DistributionSummary.builder("dota.query.rows")
+				.description("Rows returned by a query")
+				.tag("query", query)
+				.register(meterRegistry)
+				.record(rows == null ? 0 : rows.size());
+		return rows;
+	}
+
+	public void countScanned(String query, int rowCount) {
+		Counter.builder("dota.query.rows.scanned")
+				.description("Event rows scanned to answer a query")
+				.tag("query", query)
+				.register(meterRegistry)
+				.increment(rowCount);
+	}
+
+}
@@ -0,0 +1,260 @@
+package gg.bayes.challenge.business.parser;
+
+import gg.bayes.challenge.business.dictionary.NamePool;
+import gg.bayes.challenge.common.constants.Constants;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hand-written tokenizer for a single combat log line. The line is read once, left
+ * to right, by character position; no regex, no intermediate copies of the line. Names are
+ * taken from the {@link NamePool}, so repeated names are not copied out of the line either.
+ *
+ * <pre>
+ * [00:08:43.460] npc_dota_hero_pangolier casts ability pangolier_swashbuckle (lvl 1) on dota_unknown
+ * [00:08:46.693] npc_dota_hero_snapfire buys item item_clarity
+ * [00:11:17.489] npc_dota_hero_snapfire is killed by npc_dota_hero_mars
+ * [00:10:42.031] npc_dota_hero_bane hits npc_dota_hero_abyssal_underlord with dota_unknown for 51 damage (740->689)
+ * </pre>
+ */
+@Component
+@RequiredArgsConstructor
+public class CombatLogTokenizer {
+
+	private static final String CAST_TOKEN = "casts ability ";
+	private static final String LEVEL_TOKEN = "(lvl ";
+	private static final String BUY_TOKEN = "buys item ";
+	private static final String KILL_TOKEN = "is killed by ";
+	private static final String HIT_TOKEN = "hits ";
+	private static final String WITH_TOKEN = "with ";
+	private static final String FOR_TOKEN = "for ";
+
+	/**
+	 * Returned by {@link #read(String)} for a line that is not a combat log event, or is cut short.
+	 */
+	private static final CombatLogEntryEntity MALFORMED = new CombatLogEntryEntity();
+
+	private final NamePool namePool;
+
+	/**
+	 * Tokenizes one combat log line.
+	 *
+	 * @param line a single line of the combat log, without the line terminator
+	 * @return a detached entry carrying the parsed fields, or {@code null} if the line is
+	 *         not one of the events we store
+	 */
+	public CombatLogEntryEntity tokenize(String line) {
+		var entry = read(line);
+		return entry == MALFORMED ? null : entry;
+	}
+
+	/**
+	 * Tokenizes one combat log line into the given lines: its entry is added, or the line is counted as a
+	 * well-formed event we do not store, or as malformed.
+	 */
+	void tokenize(String line, ParsedLines parsed) {
+		var entry = read(line);
+		if (entry == MALFORMED) {
+			parsed.malformedLines++;
+		} else if (entry == null) {
+			parsed.notStoredLines++;
+		} else {
+			parsed.getEntries().add(entry);
+		}
+	}
+
+	/**
+	 * @return the entry of the line, {@code null} if it is an event we do not store, or {@link #MALFORMED}
+	 */
+	private CombatLogEntryEntity read(String line) {
+		int length = line.length();
+		if (length < 3 || line.charAt(0) != '[') {
+			return MALFORMED;
+		}
+		int close = line.indexOf(']', 1);
+		if (close < 0 || close + 2 >= length) {
+			return MALFORMED;
+		}
+		long timestamp = parseTimestamp(line, 1, close);
+		if (timestamp < 0) {
+			return MALFORMED;
+		}
+
+		int actorStart = close + 2;
+		int actorEnd = tokenEnd(line, actorStart);
+		int verbStart = actorEnd + 1;
+		if (actorEnd == actorStart || verbStart >= length) {
+			return MALFORMED;
+		}
+
+		if (line.startsWith(HIT_TOKEN, verbStart)) {
+			return hit(line, timestamp, actorStart, actorEnd, verbStart + HIT_TOKEN.length());
+		} else if (line.startsWith(CAST_TOKEN, verbStart)) {
+			return cast(line, timestamp, actorStart, actorEnd, verbStart + CAST_TOKEN.length());
+		} else if (line.startsWith(KILL_TOKEN, verbStart)) {
+			return kill(line, timestamp, actorStart, actorEnd, verbStart + KILL_TOKEN.length());
+		} else if (line.startsWith(BUY_TOKEN, verbStart)) {
+			return buy(line, timestamp, actorStart, actorEnd, verbStart + BUY_TOKEN.length());
+		}
+		return null;
+	}
+
+	private CombatLogEntryEntity hit(String line, long timestamp, int actorStart, int actorEnd, int targetStart) {
+		int targetEnd = tokenEnd(line, targetStart);
+		int withStart = targetEnd + 1;
+		if (!line.startsWith(WITH_TOKEN, withStart)) {
+			return MALFORMED;
+		}
+		int abilityStart = withStart + WITH_TOKEN.length();
+		int abilityEnd = tokenEnd(line, abilityStart);
+		int forStart = abilityEnd + 1;
+		if (!line.startsWith(FOR_TOKEN, forStart)) {
+			return MALFORMED;
+		}
+		int damage = parseNumber(line, forStart + FOR_TOKEN.length());
+		if (damage < 0) {
+			return MALFORMED;
+		}
+
+		var entry = entry(CombatLogEntryEntity.Type.DAMAGE_DONE, timestamp, line, actorStart, actorEnd);
+		entry.setTarget(name(line, targetStart, targetEnd));
+		entry.setAbility(name(line, abilityStart, abilityEnd));
+		entry.setDamage(damage);
+		return entry;
+	}
+
+	private CombatLogEntryEntity cast(String line, long timestamp, int actorStart, int actorEnd, int abilityStart) {
+		int abilityEnd = tokenEnd(line, abilityStart);
+		int levelStart = abilityEnd + 1;
+		if (!line.startsWith(LEVEL_TOKEN, levelStart)) {
+			return MALFORMED;
+		}
+		int level = parseNumber(line, levelStart + LEVEL_TOKEN.length());
+		if (level < 0) {
+			return MALFORMED;
+		}
+
+		var entry = entry(CombatLogEntryEntity.Type.SPELL_CAST, timestamp, line, actorStart, actorEnd);
+		entry.setAbility(name(line, abilityStart, abilityEnd));
+		entry.setAbilityLevel(level);
+		return entry;
+	}
+
+	private CombatLogEntryEntity kill(String line, long timestamp, int targetStart, int targetEnd, int actorStart) {
+		int actorEnd = tokenEnd(line, actorStart);
+		// Only kills between heroes count, see isHero: npc_dota_ units other than heroes, such as creeps, neutrals and
+		// buildings, are ignored on either side, while names without the npc_dota_ prefix are taken as heroes.
+		if (actorEnd == actorStart) {
+			return MALFORMED;
+		}
+		if (!isHero(line, targetStart) || !isHero(line, actorStart)) {
+			return null;
+		}
+
+		var entry = entry(CombatLogEntryEntity.Type.HERO_KILLED, timestamp, line, actorStart, actorEnd);
+		entry.setTarget(name(line, targetStart, targetEnd));
+		return entry;
+	}
+
+	private CombatLogEntryEntity buy(String line, long timestamp, int actorStart, int actorEnd, int itemStart) {
+		int itemEnd = tokenEnd(line, itemStart);
+		if (itemEnd == itemStart) {
+			return MALFORMED;
+		}
+
+		var entry = entry(CombatLogEntryEntity.Type.ITEM_PURCHASED, timestamp, line, actorStart, actorEnd);
+		entry.setItem(name(line, itemStart, itemEnd));
+		return entry;
+	}
+
+	private CombatLogEntryEntity entry(CombatLogEntryEntity.Type type, long timestamp, String line, int actorStart,
+			int actorEnd) {
+		var entry = new CombatLogEntryEntity();
+		entry.setType(type);
+		entry.setTimestamp(timestamp);
+		entry.setActor(name(line, actorStart, actorEnd));
+		return entry;
+	}
+
+	/**
+	 * @return whether the name at the given position is a hero: an {@code npc_dota_hero_} unit, or any name that is
+	 *         not an {@code npc_dota_} unit
+	 */
+	private static boolean isHero(String line, int start) {
+		return line.startsWith(Constants.HERO_KEYWORD, start) || !line.startsWith(Constants.NON_HERO_KEYWORD, start);
+	}
+
+	/**
+	 * Cuts the name between the given positions, dropping the {@code npc_dota_hero_} or
+	 * {@code item_} prefix, which are not part of hero and item names.
+	 */
+	private String name(String line, int start, int end) {
+		if (line.startsWith(Constants.HERO_KEYWORD, start)) {
+			start += Constants.HERO_KEYWORD.length();
+		} else if (line.startsWith(Constants.ITEM_KEYWORD, start)) {
+			start += Constants.ITEM_KEYWORD.length();
+		}
+		return namePool.intern(line, start, end);
+	}
+
+	private static int tokenEnd(String line, int from) {
+		int length = line.length();
+		int i = from;
+		while (i < length && !Character.isWhitespace(line.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int parseNumber(String line, int from) {
+		int length = line.length();
+		int i = from;
+		int value = 0;
+		while (i < length) {
+			char c = line.charAt(i);
+			if (c < '0' || c > '9') {
+				break;
+			}
+			value = value * 10 + (c - '0');
+			i++;
+		}
+		return i == from ? -1 : value;
+	}
+
+	/**
+	 * Parses {@code HH:MM:SS.mmm} into milliseconds since match start. Package-private for the parser benchmarks.
+	 */
+	static long parseTimestamp(String line, int from, int to) {
+		long hours = 0;
+		long minutes = 0;
+		long seconds = 0;
+		int field = 0;
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			char c = line.charAt(i);
+			if (c >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+			} else if ((c == ':' && field < 2) || (c == '.' && field == 2)) {
+				if (field == 0) {
+					hours = value;
+				} else if (field == 1) {
+					minutes = value;
+				} else {
+					seconds = value;
+				}
+				field++;
+				value = 0;
+			} else {
+				return -1;
+			}
+		}
+		if (field != 3) {
+			return -1;
+		}
+		return hours * Constants.HOUR_EQ_SECONDS * Constants.MILLISECOND_MULTIPLIER
+				+ minutes * Constants.MINUTE_EQ_SECONDS * Constants.MILLISECOND_MULTIPLIER
+				+ seconds * Constants.MILLISECOND_MULTIPLIER + value;
+	}
+
+}
@@ -0,0 +1,101 @@
+package gg.bayes.challenge.business.parser;
+
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses a chunk of combat log lines on a dedicated fork-join pool. Each worker tokenizes its own contiguous
+ * slice into its own buffer; the buffers are then concatenated in slice order and stably sorted by timestamp,
+ * so the result is the same on every run regardless of scheduling.
+ */
+@Component
+public class ParallelCombatLogParser implements DisposableBean {
+
+	/**
+	 * Below this many lines per worker the hand-off costs more than the tokenizing.
+	 */
+	private static final int MIN_LINES_PER_TASK = 512;
+
+	private static final Comparator<CombatLogEntryEntity> BY_TIMESTAMP =
+			Comparator.comparing(CombatLogEntryEntity::getTimestamp);
+
+	private final CombatLogTokenizer combatLogTokenizer;
+	private final ForkJoinPool parsePool;
+
+	public ParallelCombatLogParser(CombatLogTokenizer combatLogTokenizer, IngestProperties ingestProperties) {
+		this.combatLogTokenizer = combatLogTokenizer;
+		this.parsePool = new ForkJoinPool(ingestProperties.getParseParallelism());
+	}
+
+	/**
+	 * @param lines the lines of one chunk, in log order
+	 * @return the parsed entries ordered by timestamp, where entries with equal timestamps keep their log order, and
+	 *         the counts of the lines skipped
+	 */
+	public ParsedLines parse(List<String> lines) {
+		int size = lines.size();
+		int tasks = Math.min(parsePool.getParallelism(), Math.max(1, size / MIN_LINES_PER_TASK));
+		ParsedLines parsed;
+		if (tasks == 1) {
+			parsed = parseSlice(lines, 0, size);
+		} else {
+			List<ForkJoinTask<ParsedLines>> slices = new ArrayList<>(tasks);
+			for (int task = 0; task < tasks; task++) {
+				int from = (int) ((long) size * task / tasks);
+				int to = (int) ((long) size * (task + 1) / tasks);
+				slices.add(parsePool.submit(() -> parseSlice(lines, from, to)));
+			}
+			parsed = new ParsedLines(size);
+			for (var slice : slices) {
+				parsed.addAll(slice.join());
+			}
+		}
+		parsed.getEntries().sort(BY_TIMESTAMP);
+		return parsed;
+	}
+
+	/**
+	 * Parses several whole logs at once, one log per worker, which keeps every core busy on logs too short to be
+	 * worth splitting.
+	 *
+	 * @param logs the lines of each log, in log order
+	 * @return the parsed lines of each log, in the order of the logs, each like {@link #parse(List)}
+	 */
+	public List<ParsedLines> parseAll(List<List<String>> logs) {
+		List<ForkJoinTask<ParsedLines>> tasks = new ArrayList<>(logs.size());
+		for (var lines : logs) {
+			tasks.add(parsePool.submit(() -> {
+				var parsed = parseSlice(lines, 0, lines.size());
+				parsed.getEntries().sort(BY_TIMESTAMP);
+				return parsed;
+			}));
+		}
+		List<ParsedLines> parsed = new ArrayList<>(logs.size());
+		for (var task : tasks) {
+			parsed.add(task.join());
+		}
+		return parsed;
+	}
+
+	private ParsedLines parseSlice(List<String> lines, int from, int to) {
+		var buffer = new ParsedLines(to - from);
+		for (int i = from; i < to; i++) {
+			combatLogTokenizer.tokenize(lines.get(i), buffer);
+		}
+		return buffer;
+	}
+
+	@Override
+	public void destroy() {
+		parsePool.shutdown();
+	}
+
+}
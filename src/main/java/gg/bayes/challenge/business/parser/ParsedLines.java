@@ -0,0 +1,34 @@
+package gg.bayes.challenge.business.parser;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of parsing a run of combat log lines: the entries of the events we store, and how many of the other
+ * lines were well-formed events of a kind we do not store, or could not be read as an event at all.
+ */
+@Getter
+public class ParsedLines {
+
+	private final List<CombatLogEntryEntity> entries;
+	int notStoredLines;
+	int malformedLines;
+
+	ParsedLines(int expectedLines) {
+		this.entries = new ArrayList<>(expectedLines);
+	}
+
+	public int getLineCount() {
+		return entries.size() + notStoredLines + malformedLines;
+	}
+
+	void addAll(ParsedLines other) {
+		entries.addAll(other.entries);
+		notStoredLines += other.notStoredLines;
+		malformedLines += other.malformedLines;
+	}
+
+}
@@ -0,0 +1,21 @@
+package gg.bayes.challenge.business.service.ingest;
+
+import gg.bayes.challenge.config.rest.model.IngestJobStatus;
+
+import java.io.Reader;
+import java.util.Optional;
+
+public interface IngestJobService {
+
+	/**
+	 * Spools the combat log to disk and queues it for ingestion on the ingest worker pool.
+	 *
+	 * @param combatLog the content of the combat log
+	 * @return the status of the queued job
+	 * @throws gg.bayes.challenge.common.exception.IngestQueueFullException if no worker and no queue slot is free
+	 */
+	IngestJobStatus submit(Reader combatLog);
+
+	Optional<IngestJobStatus> getStatus(String jobId);
+
+}
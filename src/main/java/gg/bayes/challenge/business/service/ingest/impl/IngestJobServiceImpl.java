@@ -0,0 +1,199 @@
+package gg.bayes.challenge.business.service.ingest.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import gg.bayes.challenge.business.service.ingest.IngestJobService;
+import gg.bayes.challenge.business.service.match.HashedCombatLog;
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.common.exception.IngestQueueFullException;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.config.rest.model.IngestJobStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs ingests on a fixed worker pool, so uploads neither hold servlet threads while they are parsed and persisted
+ * nor pile up without limit. A submission first reserves one of the slots for running and queued jobs and is
+ * rejected at once if there is none, before its body is read; only then is the body spooled to a temporary file,
+ * which keeps queued jobs off the heap. The body is hashed while it is spooled, so the ingest does not read it once
+ * more to deduplicate it.
+ * <p>
+ * The status of a job stays available while it is queued or running, and for the configured retention once it
+ * has finished.
+ */
+@Slf4j
+@Service
+public class IngestJobServiceImpl implements IngestJobService, DisposableBean {
+
+	private final MatchLogCommandService matchLogCommandService;
+	private final Semaphore slots;
+	private final ExecutorService ingestExecutor;
+	private final Cache<String, IngestJob> jobs;
+
+	public IngestJobServiceImpl(MatchLogCommandService matchLogCommandService, IngestProperties ingestProperties) {
+		this.matchLogCommandService = matchLogCommandService;
+		int workers = ingestProperties.getAsyncWorkers();
+		this.slots = new Semaphore(workers + ingestProperties.getAsyncQueueCapacity());
+		// The slots bound the jobs handed to the pool, so its own queue never fills up.
+		this.ingestExecutor = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("ingest-"));
+		long retention = ingestProperties.getAsyncJobRetention().toNanos();
+		this.jobs = Caffeine.newBuilder()
+				.expireAfter(new Expiry<String, IngestJob>() {
+					@Override
+					public long expireAfterCreate(String jobId, IngestJob job, long currentTime) {
+						return job.isFinished() ? retention : Long.MAX_VALUE;
+					}
+
+					@Override
+					public long expireAfterUpdate(String jobId, IngestJob job, long currentTime,
+							long currentDuration) {
+						return job.isFinished() ? retention : Long.MAX_VALUE;
+					}
+
+					@Override
+					public long expireAfterRead(String jobId, IngestJob job, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.build();
+	}
+
+	@Override
+	public IngestJobStatus submit(Reader combatLog) {
+		if (!slots.tryAcquire()) {
+			throw new IngestQueueFullException();
+		}
+		IngestJob job;
+		try {
+			job = new IngestJob(UUID.randomUUID().toString(), HashedCombatLog.spool(combatLog));
+		} catch (RuntimeException e) {
+			slots.release();
+			throw e;
+		}
+		jobs.put(job.id, job);
+		try {
+			ingestExecutor.execute(() -> run(job));
+		} catch (RejectedExecutionException e) {
+			// Only after shutdown.
+			slots.release();
+			jobs.invalidate(job.id);
+			job.combatLog.close();
+			throw new IngestQueueFullException(e);
+		}
+		return job.toStatus();
+	}
+
+	@Override
+	public Optional<IngestJobStatus> getStatus(String jobId) {
+		return Optional.ofNullable(jobs.getIfPresent(jobId)).map(IngestJob::toStatus);
+	}
+
+	private void run(IngestJob job) {
+		job.state = IngestJobStatus.State.RUNNING;
+		jobs.put(job.id, job);
+		try (Reader reader = new ProgressReader(job.combatLog.open(), job)) {
+			job.matchId = matchLogCommandService.importData(reader, job.combatLog.getContentHash());
+			job.state = IngestJobStatus.State.COMPLETED;
+		} catch (IOException | RuntimeException e) {
+			log.warn("Ingest job {} failed", job.id, e);
+			job.error = e.getMessage();
+			job.state = IngestJobStatus.State.FAILED;
+		} finally {
+			job.combatLog.close();
+			jobs.put(job.id, job);
+			slots.release();
+		}
+	}
+
+	@Override
+	public void destroy() {
+		ingestExecutor.shutdownNow();
+	}
+
+	private static class IngestJob {
+
+		private final String id;
+		private final HashedCombatLog combatLog;
+		private final long size;
+		private final AtomicLong read = new AtomicLong();
+
+		private volatile IngestJobStatus.State state = IngestJobStatus.State.QUEUED;
+		private volatile Long matchId;
+		private volatile String error;
+
+		IngestJob(String id, HashedCombatLog combatLog) {
+			this.id = id;
+			this.combatLog = combatLog;
+			this.size = sizeOf(combatLog);
+		}
+
+		boolean isFinished() {
+			return state == IngestJobStatus.State.COMPLETED || state == IngestJobStatus.State.FAILED;
+		}
+
+		IngestJobStatus toStatus() {
+			int progress;
+			if (state == IngestJobStatus.State.COMPLETED) {
+				progress = 100;
+			} else if (size == 0) {
+				progress = 0;
+			} else {
+				// Characters read against bytes on disk; the logs are ASCII, and the last percent waits for the commit.
+				progress = (int) Math.min(99, read.get() * 100 / size);
+			}
+			return new IngestJobStatus(id, state, progress, matchId, error);
+		}
+
+		private static long sizeOf(HashedCombatLog combatLog) {
+			try {
+				return combatLog.size();
+			} catch (UncheckedIOException e) {
+				return 0;
+			}
+		}
+	}
+
+	private static class ProgressReader extends FilterReader {
+
+		private final IngestJob job;
+
+		ProgressReader(Reader in, IngestJob job) {
+			super(in);
+			this.job = job;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int c = super.read();
+			if (c >= 0) {
+				job.read.incrementAndGet();
+			}
+			return c;
+		}
+
+		@Override
+		public int read(char[] buffer, int offset, int length) throws IOException {
+			int count = super.read(buffer, offset, length);
+			if (count > 0) {
+				job.read.addAndGet(count);
+			}
+			return count;
+		}
+	}
+
+}
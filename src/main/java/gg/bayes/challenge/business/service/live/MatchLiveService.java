@@ -0,0 +1,19 @@
+package gg.bayes.challenge.business.service.live;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface MatchLiveService {
+
+	/**
+	 * Opens a server-sent event stream of the match: a {@code snapshot} event with the current per-hero totals,
+	 * then a {@code delta} event with the added totals whenever events are ingested for the match.
+	 * <p>
+	 * Deltas committed while the snapshot is read may be counted in both; clients that need exact totals re-read
+	 * the match endpoints.
+	 *
+	 * @param matchId the match identifier
+	 * @return the open event stream
+	 */
+	SseEmitter subscribe(Long matchId);
+
+}
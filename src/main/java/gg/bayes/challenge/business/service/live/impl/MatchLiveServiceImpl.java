@@ -0,0 +1,312 @@
+package gg.bayes.challenge.business.service.live.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gg.bayes.challenge.business.aggregate.MatchStatsAccumulator;
+import gg.bayes.challenge.business.event.MatchIngestedEvent;
+import gg.bayes.challenge.business.service.live.MatchLiveService;
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.business.service.match.MatchLogQueryService;
+import gg.bayes.challenge.business.service.match.MatchPosition;
+import gg.bayes.challenge.config.properties.LiveProperties;
+import gg.bayes.challenge.config.rest.model.HeroItem;
+import gg.bayes.challenge.config.rest.model.HeroKills;
+import gg.bayes.challenge.config.rest.model.LiveMatchStats;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes per-hero totals of matches to server-sent event subscribers.
+ * <p>
+ * The totals of committed ingests are merged per match and pushed once per {@code dota.live.push-interval}, so a
+ * burst of appends costs one delta, serialized once and shared by all subscribers of the match. Matches without
+ * subscribers cost nothing. Every subscriber has a bounded buffer drained by the push threads; a subscriber whose
+ * buffer overflows is disconnected instead of holding back the others or growing without limit.
+ * <p>
+ * A new subscriber is registered before its snapshot is read, and its deltas are held back until the snapshot is
+ * queued. The snapshot is read from the storage engine while appends to the match wait, see
+ * {@link MatchLogCommandService#readAtPosition}, and every ingest carries the position the match reached with it, so
+ * the held deltas the snapshot already covers are dropped and none of the others is missed.
+ */
+@Slf4j
+@Service
+public class MatchLiveServiceImpl implements MatchLiveService, DisposableBean {
+
+	static final String SNAPSHOT_EVENT = "snapshot";
+	static final String DELTA_EVENT = "delta";
+
+	private final MatchLogQueryService matchLogQueryService;
+	private final MatchLogCommandService matchLogCommandService;
+	private final LiveProperties liveProperties;
+	private final ObjectMapper objectMapper;
+	private final ScheduledThreadPoolExecutor pushExecutor;
+	private final ConcurrentMap<Long, MatchFeed> feeds = new ConcurrentHashMap<>();
+
+	public MatchLiveServiceImpl(@Qualifier(MatchLogQueryService.BACKEND) MatchLogQueryService matchLogQueryService,
+			MatchLogCommandService matchLogCommandService, LiveProperties liveProperties, ObjectMapper objectMapper) {
+		this.matchLogQueryService = matchLogQueryService;
+		this.matchLogCommandService = matchLogCommandService;
+		this.liveProperties = liveProperties;
+		this.objectMapper = objectMapper;
+		this.pushExecutor = new ScheduledThreadPoolExecutor(liveProperties.getPushThreads(),
+				new CustomizableThreadFactory("live-push-"));
+		long interval = liveProperties.getPushInterval().toMillis();
+		pushExecutor.scheduleWithFixedDelay(this::pushDeltas, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public SseEmitter subscribe(Long matchId) {
+		var emitter = new SseEmitter(liveProperties.getSubscriberTimeout().toMillis());
+		var subscriber = new Subscriber(matchId, emitter);
+		emitter.onCompletion(() -> unsubscribe(subscriber));
+		emitter.onTimeout(() -> unsubscribe(subscriber));
+		emitter.onError(error -> unsubscribe(subscriber));
+		var feed = feeds.compute(matchId, (id, matchFeed) -> {
+			var subscribed = matchFeed == null ? new MatchFeed() : matchFeed;
+			subscribed.subscribers.add(subscriber);
+			return subscribed;
+		});
+		Snapshot snapshot;
+		try {
+			snapshot = matchLogCommandService.readAtPosition(matchId, position -> new Snapshot(position,
+					position == null ? new MatchStatsAccumulator().liveStats(matchId) : snapshot(matchId)));
+		} catch (RuntimeException e) {
+			unsubscribe(subscriber);
+			throw e;
+		}
+		feed.start(subscriber, snapshot);
+		log.debug("New live subscriber for match {}", matchId);
+		return emitter;
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onMatchIngested(MatchIngestedEvent event) {
+		var feed = feeds.get(event.getMatchId());
+		if (feed != null) {
+			feed.add(event);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		pushExecutor.shutdownNow();
+		feeds.values().forEach(feed -> feed.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+	}
+
+	/**
+	 * Package-private for the tests.
+	 */
+	void pushDeltas() {
+		for (MatchFeed feed : feeds.values()) {
+			try {
+				feed.push();
+			} catch (RuntimeException e) {
+				// An exception would cancel the periodic task and stop every push.
+				log.warn("Pushing live deltas failed", e);
+			}
+		}
+	}
+
+	private LiveMatchStats snapshot(Long matchId) {
+		List<HeroKills> kills = matchLogQueryService.getHeroKillsByMatch(matchId);
+		Set<String> heroes = new TreeSet<>(matchLogQueryService.getHeroesByMatch(matchId));
+		kills.forEach(heroKills -> heroes.add(heroKills.getHero()));
+		List<LiveMatchStats.SpellCasts> spells = new ArrayList<>();
+		List<LiveMatchStats.TargetDamage> damage = new ArrayList<>();
+		List<LiveMatchStats.ItemCount> items = new ArrayList<>();
+		for (String hero : heroes) {
+			matchLogQueryService.getHeroSpellsByMatchAndHero(matchId, hero).forEach(heroSpells -> spells.add(
+					new LiveMatchStats.SpellCasts(hero, heroSpells.getSpell(), heroSpells.getCasts())));
+			matchLogQueryService.getHeroDamageByMatch(matchId, hero).forEach(heroDamage -> damage.add(
+					new LiveMatchStats.TargetDamage(hero, heroDamage.getTarget(), heroDamage.getDamageInstances(),
+							heroDamage.getTotalDamage().longValue())));
+			matchLogQueryService.getHeroItemsByMatch(matchId, hero).stream()
+					.collect(Collectors.groupingBy(HeroItem::getItem, TreeMap::new, Collectors.counting()))
+					.forEach((item, count) -> items.add(new LiveMatchStats.ItemCount(hero, item, count.intValue())));
+		}
+		return new LiveMatchStats(matchId, kills, spells, damage, items);
+	}
+
+	private String toJson(LiveMatchStats stats) {
+		try {
+			return objectMapper.writeValueAsString(stats);
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void unsubscribe(Subscriber subscriber) {
+		feeds.computeIfPresent(subscriber.matchId, (matchId, feed) -> {
+			feed.subscribers.remove(subscriber);
+			return feed.subscribers.isEmpty() ? null : feed;
+		});
+	}
+
+	@Value
+	private static class Message {
+		String event;
+		String json;
+	}
+
+	@Value
+	private static class Snapshot {
+		MatchPosition position;
+		LiveMatchStats stats;
+	}
+
+	@Value
+	private static class Delta {
+		MatchPosition position;
+		MatchStatsAccumulator stats;
+	}
+
+	/**
+	 * The subscribers of one match and the ingests not pushed yet. Deltas are merged and handed out under the lock of
+	 * the feed.
+	 */
+	private class MatchFeed {
+
+		private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+		private List<Delta> pending = new ArrayList<>();
+
+		synchronized void add(MatchIngestedEvent event) {
+			if (!subscribers.isEmpty()) {
+				pending.add(new Delta(event.getPosition(), event.getStats()));
+			}
+		}
+
+		/**
+		 * Sends the pending ingests as one delta to every started subscriber whose snapshot covers none of them, and
+		 * only the ones its snapshot does not cover to the others. Subscribers still reading their snapshot keep them.
+		 */
+		synchronized void push() {
+			if (pending.isEmpty()) {
+				return;
+			}
+			List<Delta> deltas = pending;
+			pending = new ArrayList<>();
+			Message shared = null;
+			for (Subscriber subscriber : subscribers) {
+				if (!subscriber.started) {
+					subscriber.held.addAll(deltas);
+				} else if (deltas.stream().allMatch(delta -> delta.position.isAfter(subscriber.position))) {
+					if (shared == null) {
+						shared = deltaMessage(subscriber.matchId, deltas, null);
+					}
+					subscriber.offer(shared);
+				} else {
+					subscriber.offerDelta(deltaMessage(subscriber.matchId, deltas, subscriber.position));
+				}
+			}
+		}
+
+		synchronized void start(Subscriber subscriber, Snapshot snapshot) {
+			subscriber.offer(new Message(SNAPSHOT_EVENT, toJson(snapshot.stats)));
+			subscriber.started = true;
+			subscriber.position = snapshot.position;
+			subscriber.offerDelta(deltaMessage(subscriber.matchId, subscriber.held, snapshot.position));
+			subscriber.held.clear();
+		}
+
+		/**
+		 * @return the merged totals of the ingests after the given position, or {@code null} if there are none
+		 */
+		private Message deltaMessage(Long matchId, List<Delta> deltas, MatchPosition after) {
+			var merged = new MatchStatsAccumulator();
+			boolean any = false;
+			for (Delta delta : deltas) {
+				if (delta.position.isAfter(after)) {
+					merged.addAll(delta.stats);
+					any = true;
+				}
+			}
+			return any ? new Message(DELTA_EVENT, toJson(merged.liveStats(matchId))) : null;
+		}
+
+	}
+
+	@RequiredArgsConstructor
+	private class Subscriber {
+
+		private final Long matchId;
+		private final SseEmitter emitter;
+		private final BlockingQueue<Message> buffer = new ArrayBlockingQueue<>(liveProperties.getSubscriberBufferSize());
+		private final AtomicBoolean draining = new AtomicBoolean();
+
+		/**
+		 * Guarded by the lock of the feed: whether the snapshot is queued, the position it was read at, and the
+		 * ingests pushed while it was read.
+		 */
+		private boolean started;
+		private MatchPosition position;
+		private final List<Delta> held = new ArrayList<>();
+
+		void offerDelta(Message message) {
+			if (message != null) {
+				offer(message);
+			}
+		}
+
+		void offer(Message message) {
+			if (!buffer.offer(message)) {
+				log.info("Disconnecting a live subscriber of match {} that fell {} events behind", matchId,
+						buffer.size());
+				unsubscribe(this);
+				emitter.complete();
+				return;
+			}
+			scheduleDrain();
+		}
+
+		private void scheduleDrain() {
+			if (!buffer.isEmpty() && draining.compareAndSet(false, true)) {
+				pushExecutor.execute(this::drain);
+			}
+		}
+
+		/**
+		 * Sends the buffered events in order. At most one drain per subscriber runs at a time.
+		 */
+		private void drain() {
+			try {
+				Message message;
+				while ((message = buffer.poll()) != null) {
+					emitter.send(SseEmitter.event().name(message.getEvent()).data(message.getJson(), MediaType.APPLICATION_JSON));
+				}
+			} catch (IOException | IllegalStateException e) {
+				log.debug("Live subscriber of match {} went away", matchId, e);
+				unsubscribe(this);
+				buffer.clear();
+			} finally {
+				draining.set(false);
+			}
+			scheduleDrain();
+		}
+
+	}
+
+}
@@ -0,0 +1,58 @@
+package gg.bayes.challenge.business.service.match;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * SHA-256 of a combat log, fed line by line while the log is read. The log is normalized first: trailing
+ * whitespace, including a carriage return, is cut from every line and blank lines are skipped, so the same log sent
+ * with other line endings or a trailing newline hashes the same.
+ */
+public class ContentHash {
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final MessageDigest digest;
+	private String value;
+
+	ContentHash() {
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Every JDK provides SHA-256.", e);
+		}
+	}
+
+	public static String of(List<String> lines) {
+		var hash = new ContentHash();
+		lines.forEach(hash::add);
+		return hash.value();
+	}
+
+	void add(String line) {
+		String normalized = line.stripTrailing();
+		if (!normalized.isEmpty()) {
+			digest.update(normalized.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) '\n');
+		}
+	}
+
+	/**
+	 * @return the hash of the lines added so far as 64 lower-case hex digits; no lines can be added afterwards
+	 */
+	String value() {
+		if (value == null) {
+			byte[] bytes = digest.digest();
+			char[] hex = new char[bytes.length * 2];
+			for (int i = 0; i < bytes.length; i++) {
+				hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+				hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xf];
+			}
+			value = new String(hex);
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,81 @@
+package gg.bayes.challenge.business.service.match;
+
+import gg.bayes.challenge.common.file.CombatLogSpool;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A single uploaded combat log whose {@link ContentHash} is taken before it is parsed, so a repeated upload can be
+ * answered without parsing or writing anything. A log that arrives as a stream is spooled to a temporary file while
+ * it is hashed and read back from there; the file is deleted on {@link #close()}.
+ */
+public final class HashedCombatLog implements AutoCloseable {
+
+	private final String contentHash;
+	private final String text;
+	private final Path spool;
+
+	private HashedCombatLog(String contentHash, String text, Path spool) {
+		this.contentHash = contentHash;
+		this.text = text;
+		this.spool = spool;
+	}
+
+	public static HashedCombatLog of(String combatLog) {
+		var hash = new ContentHash();
+		combatLog.lines().forEach(hash::add);
+		return new HashedCombatLog(hash.value(), combatLog, null);
+	}
+
+	public static HashedCombatLog spool(Reader combatLog) {
+		var hash = new ContentHash();
+		Path spool = CombatLogSpool.spool(combatLog, hash::add);
+		return new HashedCombatLog(hash.value(), null, spool);
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	/**
+	 * @return a reader over the whole log, which the caller closes
+	 */
+	public Reader open() {
+		if (spool == null) {
+			return new StringReader(text);
+		}
+		try {
+			return Files.newBufferedReader(spool, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException("The spooled combat log could not be read.", e);
+		}
+	}
+
+	/**
+	 * @return the size of the log in bytes if it was spooled, in characters otherwise
+	 */
+	public long size() {
+		if (spool == null) {
+			return text.length();
+		}
+		try {
+			return Files.size(spool);
+		} catch (IOException e) {
+			throw new UncheckedIOException("The spooled combat log could not be read.", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		if (spool != null) {
+			CombatLogSpool.delete(spool);
+		}
+	}
+
+}
@@ -1,8 +1,62 @@
 package gg.bayes.challenge.business.service.match;
 
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
 public interface MatchLogCommandService {
 
     Long importData(String combatLog);
 
-}
+    /**
+     * Streams the combat log line by line and persists the parsed events in bounded chunks, so memory use does
+     * not depend on the size of the log.
+     *
+     * @param combatLog the combat log content; closed once it has been fully read
+     * @return the id of the match the events are associated with
+     */
+    Long importData(Reader combatLog);
+
+    /**
+     * Imports a combat log like {@link #importData(Reader)} whose content hash was taken beforehand, e.g. by
+     * {@link HashedCombatLog#spool} while it was written to disk, so the log is not read once more only to hash it.
+     *
+     * @param combatLog   the combat log content, which the caller closes
+     * @param contentHash the {@link ContentHash} of the whole log, used if uploads are deduplicated
+     * @return the id of the match the events are associated with
+     */
+    Long importData(Reader combatLog, String contentHash);
+
+    /**
+     * Imports many combat logs, each as its own match. Logs are taken from the iterator a batch at a time, parsed
+     * concurrently and written together in one transaction per batch; batches committed before a failure stay
+     * stored.
+     *
+     * @param combatLogs the content of each combat log
+     * @return the match ids, in the order of the logs
+     */
+    List<Long> importAll(Iterator<String> combatLogs);
 
+    /**
+     * Appends the next chunk of a combat log to a stored match, e.g. while the match is still running. Only the
+     * new lines are stored: events before the latest stored one, and as many events at its timestamp as were stored
+     * already, are taken to be resent and skipped. The per-match and cross-match totals are updated with the new
+     * events only.
+     *
+     * @param matchId   the match the events belong to
+     * @param combatLog the chunk of the combat log; closed once it has been fully read
+     * @return the number of events stored, 0 if the chunk held nothing new
+     */
+    int appendData(Long matchId, Reader combatLog);
+
+    /**
+     * Runs a read of the match while no events can be added to it, so the read sees every ingest of the match up to
+     * the position it is given and none after it. Appends to the match wait until the read is done.
+     *
+     * @param read reads the match at the given position, which is {@code null} if the match has no events yet
+     * @return the result of the read
+     */
+    <T> T readAtPosition(Long matchId, Function<MatchPosition, T> read);
+
+}
@@ -1,6 +1,7 @@
 package gg.bayes.challenge.business.service.match;
 
 import gg.bayes.challenge.config.rest.model.HeroDamage;
+import gg.bayes.challenge.config.rest.model.HeroDamageBucket;
 import gg.bayes.challenge.config.rest.model.HeroItem;
 import gg.bayes.challenge.config.rest.model.HeroKills;
 import gg.bayes.challenge.config.rest.model.HeroSpells;
@@ -9,6 +10,11 @@ import java.util.List;
 
 public interface MatchLogQueryService {
 
+	/**
+	 * Qualifies the implementation of the configured storage engine, which the response cache delegates to.
+	 */
+	String BACKEND = "matchLogQueryBackend";
+
 	List<HeroKills> getHeroKillsByMatch(Long matchId);
 
 	List<HeroSpells> getHeroSpellsByMatchAndHero(Long matchId, String heroName);
@@ -16,4 +22,27 @@ public interface MatchLogQueryService {
 	List<HeroDamage> getHeroDamageByMatch(Long matchId, String heroName);
 
 	List<HeroItem> getHeroItemsByMatch(Long matchId, String heroName);
+
+	/**
+	 * @return the names of the heroes that cast at least one spell in the match
+	 */
+	List<String> getHeroesByMatch(Long matchId);
+
+	/*
+	 * Windowed variants: only events with a timestamp inside the window are counted. Each is equivalent to its
+	 * unwindowed counterpart for TimeWindow.ALL.
+	 */
+
+	List<HeroKills> getHeroKillsByMatch(Long matchId, TimeWindow window);
+
+	List<HeroSpells> getHeroSpellsByMatchAndHero(Long matchId, String heroName, TimeWindow window);
+
+	List<HeroDamage> getHeroDamageByMatch(Long matchId, String heroName, TimeWindow window);
+
+	List<HeroItem> getHeroItemsByMatch(Long matchId, String heroName, TimeWindow window);
+
+	/**
+	 * @return the damage done by every hero of the match in each minute of the window, ordered by minute and hero
+	 */
+	List<HeroDamageBucket> getHeroDamageTimeline(Long matchId, TimeWindow window);
 }
@@ -0,0 +1,28 @@
+package gg.bayes.challenge.business.service.match;
+
+import lombok.Value;
+
+/**
+ * How far the stored events of a match reach: the timestamp of its latest event and how many events are stored at
+ * that timestamp. Every ingest of a match moves it forward, so it tells which ingests a read of the match saw.
+ */
+@Value
+public class MatchPosition implements Comparable<MatchPosition> {
+
+	long lastTimestamp;
+	int eventsAtLastTimestamp;
+
+	/**
+	 * @param other a position, or {@code null} for a match without events
+	 */
+	public boolean isAfter(MatchPosition other) {
+		return other == null || compareTo(other) > 0;
+	}
+
+	@Override
+	public int compareTo(MatchPosition other) {
+		int byTimestamp = Long.compare(lastTimestamp, other.lastTimestamp);
+		return byTimestamp != 0 ? byTimestamp : Integer.compare(eventsAtLastTimestamp, other.eventsAtLastTimestamp);
+	}
+
+}
@@ -0,0 +1,58 @@
+package gg.bayes.challenge.business.service.match;
+
+import gg.bayes.challenge.common.constants.Constants;
+import gg.bayes.challenge.common.exception.InvalidTimeWindowException;
+import lombok.Value;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A range of match time, {@code from} inclusive and {@code to} exclusive, in milliseconds since match start.
+ */
+@Value
+public class TimeWindow {
+
+	public static final TimeWindow ALL = new TimeWindow(0, Long.MAX_VALUE);
+
+	private static final Pattern MATCH_TIME = Pattern.compile("(\\d+):([0-5]\\d):([0-5]\\d)(?:\\.(\\d{1,3}))?");
+
+	long from;
+	long to;
+
+	/**
+	 * @param from match time in the {@code HH:MM:SS[.mmm]} format of the combat log, or {@code null} for the start
+	 * @param to   match time in the same format, or {@code null} for the end
+	 * @throws InvalidTimeWindowException if a bound is malformed or the window ends before it starts
+	 */
+	public static TimeWindow parse(String from, String to) {
+		if (from == null && to == null) {
+			return ALL;
+		}
+		long fromMillis = from == null ? ALL.from : parseMatchTime(from);
+		long toMillis = to == null ? ALL.to : parseMatchTime(to);
+		if (toMillis < fromMillis) {
+			throw new InvalidTimeWindowException("The window ends at " + to + ", before it starts at " + from + ".");
+		}
+		return new TimeWindow(fromMillis, toMillis);
+	}
+
+	public boolean isAll() {
+		return from <= ALL.from && to == ALL.to;
+	}
+
+	private static long parseMatchTime(String matchTime) {
+		Matcher matcher = MATCH_TIME.matcher(matchTime);
+		if (!matcher.matches()) {
+			throw new InvalidTimeWindowException("'" + matchTime + "' is not a match time of the form HH:MM:SS[.mmm].");
+		}
+		long millis = 0;
+		if (matcher.group(4) != null) {
+			millis = Long.parseLong((matcher.group(4) + "00").substring(0, 3));
+		}
+		return (Long.parseLong(matcher.group(1)) * Constants.HOUR_EQ_SECONDS
+				+ Long.parseLong(matcher.group(2)) * Constants.MINUTE_EQ_SECONDS
+				+ Long.parseLong(matcher.group(3))) * Constants.MILLISECOND_MULTIPLIER + millis;
+	}
+
+}
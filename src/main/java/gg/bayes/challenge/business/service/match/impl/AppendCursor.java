@@ -0,0 +1,72 @@
+package gg.bayes.challenge.business.service.match.impl;
+
+import gg.bayes.challenge.business.service.match.MatchPosition;
+import lombok.Getter;
+
+/**
+ * Position of a match in its combat log: the timestamp of its latest stored event and how many events were stored
+ * at that timestamp. Appended entries are checked against it in timestamp order, so lines that were sent before are
+ * dropped, including events sharing the latest timestamp when a chunk boundary cuts through them.
+ */
+@Getter
+class AppendCursor {
+
+	static final long NONE = -1;
+
+	private long lastTimestamp;
+	private int eventsAtLastTimestamp;
+
+	/**
+	 * Events of the last timestamp that were stored before this append and are expected again if the client resends
+	 * the boundary lines.
+	 */
+	private int storedAtLastTimestamp;
+
+	AppendCursor(long lastTimestamp, int eventsAtLastTimestamp) {
+		this.lastTimestamp = lastTimestamp;
+		this.eventsAtLastTimestamp = eventsAtLastTimestamp;
+		this.storedAtLastTimestamp = eventsAtLastTimestamp;
+	}
+
+	static AppendCursor empty() {
+		return new AppendCursor(NONE, 0);
+	}
+
+	MatchPosition position() {
+		return new MatchPosition(lastTimestamp, eventsAtLastTimestamp);
+	}
+
+	/**
+	 * Records an event of a fresh log, which is never dropped.
+	 */
+	void record(long timestamp) {
+		if (timestamp > lastTimestamp) {
+			lastTimestamp = timestamp;
+			eventsAtLastTimestamp = 1;
+		} else if (timestamp == lastTimestamp) {
+			eventsAtLastTimestamp++;
+		}
+	}
+
+	/**
+	 * @return whether an appended event is new and has to be stored; its position is recorded if so
+	 */
+	boolean advance(long timestamp) {
+		if (timestamp < lastTimestamp) {
+			return false;
+		}
+		if (timestamp == lastTimestamp) {
+			if (storedAtLastTimestamp > 0) {
+				storedAtLastTimestamp--;
+				return false;
+			}
+			eventsAtLastTimestamp++;
+			return true;
+		}
+		lastTimestamp = timestamp;
+		eventsAtLastTimestamp = 1;
+		storedAtLastTimestamp = 0;
+		return true;
+	}
+
+}
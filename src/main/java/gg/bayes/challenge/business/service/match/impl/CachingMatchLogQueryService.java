@@ -0,0 +1,204 @@
+package gg.bayes.challenge.business.service.match.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gg.bayes.challenge.business.event.MatchIngestedEvent;
+import gg.bayes.challenge.business.metrics.QueryMetrics;
+import gg.bayes.challenge.business.service.match.MatchLogQueryService;
+import gg.bayes.challenge.business.service.match.TimeWindow;
+import gg.bayes.challenge.common.cache.MatchScopedCache;
+import gg.bayes.challenge.config.properties.QueryCacheProperties;
+import gg.bayes.challenge.config.rest.model.HeroDamage;
+import gg.bayes.challenge.config.rest.model.HeroDamageBucket;
+import gg.bayes.challenge.config.rest.model.HeroItem;
+import gg.bayes.challenge.config.rest.model.HeroKills;
+import gg.bayes.challenge.config.rest.model.HeroSpells;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of the query service of the configured storage engine, keyed by match, hero, time
+ * window and query kind. Responses are weighed by their row count and evicted by Caffeine once the configured weight
+ * is exceeded; hit, miss and eviction counts are published as the {@code cache.*} meters of the {@value #CACHE_NAME}
+ * cache.
+ * <p>
+ * Entries of a match are dropped whenever events are ingested for it, and optionally rebuilt right away; see
+ * {@link MatchScopedCache} for how a query racing the ingest is kept from caching a stale answer.
+ */
+@Slf4j
+@Primary
+@Service
+public class CachingMatchLogQueryService implements MatchLogQueryService {
+
+	static final String CACHE_NAME = "matchQueries";
+
+	private final MatchLogQueryService delegate;
+	private final QueryCacheProperties queryCacheProperties;
+	private final QueryMetrics queryMetrics;
+	private final MatchScopedCache<MatchQueryKey, List<?>> cache;
+
+	public CachingMatchLogQueryService(@Qualifier(BACKEND) MatchLogQueryService delegate,
+			QueryCacheProperties queryCacheProperties, QueryMetrics queryMetrics, MeterRegistry meterRegistry) {
+		this.delegate = delegate;
+		this.queryCacheProperties = queryCacheProperties;
+		this.queryMetrics = queryMetrics;
+		this.cache = new MatchScopedCache<>(Caffeine.newBuilder()
+				.maximumWeight(queryCacheProperties.getMaximumWeight())
+				.<MatchQueryKey, List<?>>weigher((key, rows) -> rows.size() + 1)
+				.recordStats(), MatchQueryKey::getMatchId);
+		CaffeineCacheMetrics.monitor(meterRegistry, cache.getCache(), CACHE_NAME);
+	}
+
+	@Override
+	public List<HeroKills> getHeroKillsByMatch(Long matchId) {
+		return get(new MatchQueryKey(matchId, null, TimeWindow.ALL, QueryKind.KILLS),
+				() -> delegate.getHeroKillsByMatch(matchId));
+	}
+
+	@Override
+	public List<HeroSpells> getHeroSpellsByMatchAndHero(Long matchId, String heroName) {
+		return get(new MatchQueryKey(matchId, heroName, TimeWindow.ALL, QueryKind.SPELLS),
+				() -> delegate.getHeroSpellsByMatchAndHero(matchId, heroName));
+	}
+
+	@Override
+	public List<HeroDamage> getHeroDamageByMatch(Long matchId, String heroName) {
+		return get(new MatchQueryKey(matchId, heroName, TimeWindow.ALL, QueryKind.DAMAGE),
+				() -> delegate.getHeroDamageByMatch(matchId, heroName));
+	}
+
+	@Override
+	public List<HeroItem> getHeroItemsByMatch(Long matchId, String heroName) {
+		return get(new MatchQueryKey(matchId, heroName, TimeWindow.ALL, QueryKind.ITEMS),
+				() -> delegate.getHeroItemsByMatch(matchId, heroName));
+	}
+
+	@Override
+	public List<String> getHeroesByMatch(Long matchId) {
+		return get(new MatchQueryKey(matchId, null, TimeWindow.ALL, QueryKind.HEROES),
+				() -> delegate.getHeroesByMatch(matchId));
+	}
+
+	/*
+	 * A window covering the whole match shares the cache entries of the unwindowed queries.
+	 */
+
+	@Override
+	public List<HeroKills> getHeroKillsByMatch(Long matchId, TimeWindow window) {
+		if (window.isAll()) {
+			return getHeroKillsByMatch(matchId);
+		}
+		return get(new MatchQueryKey(matchId, null, window, QueryKind.KILLS),
+				() -> delegate.getHeroKillsByMatch(matchId, window));
+	}
+
+	@Override
+	public List<HeroSpells> getHeroSpellsByMatchAndHero(Long matchId, String heroName, TimeWindow window) {
+		if (window.isAll()) {
+			return getHeroSpellsByMatchAndHero(matchId, heroName);
+		}
+		return get(new MatchQueryKey(matchId, heroName, window, QueryKind.SPELLS),
+				() -> delegate.getHeroSpellsByMatchAndHero(matchId, heroName, window));
+	}
+
+	@Override
+	public List<HeroDamage> getHeroDamageByMatch(Long matchId, String heroName, TimeWindow window) {
+		if (window.isAll()) {
+			return getHeroDamageByMatch(matchId, heroName);
+		}
+		return get(new MatchQueryKey(matchId, heroName, window, QueryKind.DAMAGE),
+				() -> delegate.getHeroDamageByMatch(matchId, heroName, window));
+	}
+
+	@Override
+	public List<HeroItem> getHeroItemsByMatch(Long matchId, String heroName, TimeWindow window) {
+		if (window.isAll()) {
+			return getHeroItemsByMatch(matchId, heroName);
+		}
+		return get(new MatchQueryKey(matchId, heroName, window, QueryKind.ITEMS),
+				() -> delegate.getHeroItemsByMatch(matchId, heroName, window));
+	}
+
+	@Override
+	public List<HeroDamageBucket> getHeroDamageTimeline(Long matchId, TimeWindow window) {
+		return get(new MatchQueryKey(matchId, null, window, QueryKind.DAMAGE_TIMELINE),
+				() -> delegate.getHeroDamageTimeline(matchId, window));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onMatchIngested(MatchIngestedEvent event) {
+		invalidate(event.getMatchId());
+		if (queryCacheProperties.isEnabled() && queryCacheProperties.isWarmOnIngest()) {
+			warm(event.getMatchId(), event.getStats().getHeroes());
+		}
+	}
+
+	/**
+	 * Drops every cached response of the match; queries of it that are still running do not cache their answers.
+	 */
+	public void invalidate(Long matchId) {
+		cache.invalidate(matchId);
+	}
+
+	/**
+	 * Loads the responses of every endpoint into the cache for the given heroes of the match, and for the heroes
+	 * that killed or cast a spell in it. The heroes of appended events only list the ones joining the match with
+	 * them, so the latter cover the heroes known before.
+	 */
+	public void warm(Long matchId, Set<String> heroes) {
+		Set<String> heroNames = new TreeSet<>(heroes);
+		getHeroKillsByMatch(matchId).forEach(heroKills -> heroNames.add(heroKills.getHero()));
+		heroNames.addAll(getHeroesByMatch(matchId));
+		for (String heroName : heroNames) {
+			getHeroSpellsByMatchAndHero(matchId, heroName);
+			getHeroDamageByMatch(matchId, heroName);
+			getHeroItemsByMatch(matchId, heroName);
+		}
+		log.debug("Warmed the query cache for match {}", matchId);
+	}
+
+	/**
+	 * Cached responses are shared between callers, so they are stored as unmodifiable copies. Every call that
+	 * reaches the storage engine is metered.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> List<T> get(MatchQueryKey key, Supplier<List<T>> loader) {
+		Supplier<List<T>> meteredLoader = () -> queryMetrics.time(key.getKind().metricTag, loader);
+		if (!queryCacheProperties.isEnabled()) {
+			return meteredLoader.get();
+		}
+		return (List<T>) cache.get(key, () -> List.copyOf(meteredLoader.get()));
+	}
+
+	@RequiredArgsConstructor
+	private enum QueryKind {
+		KILLS(QueryMetrics.KILLS),
+		SPELLS(QueryMetrics.SPELLS),
+		DAMAGE(QueryMetrics.DAMAGE),
+		ITEMS(QueryMetrics.ITEMS),
+		HEROES(QueryMetrics.HEROES),
+		DAMAGE_TIMELINE(QueryMetrics.DAMAGE_TIMELINE);
+
+		private final String metricTag;
+	}
+
+	@Value
+	private static class MatchQueryKey {
+		Long matchId;
+		String heroName;
+		TimeWindow window;
+		QueryKind kind;
+	}
+
+}
@@ -0,0 +1,396 @@
+package gg.bayes.challenge.business.service.match.impl;
+
+import gg.bayes.challenge.business.aggregate.CrossMatchAggregates;
+import gg.bayes.challenge.business.aggregate.MatchStatsAccumulator;
+import gg.bayes.challenge.business.event.MatchIngestedEvent;
+import gg.bayes.challenge.business.metrics.IngestMetrics;
+import gg.bayes.challenge.business.parser.ParallelCombatLogParser;
+import gg.bayes.challenge.business.service.match.ContentHash;
+import gg.bayes.challenge.business.service.match.HashedCombatLog;
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.business.service.match.MatchPosition;
+import gg.bayes.challenge.business.shard.MatchIdSpace;
+import gg.bayes.challenge.common.exception.MatchNotFoundException;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.persistence.model.ColumnarMatch;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.repository.ColumnarMatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Ingest path of the columnar engine: the log is parsed chunk by chunk like on the JPA path, but the entries go
+ * straight into the columns of a {@link ColumnarMatch}, which is published in one step once the whole log is read.
+ * No per-match summary rows are kept; the columns are scanned on every query instead.
+ * <p>
+ * Repeated uploads are recognized by an in-memory index of content hashes, which covers the matches imported since
+ * startup; matches restored from segment files have no hash and are not deduplicated against.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "dota.storage", name = "engine", havingValue = "columnar")
+public class ColumnarMatchLogCommandService implements MatchLogCommandService {
+
+    private static final int APPEND_LOCK_STRIPES = 64;
+
+    private final ColumnarMatchRepository columnarMatchRepository;
+    private final ParallelCombatLogParser parallelCombatLogParser;
+    private final IngestProperties ingestProperties;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final CrossMatchAggregates crossMatchAggregates;
+    private final IngestMetrics ingestMetrics;
+    private final MatchIdSpace matchIdSpace;
+
+    private final ConcurrentMap<String, Long> matchIdsByContentHash = new ConcurrentHashMap<>();
+    private final ReentrantLock[] appendLocks = IntStream.range(0, APPEND_LOCK_STRIPES)
+            .mapToObj(stripe -> new ReentrantLock())
+            .toArray(ReentrantLock[]::new);
+
+    /**
+     * Matches kept in segment files outlive the process, so their cross-match totals are rebuilt before the first
+     * request is served. They are summed from the summaries stored with the segments, which costs one small read per
+     * segment; no events are decoded and the cache of decoded matches is left alone.
+     */
+    @PostConstruct
+    void restoreCrossMatchAggregates() {
+        List<Long> matchIds = columnarMatchRepository.findAllIds();
+        for (Long matchId : matchIds) {
+            var summaries = columnarMatchRepository.findSummaries(matchId);
+            if (!summaries.isEmpty()) {
+                var stats = new MatchStatsAccumulator();
+                summaries.forEach(stats::addAll);
+                crossMatchAggregates.add(stats);
+            }
+        }
+        if (!matchIds.isEmpty()) {
+            log.info("Restored the cross-match totals of {} stored matches", matchIds.size());
+        }
+    }
+
+    @Override
+    public Long importData(String combatLog) {
+        return ingestMetrics.record(IngestMetrics.Operation.IMPORT, () -> ingestProperties.isDeduplicate()
+                ? importHashed(HashedCombatLog.of(combatLog))
+                : importLog(new StringReader(combatLog), null));
+    }
+
+    @Override
+    public Long importData(Reader combatLog) {
+        return ingestMetrics.record(IngestMetrics.Operation.IMPORT, () -> {
+            if (!ingestProperties.isDeduplicate()) {
+                return importLog(combatLog, null);
+            }
+            try (var hashedLog = HashedCombatLog.spool(combatLog)) {
+                return importHashed(hashedLog);
+            }
+        });
+    }
+
+    @Override
+    public Long importData(Reader combatLog, String contentHash) {
+        return ingestMetrics.record(IngestMetrics.Operation.IMPORT, () -> ingestProperties.isDeduplicate()
+                ? importHashed(contentHash, () -> combatLog)
+                : importLog(combatLog, null));
+    }
+
+    private Long importHashed(HashedCombatLog combatLog) {
+        return importHashed(combatLog.getContentHash(), combatLog::open);
+    }
+
+    /**
+     * The log is hashed before it is parsed, so a repeated upload is answered without parsing it or allocating an
+     * id; two concurrent uploads of the same log are still told apart by {@link #claim}.
+     */
+    private Long importHashed(String contentHash, Supplier<Reader> combatLog) {
+        Long duplicate = matchIdsByContentHash.get(contentHash);
+        if (duplicate != null) {
+            ingestMetrics.countDuplicate();
+            return duplicate;
+        }
+        return importLog(combatLog.get(), contentHash);
+    }
+
+    private Long importLog(Reader combatLog, String contentHash) {
+        int chunkSize = ingestProperties.getChunkSize();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        var builder = new ColumnarMatch.Builder();
+        var stats = new MatchStatsAccumulator();
+
+        try (var reader = new BufferedReader(combatLog)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    flush(builder, stats, chunk);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("The combat log could not be read.", e);
+        }
+        flush(builder, stats, chunk);
+
+        if (builder.size() == 0) {
+            throw new RuntimeException("There is no data to process for the related file.");
+        }
+        Long matchId = matchIdSpace.allocate(columnarMatchRepository.nextId());
+        Long duplicate = claim(contentHash, matchId);
+        if (duplicate != null) {
+            return duplicate;
+        }
+        var match = builder.build(matchId);
+        saveNew(match, stats, contentHash);
+        applicationEventPublisher.publishEvent(new MatchIngestedEvent(match.getId(), stats, false, positionOf(match)));
+        return match.getId();
+    }
+
+    /**
+     * Registers the match id for the content hash unless a match was imported from the same log before.
+     *
+     * @return the id of that earlier match, or {@code null} if the log is new or the hash {@code null}
+     */
+    private Long claim(String contentHash, Long matchId) {
+        if (contentHash == null) {
+            return null;
+        }
+        Long duplicate = matchIdsByContentHash.putIfAbsent(contentHash, matchId);
+        if (duplicate != null) {
+            ingestMetrics.countDuplicate();
+        }
+        return duplicate;
+    }
+
+    /**
+     * Saves a freshly imported match; if that fails its content hash is released, so a retry of the upload is
+     * imported rather than answered with a match that was never stored.
+     */
+    private void saveNew(ColumnarMatch match, MatchStatsAccumulator stats, String contentHash) {
+        try {
+            ingestMetrics.time(IngestMetrics.Stage.WRITE, () -> columnarMatchRepository.save(match, stats.summary()));
+            ingestMetrics.countWritten(match.getSize());
+        } catch (RuntimeException e) {
+            if (contentHash != null) {
+                matchIdsByContentHash.remove(contentHash, match.getId());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Long> importAll(Iterator<String> combatLogs) {
+        return ingestMetrics.record(IngestMetrics.Operation.BATCH, () -> importLogs(combatLogs));
+    }
+
+    private List<Long> importLogs(Iterator<String> combatLogs) {
+        int batchSize = ingestProperties.getBatchSize();
+        List<List<String>> batch = new ArrayList<>(batchSize);
+        List<Long> matchIds = new ArrayList<>();
+        while (combatLogs.hasNext()) {
+            batch.add(combatLogs.next().lines().collect(Collectors.toList()));
+            if (batch.size() == batchSize) {
+                matchIds.addAll(importBatch(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            matchIds.addAll(importBatch(batch));
+        }
+        return matchIds;
+    }
+
+    /**
+     * Logs that were imported before are answered without being parsed. A log repeated within the batch is parsed
+     * once per occurrence but stored once.
+     */
+    private List<Long> importBatch(List<List<String>> logs) {
+        Long[] matchIds = new Long[logs.size()];
+        List<String> contentHashes = new ArrayList<>(logs.size());
+        List<List<String>> newLogs = new ArrayList<>(logs.size());
+        for (int i = 0; i < logs.size(); i++) {
+            String contentHash = ingestProperties.isDeduplicate() ? ContentHash.of(logs.get(i)) : null;
+            Long duplicate = contentHash == null ? null : matchIdsByContentHash.get(contentHash);
+            if (duplicate != null) {
+                matchIds[i] = duplicate;
+                ingestMetrics.countDuplicate();
+            } else {
+                contentHashes.add(contentHash);
+                newLogs.add(logs.get(i));
+            }
+        }
+        List<List<CombatLogEntryEntity>> parsedLogs = new ArrayList<>(newLogs.size());
+        for (var parsed : ingestMetrics.time(IngestMetrics.Stage.PARSE,
+                () -> parallelCombatLogParser.parseAll(newLogs))) {
+            ingestMetrics.countParsed(parsed);
+            parsedLogs.add(parsed.getEntries());
+        }
+        if (parsedLogs.stream().anyMatch(List::isEmpty)) {
+            throw new RuntimeException("There is no data to process for the related file.");
+        }
+        int next = 0;
+        for (int i = 0; i < matchIds.length; i++) {
+            if (matchIds[i] != null) {
+                continue;
+            }
+            var entries = parsedLogs.get(next);
+            Long matchId = matchIdSpace.allocate(columnarMatchRepository.nextId());
+            Long duplicate = claim(contentHashes.get(next++), matchId);
+            if (duplicate != null) {
+                matchIds[i] = duplicate;
+                continue;
+            }
+            var builder = new ColumnarMatch.Builder();
+            var stats = new MatchStatsAccumulator();
+            ingestMetrics.time(IngestMetrics.Stage.ENCODE, () -> {
+                entries.forEach(builder::add);
+                stats.addAll(entries);
+            });
+            var match = builder.build(matchId);
+            saveNew(match, stats, contentHashes.get(next - 1));
+            applicationEventPublisher.publishEvent(new MatchIngestedEvent(match.getId(), stats, false,
+                    positionOf(match)));
+            matchIds[i] = matchId;
+        }
+        return Arrays.asList(matchIds);
+    }
+
+    /**
+     * Parses the appended log without holding any lock, then adds the new events to the stored match under the lock
+     * of the match, so two appends to one match never start from the same copy while appends to other matches go
+     * ahead.
+     */
+    @Override
+    public int appendData(Long matchId, Reader combatLog) {
+        return ingestMetrics.record(IngestMetrics.Operation.APPEND, () -> appendLog(matchId, combatLog));
+    }
+
+    private int appendLog(Long matchId, Reader combatLog) {
+        if (columnarMatchRepository.findById(matchId).isEmpty()) {
+            throw new MatchNotFoundException(matchId);
+        }
+        int chunkSize = ingestProperties.getChunkSize();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        List<CombatLogEntryEntity> entries = new ArrayList<>();
+
+        try (var reader = new BufferedReader(combatLog)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    entries.addAll(parse(chunk));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("The combat log could not be read.", e);
+        }
+        entries.addAll(parse(chunk));
+
+        var lock = appendLock(matchId);
+        lock.lock();
+        try {
+            return append(matchId, entries);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Holds the lock of the match while the read runs, so an append is either stored before the read or waits for
+     * it. A match that is being imported is not visible until it is stored whole.
+     */
+    @Override
+    public <T> T readAtPosition(Long matchId, Function<MatchPosition, T> read) {
+        var lock = appendLock(matchId);
+        lock.lock();
+        try {
+            return read.apply(columnarMatchRepository.findById(matchId)
+                    .map(ColumnarMatchLogCommandService::positionOf)
+                    .orElse(null));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock appendLock(Long matchId) {
+        return appendLocks[Math.floorMod(matchId.hashCode(), appendLocks.length)];
+    }
+
+    private static MatchPosition positionOf(ColumnarMatch match) {
+        long lastTimestamp = match.getTimestamps()[match.getSize() - 1];
+        return new MatchPosition(lastTimestamp, match.getSize() - match.lowerBound(lastTimestamp));
+    }
+
+    /**
+     * The new events are built into columns of their own and stored as a delta with their summary, see
+     * {@link ColumnarMatchRepository#append}; the heroes already taking part come from the stored summaries. Only
+     * the match served from memory is rebuilt in full, by copying the stored columns and adding the new ones.
+     */
+    private int append(Long matchId, List<CombatLogEntryEntity> entries) {
+        var stored = columnarMatchRepository.findById(matchId).orElseThrow(() -> new MatchNotFoundException(matchId));
+        var position = positionOf(stored);
+        var cursor = new AppendCursor(position.getLastTimestamp(), position.getEventsAtLastTimestamp());
+        var builder = new ColumnarMatch.Builder();
+        var stats = new MatchStatsAccumulator();
+        ingestMetrics.time(IngestMetrics.Stage.ENCODE, () -> {
+            for (var entry : entries) {
+                if (cursor.advance(entry.getTimestamp())) {
+                    builder.add(entry);
+                    stats.add(entry);
+                }
+            }
+        });
+
+        if (builder.size() == 0) {
+            return 0;
+        }
+        columnarMatchRepository.findSummaries(matchId)
+                .forEach(summary -> stats.removeHeroes(summary.getHeroes()));
+        var appended = builder.build(matchId);
+        var match = new ColumnarMatch.Builder(stored).addAll(appended).build(matchId);
+        ingestMetrics.time(IngestMetrics.Stage.WRITE,
+                () -> columnarMatchRepository.append(match, appended, stats.summary()));
+        ingestMetrics.countWritten(appended.getSize());
+        applicationEventPublisher.publishEvent(new MatchIngestedEvent(matchId, stats, true, cursor.position()));
+        return appended.getSize();
+    }
+
+    private List<CombatLogEntryEntity> parse(List<String> chunk) {
+        if (chunk.isEmpty()) {
+            return List.of();
+        }
+        var parsed = ingestMetrics.time(IngestMetrics.Stage.PARSE, () -> parallelCombatLogParser.parse(chunk));
+        ingestMetrics.countParsed(parsed);
+        List<CombatLogEntryEntity> entries = parsed.getEntries();
+        chunk.clear();
+        return entries;
+    }
+
+    private void flush(ColumnarMatch.Builder builder, MatchStatsAccumulator stats, List<String> chunk) {
+        List<CombatLogEntryEntity> entries = parse(chunk);
+        ingestMetrics.time(IngestMetrics.Stage.ENCODE, () -> {
+            entries.forEach(builder::add);
+            stats.addAll(entries);
+        });
+    }
+
+}
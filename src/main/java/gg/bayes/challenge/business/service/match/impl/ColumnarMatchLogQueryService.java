@@ -0,0 +1,256 @@
+package gg.bayes.challenge.business.service.match.impl;
+
+import gg.bayes.challenge.business.metrics.QueryMetrics;
+import gg.bayes.challenge.business.service.match.MatchLogQueryService;
+import gg.bayes.challenge.business.service.match.TimeWindow;
+import gg.bayes.challenge.common.constants.Constants;
+import gg.bayes.challenge.config.rest.model.HeroDamage;
+import gg.bayes.challenge.config.rest.model.HeroDamageBucket;
+import gg.bayes.challenge.config.rest.model.HeroItem;
+import gg.bayes.challenge.config.rest.model.HeroKills;
+import gg.bayes.challenge.config.rest.model.HeroSpells;
+import gg.bayes.challenge.persistence.model.ColumnarMatch;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.repository.ColumnarMatchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers every query with one pass over the type column of the match and reads of the columns the query needs.
+ * Per-name totals are kept in arrays indexed by the local name id of the match, so a scan allocates only its
+ * result.
+ * <p>
+ * Rows are sorted by timestamp, so a time window is turned into a row range by two binary searches over the
+ * timestamp column and only that range is scanned.
+ */
+@Service
+@RequiredArgsConstructor
+@Qualifier(MatchLogQueryService.BACKEND)
+@ConditionalOnProperty(prefix = "dota.storage", name = "engine", havingValue = "columnar")
+public class ColumnarMatchLogQueryService implements MatchLogQueryService {
+
+	private static final byte HERO_KILLED = ColumnarMatch.typeCode(CombatLogEntryEntity.Type.HERO_KILLED);
+	private static final byte SPELL_CAST = ColumnarMatch.typeCode(CombatLogEntryEntity.Type.SPELL_CAST);
+	private static final byte DAMAGE_DONE = ColumnarMatch.typeCode(CombatLogEntryEntity.Type.DAMAGE_DONE);
+	private static final byte ITEM_PURCHASED = ColumnarMatch.typeCode(CombatLogEntryEntity.Type.ITEM_PURCHASED);
+
+	private static final long MILLIS_PER_MINUTE = (long) Constants.MINUTE_EQ_SECONDS * Constants.MILLISECOND_MULTIPLIER;
+
+	private final ColumnarMatchRepository columnarMatchRepository;
+	private final QueryMetrics queryMetrics;
+
+	@Override
+	public List<HeroKills> getHeroKillsByMatch(Long matchId) {
+		return getHeroKillsByMatch(matchId, TimeWindow.ALL);
+	}
+
+	@Override
+	public List<HeroSpells> getHeroSpellsByMatchAndHero(Long matchId, String heroName) {
+		return getHeroSpellsByMatchAndHero(matchId, heroName, TimeWindow.ALL);
+	}
+
+	@Override
+	public List<HeroDamage> getHeroDamageByMatch(Long matchId, String heroName) {
+		return getHeroDamageByMatch(matchId, heroName, TimeWindow.ALL);
+	}
+
+	@Override
+	public List<HeroItem> getHeroItemsByMatch(Long matchId, String heroName) {
+		return getHeroItemsByMatch(matchId, heroName, TimeWindow.ALL);
+	}
+
+	@Override
+	public List<String> getHeroesByMatch(Long matchId) {
+		var match = columnarMatchRepository.findById(matchId).orElse(null);
+		if (match == null) {
+			return Collections.emptyList();
+		}
+		byte[] types = match.getTypes();
+		int[] actors = match.getActors();
+		boolean[] casters = new boolean[match.getNames().length];
+		queryMetrics.countScanned(QueryMetrics.HEROES, match.getSize());
+		for (int row = 0; row < match.getSize(); row++) {
+			if (types[row] == SPELL_CAST) {
+				casters[actors[row]] = true;
+			}
+		}
+		List<String> result = new ArrayList<>();
+		for (int name = 0; name < casters.length; name++) {
+			if (casters[name]) {
+				result.add(match.name(name));
+			}
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	@Override
+	public List<HeroKills> getHeroKillsByMatch(Long matchId, TimeWindow window) {
+		var match = columnarMatchRepository.findById(matchId).orElse(null);
+		if (match == null) {
+			return Collections.emptyList();
+		}
+		byte[] types = match.getTypes();
+		int[] actors = match.getActors();
+		int[] kills = new int[match.getNames().length];
+		int start = match.lowerBound(window.getFrom());
+		int end = match.lowerBound(window.getTo());
+		queryMetrics.countScanned(QueryMetrics.KILLS, end - start);
+		for (int row = start; row < end; row++) {
+			if (types[row] == HERO_KILLED) {
+				kills[actors[row]]++;
+			}
+		}
+		List<HeroKills> result = new ArrayList<>();
+		for (int name = 0; name < kills.length; name++) {
+			if (kills[name] > 0) {
+				result.add(new HeroKills(match.name(name), kills[name]));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<HeroSpells> getHeroSpellsByMatchAndHero(Long matchId, String heroName, TimeWindow window) {
+		var match = columnarMatchRepository.findById(matchId).orElse(null);
+		int hero = heroId(match, heroName);
+		if (hero == ColumnarMatch.NO_NAME) {
+			return Collections.emptyList();
+		}
+		byte[] types = match.getTypes();
+		int[] actors = match.getActors();
+		int[] abilities = match.getAbilities();
+		int[] casts = new int[match.getNames().length];
+		int start = match.lowerBound(window.getFrom());
+		int end = match.lowerBound(window.getTo());
+		queryMetrics.countScanned(QueryMetrics.SPELLS, end - start);
+		for (int row = start; row < end; row++) {
+			if (types[row] == SPELL_CAST && actors[row] == hero) {
+				casts[abilities[row]]++;
+			}
+		}
+		List<HeroSpells> result = new ArrayList<>();
+		for (int name = 0; name < casts.length; name++) {
+			if (casts[name] > 0) {
+				result.add(new HeroSpells(match.name(name), casts[name]));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<HeroDamage> getHeroDamageByMatch(Long matchId, String heroName, TimeWindow window) {
+		var match = columnarMatchRepository.findById(matchId).orElse(null);
+		int hero = heroId(match, heroName);
+		if (hero == ColumnarMatch.NO_NAME) {
+			return Collections.emptyList();
+		}
+		byte[] types = match.getTypes();
+		int[] actors = match.getActors();
+		int[] targets = match.getTargets();
+		int[] damage = match.getDamage();
+		int[] instances = new int[match.getNames().length];
+		long[] totals = new long[instances.length];
+		int start = match.lowerBound(window.getFrom());
+		int end = match.lowerBound(window.getTo());
+		queryMetrics.countScanned(QueryMetrics.DAMAGE, end - start);
+		for (int row = start; row < end; row++) {
+			if (types[row] == DAMAGE_DONE && actors[row] == hero) {
+				instances[targets[row]]++;
+				totals[targets[row]] += damage[row];
+			}
+		}
+		List<HeroDamage> result = new ArrayList<>();
+		for (int name = 0; name < instances.length; name++) {
+			if (instances[name] > 0) {
+				result.add(new HeroDamage(match.name(name), instances[name], Math.toIntExact(totals[name])));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<HeroItem> getHeroItemsByMatch(Long matchId, String heroName, TimeWindow window) {
+		var match = columnarMatchRepository.findById(matchId).orElse(null);
+		int hero = heroId(match, heroName);
+		if (hero == ColumnarMatch.NO_NAME) {
+			return Collections.emptyList();
+		}
+		byte[] types = match.getTypes();
+		int[] actors = match.getActors();
+		int[] items = match.getItems();
+		long[] timestamps = match.getTimestamps();
+		List<HeroItem> result = new ArrayList<>();
+		int start = match.lowerBound(window.getFrom());
+		int end = match.lowerBound(window.getTo());
+		queryMetrics.countScanned(QueryMetrics.ITEMS, end - start);
+		for (int row = start; row < end; row++) {
+			if (types[row] == ITEM_PURCHASED && actors[row] == hero) {
+				result.add(new HeroItem(match.name(items[row]), timestamps[row]));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public List<HeroDamageBucket> getHeroDamageTimeline(Long matchId, TimeWindow window) {
+		var match = columnarMatchRepository.findById(matchId).orElse(null);
+		if (match == null) {
+			return Collections.emptyList();
+		}
+		byte[] types = match.getTypes();
+		int[] actors = match.getActors();
+		int[] damage = match.getDamage();
+		long[] timestamps = match.getTimestamps();
+		List<HeroDamageBucket> result = new ArrayList<>();
+		Map<Integer, long[]> minute = new HashMap<>();
+		long currentMinute = -1;
+		int start = match.lowerBound(window.getFrom());
+		int end = match.lowerBound(window.getTo());
+		queryMetrics.countScanned(QueryMetrics.DAMAGE_TIMELINE, end - start);
+		for (int row = start; row < end; row++) {
+			if (types[row] != DAMAGE_DONE) {
+				continue;
+			}
+			long rowMinute = timestamps[row] / MILLIS_PER_MINUTE;
+			if (rowMinute != currentMinute) {
+				addBuckets(match, currentMinute, minute, result);
+				currentMinute = rowMinute;
+			}
+			long[] totals = minute.computeIfAbsent(actors[row], hero -> new long[2]);
+			totals[0]++;
+			totals[1] += damage[row];
+		}
+		addBuckets(match, currentMinute, minute, result);
+		return result;
+	}
+
+	/**
+	 * Rows are in timestamp order, so the buckets of one minute are complete once the scan moves past it.
+	 */
+	private static void addBuckets(ColumnarMatch match, long minute, Map<Integer, long[]> totalsByHero,
+			List<HeroDamageBucket> result) {
+		int first = result.size();
+		totalsByHero.forEach((hero, totals) -> result.add(new HeroDamageBucket(match.name(hero), (int) minute,
+				(int) totals[0], Math.toIntExact(totals[1]))));
+		result.subList(first, result.size()).sort(Comparator.comparing(HeroDamageBucket::getHero));
+		totalsByHero.clear();
+	}
+
+	private static int heroId(ColumnarMatch match, String heroName) {
+		if (match == null) {
+			return ColumnarMatch.NO_NAME;
+		}
+		return match.nameId(heroName.replace(Constants.HERO_KEYWORD, ""));
+	}
+
+}
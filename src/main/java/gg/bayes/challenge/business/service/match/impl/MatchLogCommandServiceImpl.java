@@ -1,201 +1,448 @@
 package gg.bayes.challenge.business.service.match.impl;
 
+import gg.bayes.challenge.business.aggregate.MatchStatsAccumulator;
+import gg.bayes.challenge.business.dictionary.NameDictionary;
+import gg.bayes.challenge.business.event.MatchIngestedEvent;
+import gg.bayes.challenge.business.metrics.IngestMetrics;
+import gg.bayes.challenge.business.parser.ParallelCombatLogParser;
+import gg.bayes.challenge.business.service.match.ContentHash;
+import gg.bayes.challenge.business.service.match.HashedCombatLog;
 import gg.bayes.challenge.business.service.match.MatchLogCommandService;
-import gg.bayes.challenge.common.constants.Constants;
-import gg.bayes.challenge.common.file.FileUtils;
+import gg.bayes.challenge.business.service.match.MatchPosition;
+import gg.bayes.challenge.common.exception.MatchNotFoundException;
+import gg.bayes.challenge.config.properties.IngestProperties;
 import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.model.HeroDamageStatEntity;
+import gg.bayes.challenge.persistence.model.HeroKillStatEntity;
+import gg.bayes.challenge.persistence.model.HeroSpellStatEntity;
 import gg.bayes.challenge.persistence.model.MatchEntity;
+import gg.bayes.challenge.persistence.repository.CombatLogEntryBatchRepository;
+import gg.bayes.challenge.persistence.repository.HeroDamageStatRepository;
+import gg.bayes.challenge.persistence.repository.HeroKillStatRepository;
+import gg.bayes.challenge.persistence.repository.HeroSpellStatRepository;
 import gg.bayes.challenge.persistence.repository.MatchRepository;
-import io.swagger.models.auth.In;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.time.DateUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
-
-import java.math.BigDecimal;
-import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "dota.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
 public class MatchLogCommandServiceImpl implements MatchLogCommandService {
 
+    private static final String NO_DATA_MESSAGE = "There is no data to process for the related file.";
+
     private final MatchRepository matchRepository;
+    private final CombatLogEntryBatchRepository combatLogEntryBatchRepository;
+    private final HeroKillStatRepository heroKillStatRepository;
+    private final HeroSpellStatRepository heroSpellStatRepository;
+    private final HeroDamageStatRepository heroDamageStatRepository;
+    private final ParallelCombatLogParser parallelCombatLogParser;
+    private final NameDictionary nameDictionary;
+    private final IngestProperties ingestProperties;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestMetrics ingestMetrics;
 
     @Override
-    @Transactional
     public Long importData(String combatLog) {
-        combatLog = FileUtils.handleSpecialCharacters(combatLog);
-        List<String> splitLog = pruneLog(combatLog);
-        if (splitLog.isEmpty()) {
-            throw new RuntimeException("There is no data to process for the related file.");
-        }
-        return processPureData(splitLog);
-    }
-
-    private List<String> pruneLog(String combatLog) {
-        List<String> splitLog = Arrays.asList(combatLog.split("~"));
-        splitLog = splitLog.parallelStream()
-                .filter(item -> StringUtils.hasLength(item)
-                        && (item.contains(Constants.CAST_KEYWORD) || item.contains(Constants.KILL_KEYWORD)
-                        || item.contains(Constants.BUY_KEYWORD) || item.contains(Constants.HIT_KEYWORD)))
-                .collect(Collectors.toList());
-
-        splitLog = splitLog.parallelStream().map(item -> {
-            if (item.contains(Constants.HERO_KEYWORD) || item.contains(Constants.ITEM_KEYWORD)) {
-                item = item.replace(Constants.HERO_KEYWORD, "");
-                item = item.replace(Constants.ITEM_KEYWORD, "");
+        return ingestMetrics.record(IngestMetrics.Operation.IMPORT, () -> ingestProperties.isDeduplicate()
+                ? importHashed(HashedCombatLog.of(combatLog))
+                : importNew(new StringReader(combatLog), null));
+    }
+
+    @Override
+    public Long importData(Reader combatLog) {
+        return ingestMetrics.record(IngestMetrics.Operation.IMPORT, () -> {
+            if (!ingestProperties.isDeduplicate()) {
+                return importNew(combatLog, null);
+            }
+            try (var hashedLog = HashedCombatLog.spool(combatLog)) {
+                return importHashed(hashedLog);
+            }
+        });
+    }
+
+    @Override
+    public Long importData(Reader combatLog, String contentHash) {
+        return ingestMetrics.record(IngestMetrics.Operation.IMPORT, () -> ingestProperties.isDeduplicate()
+                ? importHashed(contentHash, () -> combatLog)
+                : importNew(combatLog, null));
+    }
+
+    private Long importHashed(HashedCombatLog combatLog) {
+        return importHashed(combatLog.getContentHash(), combatLog::open);
+    }
+
+    /**
+     * The log is hashed before it is parsed, so a repeated upload is answered with the stored match without parsing
+     * a line or writing a row.
+     */
+    private Long importHashed(String contentHash, Supplier<Reader> combatLog) {
+        Optional<Long> duplicate = matchRepository.findIdByContentHash(contentHash);
+        if (duplicate.isPresent()) {
+            ingestMetrics.countDuplicate();
+            return duplicate.get();
+        }
+        return importNew(combatLog.get(), contentHash);
+    }
+
+    private Long importNew(Reader combatLog, String contentHash) {
+        try {
+            return transactionTemplate.execute(status -> importLog(combatLog, contentHash));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent upload of the same log inserted its match first.
+            if (contentHash == null) {
+                throw e;
+            }
+            ingestMetrics.countDuplicate();
+            return matchRepository.findIdByContentHash(contentHash).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * The match row is inserted with its content hash first, so a concurrent upload of the same log fails on the
+     * unique key before it parses anything.
+     */
+    private Long importLog(Reader combatLog, String contentHash) {
+        var matchEntity = matchRepository.saveAndFlush(MatchEntity.builder().contentHash(contentHash).build());
+        int chunkSize = ingestProperties.getChunkSize();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        var stats = new MatchStatsAccumulator();
+        Map<Integer, String> usedNames = new HashMap<>();
+        var cursor = AppendCursor.empty();
+        Predicate<CombatLogEntryEntity> keep = entry -> {
+            cursor.record(entry.getTimestamp());
+            return true;
+        };
+        long entryCount = 0;
+
+        try (var reader = new BufferedReader(combatLog)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    entryCount += flush(matchEntity, chunk, keep, stats, usedNames);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("The combat log could not be read.", e);
+        }
+        entryCount += flush(matchEntity, chunk, keep, stats, usedNames);
+
+        if (entryCount == 0) {
+            throw new RuntimeException(NO_DATA_MESSAGE);
+        }
+        ingestMetrics.time(IngestMetrics.Stage.SUMMARY, () -> {
+            nameDictionary.persist(usedNames);
+            saveStats(List.of(stats), List.of(matchEntity));
+            advance(matchEntity, cursor, stats);
+        });
+        applicationEventPublisher.publishEvent(
+                new MatchIngestedEvent(matchEntity.getId(), stats, false, positionOf(matchEntity)));
+        return matchEntity.getId();
+    }
+
+    @Override
+    public List<Long> importAll(Iterator<String> combatLogs) {
+        return ingestMetrics.record(IngestMetrics.Operation.BATCH, () -> importLogs(combatLogs));
+    }
+
+    private List<Long> importLogs(Iterator<String> combatLogs) {
+        int batchSize = ingestProperties.getBatchSize();
+        List<List<String>> batch = new ArrayList<>(batchSize);
+        List<Long> matchIds = new ArrayList<>();
+        while (combatLogs.hasNext()) {
+            batch.add(combatLogs.next().lines().collect(Collectors.toList()));
+            if (batch.size() == batchSize) {
+                matchIds.addAll(importBatch(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            matchIds.addAll(importBatch(batch));
+        }
+        return matchIds;
+    }
+
+    private List<Long> importBatch(List<List<String>> logs) {
+        List<String> contentHashes = ingestProperties.isDeduplicate()
+                ? logs.stream().map(ContentHash::of).collect(Collectors.toList())
+                : Collections.nCopies(logs.size(), null);
+        try {
+            return importBatch(logs, contentHashes);
+        } catch (DataIntegrityViolationException e) {
+            if (!ingestProperties.isDeduplicate()) {
+                throw e;
             }
-            return item;
-        }).collect(Collectors.toList());
+            // A concurrent upload committed one of the logs first; this time it is found as a duplicate.
+            return importBatch(logs, contentHashes);
+        }
+    }
 
-        return splitLog;
+    /**
+     * Skips the logs that were imported before, or that repeat an earlier log of the batch, without parsing them.
+     * Parses the others concurrently, then writes all their matches in one transaction: the match rows in one
+     * flush, the entries as one JDBC batch per match and the dictionary names and summary rows of the whole batch
+     * together.
+     */
+    private List<Long> importBatch(List<List<String>> logs, List<String> contentHashes) {
+        Long[] matchIds = new Long[logs.size()];
+        Map<String, Integer> firstByHash = new HashMap<>();
+        List<Integer> newLogs = new ArrayList<>(logs.size());
+        for (int i = 0; i < logs.size(); i++) {
+            String contentHash = contentHashes.get(i);
+            if (contentHash != null) {
+                if (firstByHash.putIfAbsent(contentHash, i) != null) {
+                    continue;
+                }
+                Optional<Long> duplicate = matchRepository.findIdByContentHash(contentHash);
+                if (duplicate.isPresent()) {
+                    matchIds[i] = duplicate.get();
+                    ingestMetrics.countDuplicate();
+                    continue;
+                }
+            }
+            newLogs.add(i);
+        }
+        if (!newLogs.isEmpty()) {
+            var newMatchIds = importNewLogs(newLogs.stream().map(logs::get).collect(Collectors.toList()),
+                    newLogs.stream().map(contentHashes::get).collect(Collectors.toList()));
+            for (int i = 0; i < newLogs.size(); i++) {
+                matchIds[newLogs.get(i)] = newMatchIds.get(i);
+            }
+        }
+        for (int i = 0; i < logs.size(); i++) {
+            if (matchIds[i] == null) {
+                matchIds[i] = matchIds[firstByHash.get(contentHashes.get(i))];
+                ingestMetrics.countDuplicate();
+            }
+        }
+        return Arrays.asList(matchIds);
     }
 
-    private Long processPureData(List<String> splitLog) {
-        var matchEntity = prepareMatchLogEntity(splitLog);
-        return matchRepository.save(matchEntity).getId();
+    private List<Long> importNewLogs(List<List<String>> logs, List<String> contentHashes) {
+        List<List<CombatLogEntryEntity>> parsedLogs = new ArrayList<>(logs.size());
+        for (var parsed : ingestMetrics.time(IngestMetrics.Stage.PARSE,
+                () -> parallelCombatLogParser.parseAll(logs))) {
+            ingestMetrics.countParsed(parsed);
+            parsedLogs.add(parsed.getEntries());
+        }
+        if (parsedLogs.stream().anyMatch(List::isEmpty)) {
+            throw new RuntimeException(NO_DATA_MESSAGE);
+        }
+        return transactionTemplate.execute(status -> {
+            var matchEntities = matchRepository.saveAllAndFlush(contentHashes.stream()
+                    .map(contentHash -> MatchEntity.builder().contentHash(contentHash).build())
+                    .collect(Collectors.toList()));
+            Map<Integer, String> usedNames = new HashMap<>();
+            List<MatchStatsAccumulator> stats = new ArrayList<>(parsedLogs.size());
+            for (int i = 0; i < parsedLogs.size(); i++) {
+                var matchEntity = matchEntities.get(i);
+                var matchStats = new MatchStatsAccumulator();
+                var cursor = AppendCursor.empty();
+                var entries = parsedLogs.get(i);
+                ingestMetrics.time(IngestMetrics.Stage.ENCODE, () -> {
+                    entries.forEach(combatLogEntryEntity -> {
+                        combatLogEntryEntity.setMatch(matchEntity);
+                        nameDictionary.encode(combatLogEntryEntity, usedNames);
+                        cursor.record(combatLogEntryEntity.getTimestamp());
+                    });
+                    matchStats.addAll(entries);
+                });
+                write(matchEntity, entries);
+                advance(matchEntity, cursor, matchStats);
+                stats.add(matchStats);
+            }
+            ingestMetrics.time(IngestMetrics.Stage.SUMMARY, () -> {
+                nameDictionary.persist(usedNames);
+                saveStats(stats, matchEntities);
+            });
+            for (int i = 0; i < matchEntities.size(); i++) {
+                applicationEventPublisher.publishEvent(new MatchIngestedEvent(matchEntities.get(i).getId(),
+                        stats.get(i), false, positionOf(matchEntities.get(i))));
+            }
+            return matchEntities.stream().map(MatchEntity::getId).collect(Collectors.toList());
+        });
     }
 
-    private MatchEntity prepareMatchLogEntity(List<String> splitLog) {
+    @Override
+    @Transactional
+    public int appendData(Long matchId, Reader combatLog) {
+        return ingestMetrics.record(IngestMetrics.Operation.APPEND, () -> appendLog(matchId, combatLog));
+    }
 
-        var matchedEntity = new MatchEntity();
-        Set<CombatLogEntryEntity> combatLogEntryEntitySet = new HashSet<>();
-        splitLog.parallelStream().forEach(item -> {
-            var combatLogEntryEntity = new CombatLogEntryEntity();
-            if (item.contains(Constants.KILL_KEYWORD)) {
-                setKillSection(item, combatLogEntryEntity, matchedEntity, combatLogEntryEntitySet);
-            } else if (item.contains(Constants.BUY_KEYWORD)) {
-                setBuySection(item, combatLogEntryEntity, matchedEntity, combatLogEntryEntitySet);
-            } else if (item.contains(Constants.CAST_KEYWORD)) {
-                setCastSection(item, combatLogEntryEntity, matchedEntity, combatLogEntryEntitySet);
-            } else if (item.contains(Constants.HIT_KEYWORD)) {
-                setHitSection(item, combatLogEntryEntity, matchedEntity, combatLogEntryEntitySet);
+    private int appendLog(Long matchId, Reader combatLog) {
+        var matchEntity = matchRepository.findByIdForUpdate(matchId)
+                .orElseThrow(() -> new MatchNotFoundException(matchId));
+        int chunkSize = ingestProperties.getChunkSize();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        var stats = new MatchStatsAccumulator();
+        Map<Integer, String> usedNames = new HashMap<>();
+        var cursor = matchEntity.getLastEventTimestamp() == null
+                ? AppendCursor.empty()
+                : new AppendCursor(matchEntity.getLastEventTimestamp(), matchEntity.getEventsAtLastTimestamp());
+        Predicate<CombatLogEntryEntity> keep = entry -> cursor.advance(entry.getTimestamp());
+        int entryCount = 0;
+
+        try (var reader = new BufferedReader(combatLog)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    entryCount += flush(matchEntity, chunk, keep, stats, usedNames);
+                }
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException("The combat log could not be read.", e);
+        }
+        entryCount += flush(matchEntity, chunk, keep, stats, usedNames);
 
+        if (entryCount == 0) {
+            return 0;
+        }
+        ingestMetrics.time(IngestMetrics.Stage.SUMMARY, () -> {
+            nameDictionary.persist(usedNames);
+            mergeStats(stats, matchEntity);
+            stats.removeHeroes(matchEntity.getHeroes());
+            advance(matchEntity, cursor, stats);
         });
-        matchedEntity.setCombatLogEntries(combatLogEntryEntitySet);
-        return matchedEntity;
+        applicationEventPublisher.publishEvent(new MatchIngestedEvent(matchId, stats, true, cursor.position()));
+        return entryCount;
     }
 
-    private void setKillSection(String item, CombatLogEntryEntity combatLogEntryEntity, MatchEntity matchedEntity,
-                                Set<CombatLogEntryEntity> combatLogEntryEntitySet) {
-        if (!item.contains(Constants.NON_HERO_KEYWORD)) {
-            final String regex = "\\w+?(?= is killed by)";
-            final String regex2 = "(?<= is killed by )\\w+";
+    /**
+     * Holds the row lock appends take on the match while the read runs, so an append is either committed before the
+     * read or waits for it.
+     */
+    @Override
+    @Transactional
+    public <T> T readAtPosition(Long matchId, Function<MatchPosition, T> read) {
+        return read.apply(matchRepository.findByIdForUpdate(matchId)
+                .map(MatchLogCommandServiceImpl::positionOf)
+                .orElse(null));
+    }
+
+    private static MatchPosition positionOf(MatchEntity matchEntity) {
+        return matchEntity.getLastEventTimestamp() == null ? null
+                : new MatchPosition(matchEntity.getLastEventTimestamp(), matchEntity.getEventsAtLastTimestamp());
+    }
+
+    /**
+     * Moves the append position of the match past the stored events and adds the heroes that took part in them.
+     */
+    private static void advance(MatchEntity matchEntity, AppendCursor cursor, MatchStatsAccumulator stats) {
+        matchEntity.setLastEventTimestamp(cursor.getLastTimestamp());
+        matchEntity.setEventsAtLastTimestamp(cursor.getEventsAtLastTimestamp());
+        matchEntity.getHeroes().addAll(stats.getHeroes());
+    }
+
+    /**
+     * Adds the totals of appended events to the summary rows of the match: existing rows are updated in place, rows
+     * for new heroes, abilities or targets are inserted.
+     */
+    private void mergeStats(MatchStatsAccumulator stats, MatchEntity matchEntity) {
+        heroKillStatRepository.saveAll(merge(heroKillStatRepository.findAllByMatchId(matchEntity.getId()),
+                stats.killStats(matchEntity), HeroKillStatEntity::getHero,
+                (stored, added) -> stored.setKills(stored.getKills() + added.getKills())));
+        heroSpellStatRepository.saveAll(merge(heroSpellStatRepository.findAllByMatchId(matchEntity.getId()),
+                stats.spellStats(matchEntity), stat -> List.of(stat.getHero(), stat.getAbility()),
+                (stored, added) -> stored.setCasts(stored.getCasts() + added.getCasts())));
+        heroDamageStatRepository.saveAll(merge(heroDamageStatRepository.findAllByMatchId(matchEntity.getId()),
+                stats.damageStats(matchEntity), stat -> List.of(stat.getHero(), stat.getTarget()),
+                (stored, added) -> {
+                    stored.setDamageInstances(stored.getDamageInstances() + added.getDamageInstances());
+                    stored.setTotalDamage(stored.getTotalDamage() + added.getTotalDamage());
+                }));
+    }
 
-            final Pattern pattern = Pattern.compile(regex, Pattern.MULTILINE);
-            final Matcher matcher = pattern.matcher(item);
-
-            final Pattern pattern2 = Pattern.compile(regex2, Pattern.MULTILINE);
-            final Matcher matcher2 = pattern2.matcher(item);
-
-            combatLogEntryEntity.setActor(matcher2.find() ? matcher2.group(0) : null);
-            combatLogEntryEntity.setTarget(matcher.find() ? matcher.group(0) : null);
-            combatLogEntryEntity.setType(CombatLogEntryEntity.Type.HERO_KILLED);
-            combatLogEntryEntity.setTimestamp(findTimeStamp(item));
-            combatLogEntryEntity.setMatch(matchedEntity);
-            combatLogEntryEntitySet.add(combatLogEntryEntity);
-        }
-    }
-
-    private void setBuySection(String item, CombatLogEntryEntity combatLogEntryEntity, MatchEntity matchedEntity,
-                               Set<CombatLogEntryEntity> combatLogEntryEntitySet) {
-        final String regexForBuyKeyword = "\\w+?(?= buys)";
-        final String regexForItemKeyword = "(?<= item )\\w+";
-
-        final Pattern patternOfBuy = Pattern.compile(regexForBuyKeyword, Pattern.MULTILINE);
-        final Matcher matcherOfBuy = patternOfBuy.matcher(item);
-
-        final Pattern patternOfItem = Pattern.compile(regexForItemKeyword, Pattern.MULTILINE);
-        final Matcher matcherOfItem = patternOfItem.matcher(item);
-
-        combatLogEntryEntity.setActor(matcherOfBuy.find() ? matcherOfBuy.group(0) : null);
-        combatLogEntryEntity.setItem(matcherOfItem.find() ? matcherOfItem.group(0) : null);
-        combatLogEntryEntity.setType(CombatLogEntryEntity.Type.ITEM_PURCHASED);
-        combatLogEntryEntity.setTimestamp(findTimeStamp(item));
-        combatLogEntryEntity.setMatch(matchedEntity);
-        combatLogEntryEntitySet.add(combatLogEntryEntity);
-    }
-
-    private void setCastSection(String item, CombatLogEntryEntity combatLogEntryEntity, MatchEntity matchedEntity,
-                                Set<CombatLogEntryEntity> combatLogEntryEntitySet) {
-        final String regexForCast = "\\w+?(?= casts ability)";
-        final String regexForLevel = "(?<= lvl )[1-9]";
-        final String regexForAbility = "(?<= ability )\\w+";
-
-        final Pattern patternOfCast = Pattern.compile(regexForCast, Pattern.MULTILINE);
-        final Matcher matcherOfCast = patternOfCast.matcher(item);
-
-        final Pattern patternOfLevel = Pattern.compile(regexForLevel, Pattern.MULTILINE);
-        final Matcher matcherOfLevel = patternOfLevel.matcher(item);
-
-        final Pattern patternOfAbility = Pattern.compile(regexForAbility, Pattern.MULTILINE);
-        final Matcher matcherOfAbility = patternOfAbility.matcher(item);
-
-        combatLogEntryEntity.setActor(matcherOfCast.find() ? matcherOfCast.group(0) : null);
-        combatLogEntryEntity.setAbilityLevel(matcherOfLevel.find() ? Integer.parseInt(matcherOfLevel.group(0)) : null);
-        combatLogEntryEntity.setAbility(matcherOfAbility.find() ? matcherOfAbility.group(0) : null);
-        combatLogEntryEntity.setType(CombatLogEntryEntity.Type.SPELL_CAST);
-        combatLogEntryEntity.setTimestamp(findTimeStamp(item));
-        combatLogEntryEntity.setMatch(matchedEntity);
-        combatLogEntryEntitySet.add(combatLogEntryEntity);
-    }
-
-    private void setHitSection(String item, CombatLogEntryEntity combatLogEntryEntity, MatchEntity matchedEntity,
-                               Set<CombatLogEntryEntity> combatLogEntryEntitySet) {
-        final String regexForHitKeyword = "\\w+?(?= hits)";
-        final String regexForAfterHitKeyword = "(?<= hits )\\w+";
-        final String regexForWithKeyword = "(?<= with )\\w+";
-        final String regexForAfterKeyword = "(?<= for )[1-9]+";
-
-        final Pattern patternOfHit = Pattern.compile(regexForHitKeyword, Pattern.MULTILINE);
-        final Matcher matcherOfHit = patternOfHit.matcher(item);
-
-        final Pattern patternOfAfterHit = Pattern.compile(regexForAfterHitKeyword, Pattern.MULTILINE);
-        final Matcher matcherOfAfterHit = patternOfAfterHit.matcher(item);
-
-        final Pattern patternOfWith = Pattern.compile(regexForWithKeyword, Pattern.MULTILINE);
-        final Matcher matcherOfWith = patternOfWith.matcher(item);
-
-        final Pattern patternOfAfterWith = Pattern.compile(regexForAfterKeyword, Pattern.MULTILINE);
-        final Matcher matcherOfAfterWith = patternOfAfterWith.matcher(item);
-
-        combatLogEntryEntity.setActor(matcherOfHit.find() ? matcherOfHit.group(0) : null);
-        combatLogEntryEntity.setTarget(matcherOfAfterHit.find() ? matcherOfAfterHit.group(0) : null);
-        combatLogEntryEntity.setAbility(matcherOfWith.find() ? matcherOfWith.group(0) : null);
-        combatLogEntryEntity.setDamage(matcherOfAfterWith.find() ? Integer.parseInt(matcherOfAfterWith.group(0)) : null);
-        combatLogEntryEntity.setType(CombatLogEntryEntity.Type.DAMAGE_DONE);
-        combatLogEntryEntity.setTimestamp(findTimeStamp(item));
-        combatLogEntryEntity.setMatch(matchedEntity);
-        combatLogEntryEntitySet.add(combatLogEntryEntity);
-    }
-
-    private Long findTimeStamp(String item) {
-        final String regexForTimeValue = "\\d[0-9]+";
-        final Pattern patternOfTime = Pattern.compile(regexForTimeValue, Pattern.MULTILINE);
-        final Matcher matcherOfTime = patternOfTime.matcher(item);
-        int index = 0;
-        long result = 0;
-
-        while (matcherOfTime.find()) {
-            if (index == 0) {
-                result += Long.parseLong(matcherOfTime.group(0)) * Constants.HOUR_EQ_SECONDS * Constants.MILLISECOND_MULTIPLIER;
-            } else if (index == 1) {
-                result += Long.parseLong(matcherOfTime.group(0)) * Constants.MINUTE_EQ_SECONDS * Constants.MILLISECOND_MULTIPLIER;
-            } else if (index == 2) {
-                result += Long.parseLong(matcherOfTime.group(0)) * Constants.MILLISECOND_MULTIPLIER;
-            } else if (index == 3) {
-                result += Long.parseLong(matcherOfTime.group(0));
-                break;
+    /**
+     * @return the added rows that have no stored counterpart; the others are folded into the stored rows
+     */
+    private static <T> List<T> merge(List<T> stored, List<T> added, Function<T, ?> key, BiConsumer<T, T> addTo) {
+        Map<Object, T> storedByKey = stored.stream().collect(Collectors.toMap(key, Function.identity()));
+        List<T> inserts = new ArrayList<>();
+        for (T row : added) {
+            T storedRow = storedByKey.get(key.apply(row));
+            if (storedRow == null) {
+                inserts.add(row);
+            } else {
+                addTo.accept(storedRow, row);
             }
-            index += 1;
         }
+        return inserts;
+    }
+
+    private void saveStats(List<MatchStatsAccumulator> stats, List<MatchEntity> matchEntities) {
+        List<HeroKillStatEntity> killStats = new ArrayList<>();
+        List<HeroSpellStatEntity> spellStats = new ArrayList<>();
+        List<HeroDamageStatEntity> damageStats = new ArrayList<>();
+        for (int i = 0; i < stats.size(); i++) {
+            killStats.addAll(stats.get(i).killStats(matchEntities.get(i)));
+            spellStats.addAll(stats.get(i).spellStats(matchEntities.get(i)));
+            damageStats.addAll(stats.get(i).damageStats(matchEntities.get(i)));
+        }
+        heroKillStatRepository.saveAll(killStats);
+        heroSpellStatRepository.saveAll(spellStats);
+        heroDamageStatRepository.saveAll(damageStats);
+    }
+
+    /**
+     * Parses the chunk of lines in parallel, keeps the entries the filter accepts, folds them into the match totals,
+     * encodes their names and writes them as one JDBC batch, then drops the chunk, so no more than one chunk of lines
+     * and entries is held at a time.
+     */
+    private int flush(MatchEntity matchEntity, List<String> chunk, Predicate<CombatLogEntryEntity> keep,
+                      MatchStatsAccumulator stats, Map<Integer, String> usedNames) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        var parsed = ingestMetrics.time(IngestMetrics.Stage.PARSE, () -> parallelCombatLogParser.parse(chunk));
+        ingestMetrics.countParsed(parsed);
+        List<CombatLogEntryEntity> entries = parsed.getEntries();
+        entries.removeIf(keep.negate());
+        chunk.clear();
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        ingestMetrics.time(IngestMetrics.Stage.ENCODE, () -> {
+            entries.forEach(combatLogEntryEntity -> {
+                combatLogEntryEntity.setMatch(matchEntity);
+                nameDictionary.encode(combatLogEntryEntity, usedNames);
+            });
+            stats.addAll(entries);
+        });
+        return write(matchEntity, entries);
+    }
 
-        return result;
+    private int write(MatchEntity matchEntity, List<CombatLogEntryEntity> entries) {
+        int rows = ingestMetrics.time(IngestMetrics.Stage.WRITE,
+                () -> combatLogEntryBatchRepository.insertAll(matchEntity.getId(), entries));
+        ingestMetrics.countWritten(rows);
+        return rows;
     }
 
 }
@@ -1,50 +1,69 @@
 package gg.bayes.challenge.business.service.match.impl;
 
+import gg.bayes.challenge.business.dictionary.NameDictionary;
 import gg.bayes.challenge.business.service.match.MatchLogQueryService;
+import gg.bayes.challenge.business.service.match.TimeWindow;
 import gg.bayes.challenge.common.constants.Constants;
 import gg.bayes.challenge.config.rest.model.HeroDamage;
+import gg.bayes.challenge.config.rest.model.HeroDamageBucket;
 import gg.bayes.challenge.config.rest.model.HeroItem;
 import gg.bayes.challenge.config.rest.model.HeroKills;
 import gg.bayes.challenge.config.rest.model.HeroSpells;
-import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
 import gg.bayes.challenge.persistence.repository.CombatLogEntryRepository;
+import gg.bayes.challenge.persistence.repository.HeroDamageStatRepository;
+import gg.bayes.challenge.persistence.repository.HeroKillStatRepository;
+import gg.bayes.challenge.persistence.repository.HeroSpellStatRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.AbstractMap;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.toMap;
-
 @Service
 @RequiredArgsConstructor
+@Qualifier(MatchLogQueryService.BACKEND)
+@ConditionalOnProperty(prefix = "dota.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+@Transactional(readOnly = true)
 public class MatchLogQueryServiceImpl implements MatchLogQueryService {
 
 	private final CombatLogEntryRepository combatLogEntryRepository;
+	private final HeroKillStatRepository heroKillStatRepository;
+	private final HeroSpellStatRepository heroSpellStatRepository;
+	private final HeroDamageStatRepository heroDamageStatRepository;
+	private final NameDictionary nameDictionary;
+
+	/*
+	 * The summary tables are filled at ingest time. Each method falls back to a GROUP BY over the raw entries
+	 * when they hold nothing for the request, which covers matches stored before the tables existed; for a hero
+	 * with no events that query is an empty index range as well.
+	 */
 
 	@Override
 	public List<HeroKills> getHeroKillsByMatch(Long matchId) {
-		var combatLog = combatLogEntryRepository.findAllByMatchIdAndType(matchId,
-				CombatLogEntryEntity.Type.HERO_KILLED);
-		Map<String, Long> heroKillsMap = combatLog.stream()
-				.collect(Collectors.groupingBy(CombatLogEntryEntity::getActor, Collectors.counting()));
-		var response = new LinkedList<HeroKills>();
-		heroKillsMap.forEach((k, v) -> response.add(new HeroKills(k, v.intValue())));
-		return response;
+		var stats = heroKillStatRepository.findAllByMatchId(matchId);
+		if (stats.isEmpty()) {
+			return combatLogEntryRepository.countHeroKills(matchId);
+		}
+		return stats.stream()
+				.map(stat -> new HeroKills(stat.getHero(), stat.getKills()))
+				.collect(Collectors.toList());
 	}
 
 	@Override
 	public List<HeroSpells> getHeroSpellsByMatchAndHero(Long matchId, String heroName) {
 		heroName = pruneHeroName(heroName);
-		var combatLog = getCombatLogsByCriteria(matchId, heroName, CombatLogEntryEntity.Type.SPELL_CAST);
-		Map<String, Long> heroSpellsMap = combatLog.stream()
-				.collect(Collectors.groupingBy(CombatLogEntryEntity::getAbility, Collectors.counting()));
-		var response = new LinkedList<HeroSpells>();
-		heroSpellsMap.forEach((k, v) -> response.add(new HeroSpells(k, v.intValue())));
-		return response;
+		var stats = heroSpellStatRepository.findAllByMatchIdAndHero(matchId, heroName);
+		if (stats.isEmpty()) {
+			return withActorId(heroName, actorId -> combatLogEntryRepository.countHeroSpells(matchId, actorId));
+		}
+		return stats.stream()
+				.map(stat -> new HeroSpells(stat.getAbility(), stat.getCasts()))
+				.collect(Collectors.toList());
 	}
 
 	private String pruneHeroName(String heroName) {
@@ -57,27 +76,73 @@ public class MatchLogQueryServiceImpl implements MatchLogQueryService {
 	@Override
 	public List<HeroDamage> getHeroDamageByMatch(Long matchId, String heroName) {
 		heroName = pruneHeroName(heroName);
-		var combatLog = getCombatLogsByCriteria(matchId, heroName, CombatLogEntryEntity.Type.DAMAGE_DONE);
-		Map<String, AbstractMap.SimpleEntry<Integer, Long>> map = combatLog.stream().collect(toMap(
-				CombatLogEntryEntity::getTarget, b -> new AbstractMap.SimpleEntry<>(b.getDamage(), 1L),
-				(v1, v2) -> new AbstractMap.SimpleEntry<>(v1.getKey() + v2.getKey(), v1.getValue() + v2.getValue())));
-		var response = new LinkedList<HeroDamage>();
-		map.forEach((k, v) -> {
-			response.add(new HeroDamage(k, v.getValue().intValue(), v.getKey()));
-		});
-		return response;
+		var stats = heroDamageStatRepository.findAllByMatchIdAndHero(matchId, heroName);
+		if (stats.isEmpty()) {
+			return withActorId(heroName, actorId -> combatLogEntryRepository.sumHeroDamage(matchId, actorId));
+		}
+		return stats.stream()
+				.map(stat -> new HeroDamage(stat.getTarget(), stat.getDamageInstances(),
+						Math.toIntExact(stat.getTotalDamage())))
+				.collect(Collectors.toList());
 	}
 
 	@Override
 	public List<HeroItem> getHeroItemsByMatch(Long matchId, String heroName) {
 		heroName = pruneHeroName(heroName);
-		var combatLog = getCombatLogsByCriteria(matchId, heroName, CombatLogEntryEntity.Type.ITEM_PURCHASED);
-		return combatLog.stream().map(item -> new HeroItem(item.getItem(), item.getTimestamp()))
-				.collect(Collectors.toList());
+		return withActorId(heroName, actorId -> combatLogEntryRepository.findHeroItems(matchId, actorId));
+	}
+
+	@Override
+	public List<String> getHeroesByMatch(Long matchId) {
+		return heroSpellStatRepository.findHeroesByMatchId(matchId);
+	}
+
+	/*
+	 * The summary tables hold whole-match totals only, so a bounded window is always answered from the raw entries.
+	 */
+
+	@Override
+	public List<HeroKills> getHeroKillsByMatch(Long matchId, TimeWindow window) {
+		if (window.isAll()) {
+			return getHeroKillsByMatch(matchId);
+		}
+		return combatLogEntryRepository.countHeroKills(matchId, window.getFrom(), window.getTo());
+	}
+
+	@Override
+	public List<HeroSpells> getHeroSpellsByMatchAndHero(Long matchId, String heroName, TimeWindow window) {
+		if (window.isAll()) {
+			return getHeroSpellsByMatchAndHero(matchId, heroName);
+		}
+		return withActorId(pruneHeroName(heroName), actorId -> combatLogEntryRepository.countHeroSpells(matchId,
+				actorId, window.getFrom(), window.getTo()));
+	}
+
+	@Override
+	public List<HeroDamage> getHeroDamageByMatch(Long matchId, String heroName, TimeWindow window) {
+		if (window.isAll()) {
+			return getHeroDamageByMatch(matchId, heroName);
+		}
+		return withActorId(pruneHeroName(heroName), actorId -> combatLogEntryRepository.sumHeroDamage(matchId,
+				actorId, window.getFrom(), window.getTo()));
+	}
+
+	@Override
+	public List<HeroItem> getHeroItemsByMatch(Long matchId, String heroName, TimeWindow window) {
+		return withActorId(pruneHeroName(heroName), actorId -> combatLogEntryRepository.findHeroItems(matchId,
+				actorId, window.getFrom(), window.getTo()));
+	}
+
+	@Override
+	public List<HeroDamageBucket> getHeroDamageTimeline(Long matchId, TimeWindow window) {
+		return combatLogEntryRepository.sumHeroDamagePerMinute(matchId, window.getFrom(), window.getTo());
 	}
 
-	private List<CombatLogEntryEntity> getCombatLogsByCriteria(Long matchId, String heroName,
-			CombatLogEntryEntity.Type type) {
-		return combatLogEntryRepository.findAllByMatchIdAndActorAndType(matchId, heroName, type);
+	/**
+	 * Runs the query with the dictionary id of the hero; a name that was never stored has no entries at all.
+	 */
+	private <T> List<T> withActorId(String heroName, Function<Integer, List<T>> query) {
+		Integer actorId = nameDictionary.find(heroName);
+		return actorId == null ? Collections.emptyList() : query.apply(actorId);
 	}
 }
@@ -0,0 +1,38 @@
+package gg.bayes.challenge.business.service.stats;
+
+import gg.bayes.challenge.config.rest.model.AbilityDamage;
+import gg.bayes.challenge.config.rest.model.HeroKillRate;
+import gg.bayes.challenge.config.rest.model.ItemPurchases;
+
+import java.util.List;
+
+/**
+ * Leaderboard questions over every ingested match. The combat logs carry no match result, so there are no win
+ * rates; kills per match played is the closest per-hero rate.
+ */
+public interface CrossMatchQueryService {
+
+	/**
+	 * Qualifies the implementation that answers from this node's matches only, which the sharded deployment
+	 * gathers from every node.
+	 */
+	String LOCAL = "localCrossMatchQueryService";
+
+	long getMatchCount();
+
+	/**
+	 * @return matches played, kills and deaths of every hero, by kills per match, descending
+	 */
+	List<HeroKillRate> getHeroKillRates();
+
+	/**
+	 * @return the items the hero bought most often, most purchased first
+	 */
+	List<ItemPurchases> getMostPurchasedItems(String heroName, int limit);
+
+	/**
+	 * @return the damage done with every ability, by average damage per hit, descending
+	 */
+	List<AbilityDamage> getAbilityDamage();
+
+}
@@ -0,0 +1,44 @@
+package gg.bayes.challenge.business.service.stats.impl;
+
+import gg.bayes.challenge.business.aggregate.CrossMatchAggregates;
+import gg.bayes.challenge.business.service.stats.CrossMatchQueryService;
+import gg.bayes.challenge.config.rest.model.AbilityDamage;
+import gg.bayes.challenge.config.rest.model.HeroKillRate;
+import gg.bayes.challenge.config.rest.model.ItemPurchases;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Answers from the totals {@link CrossMatchAggregates} maintains at ingest time, for either storage engine.
+ */
+@Service
+@Qualifier(CrossMatchQueryService.LOCAL)
+@RequiredArgsConstructor
+public class CrossMatchQueryServiceImpl implements CrossMatchQueryService {
+
+	private final CrossMatchAggregates crossMatchAggregates;
+
+	@Override
+	public long getMatchCount() {
+		return crossMatchAggregates.getMatchCount();
+	}
+
+	@Override
+	public List<HeroKillRate> getHeroKillRates() {
+		return crossMatchAggregates.getHeroKillRates();
+	}
+
+	@Override
+	public List<ItemPurchases> getMostPurchasedItems(String heroName, int limit) {
+		return crossMatchAggregates.getMostPurchasedItems(heroName, limit);
+	}
+
+	@Override
+	public List<AbilityDamage> getAbilityDamage() {
+		return crossMatchAggregates.getAbilityDamage();
+	}
+
+}
@@ -0,0 +1,168 @@
+package gg.bayes.challenge.business.service.stats.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import gg.bayes.challenge.business.service.stats.CrossMatchQueryService;
+import gg.bayes.challenge.business.shard.ShardClient;
+import gg.bayes.challenge.common.exception.ShardUnavailableException;
+import gg.bayes.challenge.config.rest.model.AbilityDamage;
+import gg.bayes.challenge.config.rest.model.HeroKillRate;
+import gg.bayes.challenge.config.rest.model.ItemPurchases;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Answers the leaderboards of a sharded deployment: asks every other node for the totals over its own matches,
+ * in parallel with this node's, and merges them. Counts are summed and the rates recomputed from the sums, so the
+ * answer equals that of a single node holding every match. Nodes asked by another node answer from their own
+ * matches only.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(prefix = "dota.sharding", name = "enabled", havingValue = "true")
+public class ShardedCrossMatchQueryService implements CrossMatchQueryService {
+
+	private final CrossMatchQueryService local;
+	private final ShardClient shardClient;
+
+	public ShardedCrossMatchQueryService(@Qualifier(LOCAL) CrossMatchQueryService local, ShardClient shardClient) {
+		this.local = local;
+		this.shardClient = shardClient;
+	}
+
+	@Override
+	public long getMatchCount() {
+		if (isForwarded()) {
+			return local.getMatchCount();
+		}
+		return gather("/api/stats/matches", local::getMatchCount, JsonNode::asLong).stream()
+				.mapToLong(Long::longValue)
+				.sum();
+	}
+
+	@Override
+	public List<HeroKillRate> getHeroKillRates() {
+		if (isForwarded()) {
+			return local.getHeroKillRates();
+		}
+		Map<String, long[]> totals = new HashMap<>();
+		for (List<HeroKillRate> rates : gather("/api/stats/heroes", local::getHeroKillRates,
+				json -> list(json, hero -> new HeroKillRate(hero.get("hero").asText(), hero.get("matches").asLong(),
+						hero.get("kills").asLong(), hero.get("deaths").asLong(), null)))) {
+			for (HeroKillRate rate : rates) {
+				long[] total = totals.computeIfAbsent(rate.getHero(), hero -> new long[3]);
+				total[0] += rate.getMatches();
+				total[1] += rate.getKills();
+				total[2] += rate.getDeaths();
+			}
+		}
+		return totals.entrySet().stream()
+				.map(entry -> new HeroKillRate(entry.getKey(), entry.getValue()[0], entry.getValue()[1],
+						entry.getValue()[2], (double) entry.getValue()[1] / entry.getValue()[0]))
+				.sorted(Comparator.comparing(HeroKillRate::getKillsPerMatch).reversed()
+						.thenComparing(HeroKillRate::getHero))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Every node sends all the items of the hero, since an item below the limit on each node can still make the
+	 * merged top.
+	 */
+	@Override
+	public List<ItemPurchases> getMostPurchasedItems(String heroName, int limit) {
+		if (isForwarded()) {
+			return local.getMostPurchasedItems(heroName, limit);
+		}
+		String path = "/api/stats/heroes/" + UriUtils.encodePathSegment(heroName, StandardCharsets.UTF_8)
+				+ "/items?limit=" + Integer.MAX_VALUE;
+		Map<String, Long> totals = new HashMap<>();
+		for (List<ItemPurchases> purchases : gather(path,
+				() -> local.getMostPurchasedItems(heroName, Integer.MAX_VALUE),
+				json -> list(json, item -> new ItemPurchases(item.get("item").asText(),
+						item.get("purchases").asLong())))) {
+			purchases.forEach(item -> totals.merge(item.getItem(), item.getPurchases(), Long::sum));
+		}
+		return totals.entrySet().stream()
+				.map(entry -> new ItemPurchases(entry.getKey(), entry.getValue()))
+				.sorted(Comparator.comparing(ItemPurchases::getPurchases).reversed()
+						.thenComparing(ItemPurchases::getItem))
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public List<AbilityDamage> getAbilityDamage() {
+		if (isForwarded()) {
+			return local.getAbilityDamage();
+		}
+		Map<String, long[]> totals = new HashMap<>();
+		for (List<AbilityDamage> damages : gather("/api/stats/abilities", local::getAbilityDamage,
+				json -> list(json, ability -> new AbilityDamage(ability.get("ability").asText(),
+						ability.get("damage_instances").asLong(), ability.get("total_damage").asLong(), null)))) {
+			for (AbilityDamage damage : damages) {
+				long[] total = totals.computeIfAbsent(damage.getAbility(), ability -> new long[2]);
+				total[0] += damage.getDamageInstances();
+				total[1] += damage.getTotalDamage();
+			}
+		}
+		return totals.entrySet().stream()
+				.map(entry -> {
+					long instances = entry.getValue()[0];
+					long total = entry.getValue()[1];
+					return new AbilityDamage(entry.getKey(), instances, total,
+							instances == 0 ? 0 : (double) total / instances);
+				})
+				.sorted(Comparator.comparing(AbilityDamage::getAverageDamage).reversed()
+						.thenComparing(AbilityDamage::getAbility))
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return this node's answer followed by the answers of the other nodes
+	 */
+	private <T> List<T> gather(String path, Supplier<T> localAnswer, Function<JsonNode, T> parse) {
+		List<CompletableFuture<T>> remote = shardClient.getOtherNodes().stream()
+				.map(node -> shardClient.getJson(node, path).thenApply(parse))
+				.collect(Collectors.toList());
+		List<T> answers = new ArrayList<>(remote.size() + 1);
+		answers.add(localAnswer.get());
+		try {
+			remote.forEach(answer -> answers.add(answer.join()));
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof ShardUnavailableException) {
+				throw (ShardUnavailableException) e.getCause();
+			}
+			throw e;
+		}
+		return answers;
+	}
+
+	private static <T> List<T> list(JsonNode json, Function<JsonNode, T> element) {
+		List<T> list = new ArrayList<>(json.size());
+		json.forEach(node -> list.add(element.apply(node)));
+		return list;
+	}
+
+	private static boolean isForwarded() {
+		var attributes = RequestContextHolder.getRequestAttributes();
+		return attributes instanceof ServletRequestAttributes
+				&& ShardClient.isForwarded(((ServletRequestAttributes) attributes).getRequest());
+	}
+
+}
@@ -0,0 +1,75 @@
+package gg.bayes.challenge.business.shard;
+
+import gg.bayes.challenge.config.properties.ShardingProperties;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Which node owns which match id, and which ids this node may hand out.
+ * <p>
+ * Ids are split into {@value #MAX_NODES} stripes by their remainder, one stripe per node index, and a match is
+ * stored on the node of its stripe. A node turns the values of its local sequence into ids of its own stripe, so ids
+ * are unique across nodes without any coordination, no sequence value is skipped, and a match stays with its node
+ * when nodes are added. Ids of a stripe no node has are never handed out; requests for them go to any node, which
+ * does not know them.
+ * <p>
+ * Without sharding the values of the sequence are the ids and every match is local.
+ */
+@Component
+public class MatchIdSpace {
+
+	public static final int MAX_NODES = 64;
+
+	@Getter
+	private final int nodeIndex;
+	private final int nodes;
+
+	public MatchIdSpace(ShardingProperties shardingProperties) {
+		if (!shardingProperties.isEnabled()) {
+			this.nodeIndex = 0;
+			this.nodes = 0;
+			return;
+		}
+		int nodes = shardingProperties.getNodes().size();
+		if (nodes < 1 || nodes > MAX_NODES) {
+			throw new IllegalArgumentException("Sharding needs between 1 and " + MAX_NODES + " nodes, got " + nodes);
+		}
+		if (shardingProperties.getNodeIndex() >= nodes) {
+			throw new IllegalArgumentException("The node index " + shardingProperties.getNodeIndex()
+					+ " is not a position in the list of " + nodes + " nodes");
+		}
+		this.nodeIndex = shardingProperties.getNodeIndex();
+		this.nodes = nodes;
+	}
+
+	public boolean isSharded() {
+		return nodes > 0;
+	}
+
+	/**
+	 * @return the index of the node that stores the match
+	 */
+	public int ownerOf(long matchId) {
+		return isSharded() ? (int) Math.floorMod(matchId, (long) MAX_NODES) % nodes : nodeIndex;
+	}
+
+	public boolean isLocal(long matchId) {
+		return ownerOf(matchId) == nodeIndex;
+	}
+
+	/**
+	 * @param sequenceValue the next value of the node's local id sequence
+	 * @return the id this node hands out for it
+	 */
+	public long allocate(long sequenceValue) {
+		return isSharded() ? sequenceValue * MAX_NODES + nodeIndex : sequenceValue;
+	}
+
+	/**
+	 * @return the value of the local id sequence this node handed out the id for
+	 */
+	public long sequenceValueOf(long matchId) {
+		return isSharded() ? matchId / MAX_NODES : matchId;
+	}
+
+}
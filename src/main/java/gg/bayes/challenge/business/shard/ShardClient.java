@@ -0,0 +1,178 @@
+package gg.bayes.challenge.business.shard;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gg.bayes.challenge.common.exception.ShardUnavailableException;
+import gg.bayes.challenge.config.properties.ShardingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Talks to the other nodes of a sharded deployment over HTTP: proxies a request to the node that owns its match,
+ * and fetches partial answers for a scatter-gather. Every request it sends carries {@value #FORWARDED_HEADER}, and
+ * a node always serves such a request itself, so a request is forwarded at most once even while two nodes disagree
+ * about the node list.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "dota.sharding", name = "enabled", havingValue = "true")
+public class ShardClient {
+
+	public static final String FORWARDED_HEADER = "X-Dota-Forwarded-By";
+
+	/**
+	 * Headers that describe a single connection rather than the request, and the ones the HTTP client sets itself.
+	 */
+	private static final Set<String> HOP_BY_HOP_HEADERS = caseInsensitive("connection", "keep-alive",
+			"proxy-authenticate", "proxy-authorization", "proxy-connection", "te", "trailer", "transfer-encoding",
+			"upgrade", "host", "content-length", "expect");
+
+	private final ShardingProperties shardingProperties;
+	private final ObjectMapper objectMapper;
+	private final HttpClient httpClient;
+
+	public ShardClient(ShardingProperties shardingProperties, ObjectMapper objectMapper) {
+		this.shardingProperties = shardingProperties;
+		this.objectMapper = objectMapper;
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(shardingProperties.getRequestTimeout())
+				.build();
+	}
+
+	/**
+	 * @return the indexes of every node but this one
+	 */
+	public List<Integer> getOtherNodes() {
+		return IntStream.range(0, shardingProperties.getNodes().size())
+				.filter(node -> node != shardingProperties.getNodeIndex())
+				.boxed()
+				.collect(Collectors.toList());
+	}
+
+	public static boolean isForwarded(HttpServletRequest request) {
+		return request.getHeader(FORWARDED_HEADER) != null;
+	}
+
+	/**
+	 * Sends the request to the node and streams the node's response back as it arrives, so uploads are never held
+	 * whole and server-sent events reach the client as they are sent. Answers 502 if the node cannot be reached.
+	 */
+	public void forward(int node, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		String query = request.getQueryString();
+		var builder = HttpRequest.newBuilder(uri(node, request.getRequestURI() + (query == null ? "" : "?" + query)))
+				.method(request.getMethod(), hasBody(request)
+						? HttpRequest.BodyPublishers.ofInputStream(() -> body(request))
+						: HttpRequest.BodyPublishers.noBody());
+		for (String name : Collections.list(request.getHeaderNames())) {
+			if (!HOP_BY_HOP_HEADERS.contains(name) && !FORWARDED_HEADER.equalsIgnoreCase(name)) {
+				Collections.list(request.getHeaders(name)).forEach(value -> builder.header(name, value));
+			}
+		}
+		builder.header(FORWARDED_HEADER, String.valueOf(shardingProperties.getNodeIndex()));
+
+		HttpResponse<InputStream> forwarded;
+		try {
+			forwarded = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+		} catch (IOException e) {
+			log.warn("Could not forward {} {} to node {}", request.getMethod(), request.getRequestURI(), node, e);
+			response.sendError(HttpStatus.BAD_GATEWAY.value(), "Node " + node + " holding the match did not answer.");
+			return;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			response.sendError(HttpStatus.BAD_GATEWAY.value(), "Forwarding to node " + node + " was interrupted.");
+			return;
+		}
+
+		response.setStatus(forwarded.statusCode());
+		forwarded.headers().map().forEach((name, values) -> {
+			if (!HOP_BY_HOP_HEADERS.contains(name)) {
+				values.forEach(value -> response.addHeader(name, value));
+			}
+		});
+		try (InputStream in = forwarded.body()) {
+			OutputStream out = response.getOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+				if (in.available() == 0) {
+					out.flush();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fetches a JSON answer of the node, without waiting for it.
+	 *
+	 * @param pathAndQuery the path of the request, with its query string if any
+	 */
+	public CompletableFuture<JsonNode> getJson(int node, String pathAndQuery) {
+		var request = HttpRequest.newBuilder(uri(node, pathAndQuery))
+				.timeout(shardingProperties.getRequestTimeout())
+				.header("Accept", "application/json")
+				.header(FORWARDED_HEADER, String.valueOf(shardingProperties.getNodeIndex()))
+				.GET()
+				.build();
+		return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+				.handle((response, failure) -> {
+					if (failure != null) {
+						throw new ShardUnavailableException(node, failure);
+					}
+					if (response.statusCode() != HttpStatus.OK.value()) {
+						throw new ShardUnavailableException(node, "HTTP " + response.statusCode());
+					}
+					try {
+						return objectMapper.readTree(response.body());
+					} catch (IOException e) {
+						throw new ShardUnavailableException(node, e);
+					}
+				});
+	}
+
+	private URI uri(int node, String pathAndQuery) {
+		String base = shardingProperties.getNodes().get(node).toString();
+		return URI.create(base.endsWith("/") ? base.substring(0, base.length() - 1) + pathAndQuery
+				: base + pathAndQuery);
+	}
+
+	private static boolean hasBody(HttpServletRequest request) {
+		return request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null;
+	}
+
+	private static InputStream body(HttpServletRequest request) {
+		try {
+			return request.getInputStream();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static Set<String> caseInsensitive(String... names) {
+		var set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		Collections.addAll(set, names);
+		return Collections.unmodifiableSet(set);
+	}
+
+}
@@ -0,0 +1,102 @@
+package gg.bayes.challenge.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A Caffeine cache whose entries each belong to one match and are dropped together when the match changes.
+ * <p>
+ * The keys are indexed by match, so dropping a match costs time in its own number of entries rather than in the
+ * size of the cache. Every match also has a generation, taken from a fixed set of stripes, that is raised whenever
+ * the match is dropped; a load that started before the match changed compares it before its result is stored and
+ * hands the result to its caller only, so a stale answer never outlives the change that made it stale.
+ */
+public class MatchScopedCache<K, V> {
+
+	private static final int GENERATION_STRIPES = 1024;
+
+	private final Function<K, Long> matchIdOf;
+	private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+	private final ConcurrentMap<Long, Set<K>> keysByMatch = new ConcurrentHashMap<>();
+	private final Cache<K, V> cache;
+
+	/**
+	 * @param builder   the configured cache, which must not have an eviction listener of its own
+	 * @param matchIdOf the match a key belongs to
+	 */
+	public MatchScopedCache(Caffeine<K, V> builder, Function<K, Long> matchIdOf) {
+		this.matchIdOf = matchIdOf;
+		// Called while the evicted entry is still locked, so a reload of the same key cannot slip in between.
+		this.cache = builder.evictionListener((K key, V value, RemovalCause cause) -> unregister(key)).build();
+	}
+
+	/**
+	 * @return the underlying cache, e.g. to publish its statistics
+	 */
+	public Cache<K, V> getCache() {
+		return cache;
+	}
+
+	/**
+	 * @param loader runs on a miss
+	 * @return the cached value, or the loaded one, which is only stored if the match did not change meanwhile
+	 */
+	public V get(K key, Supplier<V> loader) {
+		Long matchId = matchIdOf.apply(key);
+		long generation = generations.get(stripe(matchId));
+		var loaded = new AtomicReference<V>();
+		V cached = cache.get(key, missing -> {
+			loaded.set(loader.get());
+			// Registered before the generation is compared: a drop of the match either raised the generation
+			// already or finds the key in the index and waits for this load to store before removing it.
+			register(missing, matchId);
+			if (generations.get(stripe(matchId)) == generation) {
+				return loaded.get();
+			}
+			unregister(missing);
+			return null;
+		});
+		return cached != null ? cached : loaded.get();
+	}
+
+	/**
+	 * Drops every entry of the match; loads of it that are still running do not store their results.
+	 */
+	public void invalidate(Long matchId) {
+		generations.incrementAndGet(stripe(matchId));
+		Set<K> keys = keysByMatch.remove(matchId);
+		if (keys != null) {
+			cache.invalidateAll(keys);
+		}
+	}
+
+	private void register(K key, Long matchId) {
+		keysByMatch.compute(matchId, (id, keys) -> {
+			Set<K> registered = keys == null ? new HashSet<>() : keys;
+			registered.add(key);
+			return registered;
+		});
+	}
+
+	private void unregister(K key) {
+		keysByMatch.computeIfPresent(matchIdOf.apply(key), (id, keys) -> {
+			keys.remove(key);
+			return keys.isEmpty() ? null : keys;
+		});
+	}
+
+	private static int stripe(Long matchId) {
+		return Math.floorMod(matchId.hashCode(), GENERATION_STRIPES);
+	}
+
+}
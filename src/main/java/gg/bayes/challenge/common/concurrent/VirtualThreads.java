@@ -0,0 +1,50 @@
+package gg.bayes.challenge.common.concurrent;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads from code compiled for Java 11. The JDK method is looked up reflectively once, so the
+ * same build runs on any JDK and only uses virtual threads where they exist.
+ */
+public final class VirtualThreads {
+
+	private static final Method NEW_PER_TASK_EXECUTOR = lookUp();
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * @return whether the running JDK supports virtual threads
+	 */
+	public static boolean isAvailable() {
+		return NEW_PER_TASK_EXECUTOR != null;
+	}
+
+	/**
+	 * @return an executor that starts a new virtual thread for each task, or empty on a JDK without virtual threads
+	 */
+	public static Optional<ExecutorService> newPerTaskExecutor() {
+		if (NEW_PER_TASK_EXECUTOR == null) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of((ExecutorService) NEW_PER_TASK_EXECUTOR.invoke(null));
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			// Present but not usable, e.g. a preview JDK started without --enable-preview.
+			return Optional.empty();
+		}
+	}
+
+	private static Method lookUp() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,17 @@
+package gg.bayes.challenge.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.TOO_MANY_REQUESTS, reason = "The ingest queue is full, retry later.")
+public class IngestQueueFullException extends RuntimeException {
+
+	public IngestQueueFullException() {
+		super("The ingest queue is full.");
+	}
+
+	public IngestQueueFullException(Throwable cause) {
+		super("The ingest queue is full.", cause);
+	}
+
+}
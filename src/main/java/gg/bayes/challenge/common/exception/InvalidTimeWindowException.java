@@ -0,0 +1,13 @@
+package gg.bayes.challenge.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidTimeWindowException extends RuntimeException {
+
+	public InvalidTimeWindowException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,13 @@
+package gg.bayes.challenge.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class MatchNotFoundException extends RuntimeException {
+
+	public MatchNotFoundException(Long matchId) {
+		super("There is no match with id " + matchId + ".");
+	}
+
+}
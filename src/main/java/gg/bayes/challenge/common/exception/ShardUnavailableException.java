@@ -0,0 +1,17 @@
+package gg.bayes.challenge.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_GATEWAY, reason = "A node holding part of the matches did not answer.")
+public class ShardUnavailableException extends RuntimeException {
+
+	public ShardUnavailableException(int node, Throwable cause) {
+		super("Node " + node + " did not answer.", cause);
+	}
+
+	public ShardUnavailableException(int node, String message) {
+		super("Node " + node + " did not answer: " + message);
+	}
+
+}
@@ -0,0 +1,57 @@
+package gg.bayes.challenge.common.file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the combat logs of a zip archive one entry at a time, in archive order, while the archive is still being
+ * received. Directories are skipped; every other entry is taken to be one UTF-8 combat log.
+ */
+public class CombatLogArchive implements Iterator<String> {
+
+	private final ZipInputStream archive;
+	private ZipEntry next;
+
+	public CombatLogArchive(InputStream archive) {
+		this.archive = new ZipInputStream(archive, StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			while (next == null) {
+				next = archive.getNextEntry();
+				if (next == null) {
+					return false;
+				}
+				if (next.isDirectory()) {
+					next = null;
+				}
+			}
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException("The combat log archive could not be read.", e);
+		}
+	}
+
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		try {
+			String combatLog = new String(archive.readAllBytes(), StandardCharsets.UTF_8);
+			next = null;
+			return combatLog;
+		} catch (IOException e) {
+			throw new UncheckedIOException("The combat log archive could not be read.", e);
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+package gg.bayes.challenge.common.file;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Copies an uploaded combat log to a temporary UTF-8 file, line by line, so it can be read again later or more than
+ * once without being held on the heap. The caller deletes the file once it is done with it.
+ */
+@Slf4j
+public final class CombatLogSpool {
+
+	private CombatLogSpool() {
+	}
+
+	public static Path spool(Reader combatLog) {
+		return spool(combatLog, line -> {
+		});
+	}
+
+	/**
+	 * @param lines receives every line as it is copied, e.g. to hash the log on the way
+	 * @return the temporary file holding the log
+	 */
+	public static Path spool(Reader combatLog, Consumer<String> lines) {
+		try {
+			Path spool = Files.createTempFile("combatlog-", ".txt");
+			try (var reader = new BufferedReader(combatLog);
+				 var writer = Files.newBufferedWriter(spool, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					lines.accept(line);
+					writer.write(line);
+					writer.newLine();
+				}
+			} catch (IOException | RuntimeException e) {
+				delete(spool);
+				throw e;
+			}
+			return spool;
+		} catch (IOException e) {
+			throw new UncheckedIOException("The combat log could not be spooled.", e);
+		}
+	}
+
+	public static void delete(Path spool) {
+		try {
+			Files.deleteIfExists(spool);
+		} catch (IOException e) {
+			log.warn("Could not delete spooled combat log {}", spool, e);
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+package gg.bayes.challenge.common.file;
+
+import com.github.luben.zstd.ZstdInputStream;
+import gg.bayes.challenge.common.exception.CorruptCompressedBodyException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression formats accepted for uploaded combat logs, either as the {@code Content-Encoding} of a body or as its
+ * media type. Bodies are decompressed as they are read, so the compressed upload is never held in memory whole.
+ */
+public enum Compression {
+
+	GZIP("gzip", "application/gzip") {
+		@Override
+		InputStream open(InputStream compressed) throws IOException {
+			return new GZIPInputStream(compressed, BUFFER_SIZE);
+		}
+	},
+	ZSTD("zstd", "application/zstd") {
+		@Override
+		InputStream open(InputStream compressed) throws IOException {
+			return new ZstdInputStream(compressed);
+		}
+	};
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final String encoding;
+	private final String mediaType;
+
+	Compression(String encoding, String mediaType) {
+		this.encoding = encoding;
+		this.mediaType = mediaType;
+	}
+
+	/**
+	 * Wraps the compressed stream in one that reads it decompressed. Closing the result closes the given stream.
+	 * Data that is truncated or not in this format fails with a {@link CorruptCompressedBodyException}, while a
+	 * failure to read the given stream is passed on as is.
+	 */
+	public InputStream decompress(InputStream compressed) throws IOException {
+		var source = new SourceStream(compressed);
+		try {
+			return new DecompressedStream(open(source), source);
+		} catch (IOException e) {
+			throw rethrown(e, source);
+		}
+	}
+
+	abstract InputStream open(InputStream compressed) throws IOException;
+
+	/**
+	 * @param encoding a {@code Content-Encoding} token, matched case-insensitively
+	 */
+	public static Optional<Compression> forEncoding(String encoding) {
+		return Arrays.stream(values()).filter(compression -> compression.encoding.equalsIgnoreCase(encoding))
+				.findFirst();
+	}
+
+	/**
+	 * @param mediaType a media type without parameters, matched case-insensitively
+	 */
+	public static Optional<Compression> forMediaType(String mediaType) {
+		return Arrays.stream(values()).filter(compression -> compression.mediaType.equalsIgnoreCase(mediaType))
+				.findFirst();
+	}
+
+	/**
+	 * @return the failure to pass on if reading the compressed stream failed
+	 * @throws CorruptCompressedBodyException if the data could not be decompressed
+	 */
+	private IOException rethrown(IOException e, SourceStream source) {
+		if (source.failure != null && (e == source.failure || e.getCause() == source.failure)) {
+			return e;
+		}
+		throw new CorruptCompressedBodyException("The body is not valid " + encoding + " data.", e);
+	}
+
+	/**
+	 * The compressed stream, remembering the last failure to read it.
+	 */
+	private static class SourceStream extends FilterInputStream {
+
+		private IOException failure;
+
+		SourceStream(InputStream compressed) {
+			super(compressed);
+		}
+
+		@Override
+		public int read() throws IOException {
+			try {
+				return super.read();
+			} catch (IOException e) {
+				failure = e;
+				throw e;
+			}
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			try {
+				return super.read(buffer, offset, length);
+			} catch (IOException e) {
+				failure = e;
+				throw e;
+			}
+		}
+	}
+
+	private class DecompressedStream extends FilterInputStream {
+
+		private final SourceStream source;
+
+		DecompressedStream(InputStream decompressed, SourceStream source) {
+			super(decompressed);
+			this.source = source;
+		}
+
+		@Override
+		public int read() throws IOException {
+			try {
+				return super.read();
+			} catch (IOException e) {
+				throw rethrown(e, source);
+			}
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			try {
+				return super.read(buffer, offset, length);
+			} catch (IOException e) {
+				throw rethrown(e, source);
+			}
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			try {
+				return super.skip(n);
+			} catch (IOException e) {
+				throw rethrown(e, source);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,17 @@
+package gg.bayes.challenge.config;
+
+import gg.bayes.challenge.business.shard.MatchIdSpace;
+import gg.bayes.challenge.persistence.model.MatchIdGenerator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ShardingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer matchIdSpaceHibernatePropertiesCustomizer(MatchIdSpace matchIdSpace) {
+        return hibernateProperties -> hibernateProperties.put(MatchIdGenerator.ID_SPACE_SETTING, matchIdSpace);
+    }
+
+}
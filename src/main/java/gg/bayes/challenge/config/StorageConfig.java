@@ -0,0 +1,26 @@
+package gg.bayes.challenge.config;
+
+import gg.bayes.challenge.business.shard.MatchIdSpace;
+import gg.bayes.challenge.config.properties.StorageProperties;
+import gg.bayes.challenge.persistence.repository.ColumnarMatchRepository;
+import gg.bayes.challenge.persistence.repository.InMemoryColumnarMatchRepository;
+import gg.bayes.challenge.persistence.repository.SegmentColumnarMatchRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "dota.storage", name = "engine", havingValue = "columnar")
+public class StorageConfig {
+
+    @Bean
+    public ColumnarMatchRepository columnarMatchRepository(StorageProperties storageProperties,
+            MatchIdSpace matchIdSpace) {
+        if (storageProperties.getSegmentDirectory() == null) {
+            return new InMemoryColumnarMatchRepository();
+        }
+        return new SegmentColumnarMatchRepository(storageProperties.getSegmentDirectory(),
+                storageProperties.getSegmentCacheWeight(), matchIdSpace::sequenceValueOf);
+    }
+
+}
@@ -1,24 +1,68 @@
 package gg.bayes.challenge.config;
 
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
 
+import java.lang.reflect.Field;
+import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
+/**
+ * Left out together with springfox itself when {@code springfox.documentation.enabled} is false, as in the
+ * fast-startup profile.
+ */
 @Configuration
+@ConditionalOnProperty(name = "springfox.documentation.enabled", havingValue = "true", matchIfMissing = true)
 public class SwaggerConfig {
 
     @Bean
     public Docket api() {
         return new Docket(DocumentationType.SWAGGER_2)
                 .select()
-                .apis(RequestHandlerSelectors.basePackage("gg.bayes.challenge.rest.controller"))
+                .apis(RequestHandlerSelectors.basePackage("gg.bayes.challenge.config.rest.controller"))
                 .paths(Predicate.not(PathSelectors.regex("/error")))
                 .build();
     }
 
+    /**
+     * Springfox 3 only understands ant-style handler mappings, while the actuator endpoints are registered with
+     * a path pattern parser; hide those mappings from springfox so it can start next to actuator.
+     */
+    @Bean
+    public static BeanPostProcessor springfoxHandlerProviderBeanPostProcessor() {
+        return new BeanPostProcessor() {
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof WebMvcRequestHandlerProvider) {
+                    removePathPatternMappings(bean);
+                }
+                return bean;
+            }
+
+            @SuppressWarnings("unchecked")
+            private void removePathPatternMappings(Object provider) {
+                Field field = ReflectionUtils.findField(provider.getClass(), "handlerMappings");
+                ReflectionUtils.makeAccessible(field);
+                var mappings = (List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, provider);
+                var antMappings = mappings.stream()
+                        .filter(mapping -> mapping.getPatternParser() == null)
+                        .collect(Collectors.toList());
+                mappings.clear();
+                mappings.addAll(antMappings);
+            }
+        };
+    }
+
 }
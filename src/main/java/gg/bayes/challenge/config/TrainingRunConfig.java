@@ -0,0 +1,28 @@
+package gg.bayes.challenge.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ends a training run once startup has loaded every class it needs, so the JVM writes its class-data sharing
+ * archive on exit.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "dota.startup", name = "exit-on-ready", havingValue = "true")
+public class TrainingRunConfig {
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> exitOnReadyListener() {
+        return event -> {
+            log.info("Training run finished, shutting down");
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        };
+    }
+
+}
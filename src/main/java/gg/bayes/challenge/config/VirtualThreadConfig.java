@@ -0,0 +1,30 @@
+package gg.bayes.challenge.config;
+
+import gg.bayes.challenge.common.concurrent.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Opt-in virtual-thread mode. Tomcat hands every request to a new virtual thread, and the JDBC calls the query
+ * and command services make on that thread park it rather than a platform thread. The number of requests in
+ * flight is then bounded by {@code server.tomcat.max-connections} rather than by {@code server.tomcat.threads.max}.
+ * Concurrent database work is still bounded by the connection pool.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "dota.threading", name = "virtual-threads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> VirtualThreads.newPerTaskExecutor().ifPresentOrElse(executor -> {
+            log.info("Serving requests on virtual threads");
+            protocolHandler.setExecutor(executor);
+        }, () -> log.warn("Virtual threads were requested but this JDK ({}) has none; keeping the Tomcat worker pool",
+                Runtime.version()));
+    }
+
+}
@@ -0,0 +1,66 @@
+package gg.bayes.challenge.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "dota.ingest")
+public class IngestProperties {
+
+    /**
+     * Number of combat log lines read, parsed and written together while a log is being streamed in. Bounds the
+     * memory used by one ingest.
+     */
+    @Min(1)
+    private int chunkSize = 4096;
+
+    /**
+     * Worker threads of the parse pool. A chunk is split across at most this many workers.
+     */
+    @Min(1)
+    private int parseParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Answers the upload of a log that was imported before with the stored match instead of importing it again.
+     * Logs are compared by a hash of their content, ignoring line endings and blank lines.
+     */
+    private boolean deduplicate = true;
+
+    /**
+     * Slots of the table that interns hero, ability and item names while parsing; rounded up to a power of two.
+     * A few times the number of distinct names keeps collisions rare.
+     */
+    @Min(1)
+    private int namePoolSize = 4096;
+
+    /**
+     * Logs of a batch upload that are parsed together and written in one transaction.
+     */
+    @Min(1)
+    private int batchSize = 16;
+
+    /**
+     * Worker threads that run asynchronous ingest jobs.
+     */
+    @Min(1)
+    private int asyncWorkers = 2;
+
+    /**
+     * Asynchronous ingest jobs waiting for a worker. Submissions beyond this are rejected with 429.
+     */
+    @Min(0)
+    private int asyncQueueCapacity = 16;
+
+    /**
+     * How long the status of a finished asynchronous ingest job stays available.
+     */
+    private Duration asyncJobRetention = Duration.ofHours(1);
+
+}
@@ -0,0 +1,41 @@
+package gg.bayes.challenge.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "dota.live")
+public class LiveProperties {
+
+    /**
+     * How often the deltas collected for a match are pushed. Ingests committed within one interval reach the
+     * subscribers as a single delta.
+     */
+    private Duration pushInterval = Duration.ofMillis(500);
+
+    /**
+     * Events waiting to be sent to one subscriber. A subscriber that falls further behind is disconnected and has
+     * to subscribe again.
+     */
+    @Min(1)
+    private int subscriberBufferSize = 32;
+
+    /**
+     * How long a subscription stays open before the client has to renew it.
+     */
+    private Duration subscriberTimeout = Duration.ofMinutes(30);
+
+    /**
+     * Threads that write events to subscribers.
+     */
+    @Min(1)
+    private int pushThreads = 2;
+
+}
@@ -0,0 +1,30 @@
+package gg.bayes.challenge.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "dota.query-cache")
+public class QueryCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Upper bound of the cache weight, counted in response rows (each cached response weighs its row count + 1).
+     */
+    @Min(0)
+    private long maximumWeight = 200_000;
+
+    /**
+     * Pre-populates the kills, spells, damage and items responses of every hero of a match once its ingest has
+     * committed.
+     */
+    private boolean warmOnIngest = false;
+
+}
@@ -0,0 +1,34 @@
+package gg.bayes.challenge.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "dota.response-cache")
+public class ResponseCacheProperties {
+
+    /**
+     * Keeps the serialized JSON of the match endpoints. Responses carry an ETag either way.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Upper bound of the serialized responses kept, in bytes.
+     */
+    @Min(0)
+    private long maximumBytes = 64L * 1024 * 1024;
+
+    /**
+     * How long clients may reuse a response without asking again. Appends can still change a match, so the default
+     * of zero sends {@code Cache-Control: no-cache} and clients revalidate with {@code If-None-Match} every time.
+     */
+    private Duration maxAge = Duration.ZERO;
+
+}
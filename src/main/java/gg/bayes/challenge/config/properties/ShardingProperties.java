@@ -0,0 +1,43 @@
+package gg.bayes.challenge.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "dota.sharding")
+public class ShardingProperties {
+
+    /**
+     * Spreads matches over the nodes listed below by match id. Every node runs the same configuration except for
+     * its own {@code node-index}.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Base URLs of all nodes, e.g. {@code http://node-0:8080}. A node's position in the list is its permanent
+     * identity: add nodes at the end, never reorder or reuse a position.
+     */
+    private List<URI> nodes = new ArrayList<>();
+
+    /**
+     * Position of this node in {@code nodes}.
+     */
+    @Min(0)
+    private int nodeIndex = 0;
+
+    /**
+     * How long a node waits for another node while fanning out a cross-match query.
+     */
+    private Duration requestTimeout = Duration.ofSeconds(30);
+
+}
@@ -0,0 +1,18 @@
+package gg.bayes.challenge.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "dota.startup")
+public class StartupProperties {
+
+    /**
+     * Shuts the application down as soon as it is ready. Used by the training run that records the class-data
+     * sharing archive of the {@code appcds} Maven profile.
+     */
+    private boolean exitOnReady = false;
+
+}
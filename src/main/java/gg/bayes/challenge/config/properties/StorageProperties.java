@@ -0,0 +1,48 @@
+package gg.bayes.challenge.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.nio.file.Path;
+
+@Getter
+@Setter
+@Validated
+@ConfigurationProperties(prefix = "dota.storage")
+public class StorageProperties {
+
+    /**
+     * Where ingested matches are kept and queried from. Read once at startup.
+     */
+    @NotNull
+    private Engine engine = Engine.JPA;
+
+    /**
+     * Directory of the match segment files of the columnar engine. When set, every ingested match is written there
+     * and matches of earlier runs are served after a restart; when unset, columnar matches live on the heap only.
+     */
+    private Path segmentDirectory;
+
+    /**
+     * Upper bound of the decoded segments kept on the heap, counted in events.
+     */
+    @Min(0)
+    private long segmentCacheWeight = 10_000_000;
+
+    public enum Engine {
+        /**
+         * Entities and per-hero summary tables in the relational database.
+         */
+        JPA,
+        /**
+         * Primitive column arrays, one set per match; kept on the heap or in segment files, see
+         * {@code dota.storage.segment-directory}.
+         */
+        COLUMNAR
+    }
+
+}
@@ -0,0 +1,19 @@
+package gg.bayes.challenge.config.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "dota.threading")
+public class ThreadingProperties {
+
+    /**
+     * Serves each HTTP request on its own virtual thread instead of the Tomcat worker pool, so requests blocked on
+     * JDBC or on an upload no longer hold a platform thread. Needs a JDK with virtual threads (21 or later); on an
+     * older JDK a warning is logged and the worker pool is kept.
+     */
+    private boolean virtualThreads = false;
+
+}
@@ -0,0 +1,114 @@
+package gg.bayes.challenge.config.rest.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import gg.bayes.challenge.business.event.MatchIngestedEvent;
+import gg.bayes.challenge.business.service.match.TimeWindow;
+import gg.bayes.challenge.common.cache.MatchScopedCache;
+import gg.bayes.challenge.config.properties.ResponseCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON of the match endpoints, keyed by match, hero, time window and endpoint, with a strong ETag
+ * computed from the bytes. A repeated request is answered from the stored bytes without querying or serializing
+ * again, and one whose {@code If-None-Match} names the stored ETag gets a 304 without a body; Spring compares the
+ * ETag once the controller returns it. Entries are weighed by their size in bytes, published as the
+ * {@code cache.*} meters of the {@value #CACHE_NAME} cache, and dropped whenever events are ingested for their
+ * match; a request racing the ingest does not cache its body, see {@link MatchScopedCache}.
+ */
+@Component
+public class MatchResponseCache {
+
+	static final String CACHE_NAME = "matchResponses";
+
+	/**
+	 * Rough size of a cache entry apart from its body.
+	 */
+	private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+	private final ObjectMapper objectMapper;
+	private final ResponseCacheProperties responseCacheProperties;
+	private final CacheControl cacheControl;
+	private final MatchScopedCache<ResponseKey, SerializedResponse> cache;
+
+	public MatchResponseCache(ObjectMapper objectMapper, ResponseCacheProperties responseCacheProperties,
+			MeterRegistry meterRegistry) {
+		this.objectMapper = objectMapper;
+		this.responseCacheProperties = responseCacheProperties;
+		this.cacheControl = responseCacheProperties.getMaxAge().isZero() ? CacheControl.noCache()
+				: CacheControl.maxAge(responseCacheProperties.getMaxAge());
+		this.cache = new MatchScopedCache<>(Caffeine.newBuilder()
+				.maximumWeight(responseCacheProperties.getMaximumBytes())
+				.<ResponseKey, SerializedResponse>weigher((key, response) ->
+						response.getBody().length + ENTRY_OVERHEAD_BYTES)
+				.recordStats(), ResponseKey::getMatchId);
+		CaffeineCacheMetrics.monitor(meterRegistry, cache.getCache(), CACHE_NAME);
+	}
+
+	/**
+	 * @param endpoint name of the endpoint, unique per controller method
+	 * @param heroName the hero of the endpoint, or {@code null} for match-wide ones
+	 * @param query    runs the query on a miss
+	 * @return the serialized response with its ETag and cache headers; controller methods name the model of the
+	 *         body with {@code @ApiResponse} for the API documentation
+	 */
+	public ResponseEntity<byte[]> respond(String endpoint, Long matchId, String heroName, TimeWindow window,
+			Supplier<?> query) {
+		Supplier<SerializedResponse> serialized = () -> serialize(query.get());
+		var response = responseCacheProperties.isEnabled()
+				? cache.get(new ResponseKey(matchId, heroName, window, endpoint), serialized)
+				: serialized.get();
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_JSON)
+				.eTag(response.getEtag())
+				.cacheControl(cacheControl)
+				.body(response.getBody());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onMatchIngested(MatchIngestedEvent event) {
+		invalidate(event.getMatchId());
+	}
+
+	/**
+	 * Drops every cached response of the match; requests for it that are still running do not cache their bodies.
+	 */
+	public void invalidate(Long matchId) {
+		cache.invalidate(matchId);
+	}
+
+	private SerializedResponse serialize(Object value) {
+		try {
+			byte[] body = objectMapper.writeValueAsBytes(value);
+			return new SerializedResponse(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("The response could not be serialized.", e);
+		}
+	}
+
+	@Value
+	private static class ResponseKey {
+		Long matchId;
+		String heroName;
+		TimeWindow window;
+		String endpoint;
+	}
+
+	@Value
+	private static class SerializedResponse {
+		byte[] body;
+		String etag;
+	}
+
+}
@@ -0,0 +1,51 @@
+package gg.bayes.challenge.config.rest.controller;
+
+import gg.bayes.challenge.business.service.ingest.IngestJobService;
+import gg.bayes.challenge.config.rest.model.IngestJobStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.Reader;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/match/jobs")
+@Validated
+@RequiredArgsConstructor
+public class IngestJobController {
+
+	private final IngestJobService ingestJobService;
+
+	/**
+	 * Queues a DOTA combat log file for ingestion and returns right away. The match id
+	 * becomes available through the job status once the ingest has completed.
+	 *
+	 * @param combatLog the content of the combat log file
+	 * @return the queued job, 429 if the ingest queue is full
+	 */
+	@PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<IngestJobStatus> submitCombatLog(Reader combatLog) {
+		var status = ingestJobService.submit(combatLog);
+		var location = ServletUriComponentsBuilder.fromCurrentRequest()
+				.path("/{jobId}")
+				.buildAndExpand(status.getJobId())
+				.toUri();
+		return ResponseEntity.accepted().location(location).body(status);
+	}
+
+	/**
+	 * Fetches the state and progress of an ingest job.
+	 *
+	 * @param jobId the job identifier
+	 * @return the job status, 404 if the job is unknown or its status has expired
+	 */
+	@GetMapping(path = "{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<IngestJobStatus> getJob(@PathVariable("jobId") String jobId) {
+		return ResponseEntity.of(ingestJobService.getStatus(jobId));
+	}
+}
@@ -1,19 +1,37 @@
 package gg.bayes.challenge.config.rest.controller;
 
+import gg.bayes.challenge.business.service.live.MatchLiveService;
 import gg.bayes.challenge.business.service.match.MatchLogCommandService;
 import gg.bayes.challenge.business.service.match.MatchLogQueryService;
+import gg.bayes.challenge.business.service.match.TimeWindow;
+import gg.bayes.challenge.common.file.CombatLogArchive;
+import gg.bayes.challenge.common.file.Compression;
+import gg.bayes.challenge.config.rest.cache.MatchResponseCache;
 import gg.bayes.challenge.config.rest.model.HeroDamage;
+import gg.bayes.challenge.config.rest.model.HeroDamageBucket;
 import gg.bayes.challenge.config.rest.model.HeroItem;
 import gg.bayes.challenge.config.rest.model.HeroKills;
 import gg.bayes.challenge.config.rest.model.HeroSpells;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.NotImplementedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
 
 @Slf4j
@@ -23,33 +41,139 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MatchController {
 
+	private static final String APPLICATION_ZIP_VALUE = "application/zip";
+	private static final String APPLICATION_GZIP_VALUE = "application/gzip";
+	private static final String APPLICATION_ZSTD_VALUE = "application/zstd";
+
+	private final MatchLogCommandService matchLogCommandService;
+	private final MatchLogQueryService matchLogQueryService;
+	private final MatchLiveService matchLiveService;
+	private final MatchResponseCache matchResponseCache;
+
 	/**
 	 * Ingests a DOTA combat log file, parses and persists relevant events data. All
-	 * events are associated with the same match id.
+	 * events are associated with the same match id. The request body is streamed
+	 * line by line rather than read into memory first. A body sent with a
+	 * {@code Content-Encoding} of gzip or zstd is decompressed as it is read.
 	 *
 	 * @param combatLog the content of the combat log file
 	 * @return the match id associated with the parsed events
 	 */
-
-	private final MatchLogCommandService matchLogCommandService;
-	private final MatchLogQueryService matchLogQueryService;
-
 	@PostMapping(consumes = MediaType.TEXT_PLAIN_VALUE)
-	public ResponseEntity<Long> ingestCombatLog(@RequestBody String combatLog) {
+	public ResponseEntity<Long> ingestCombatLog(Reader combatLog) {
 		return ResponseEntity.ok(matchLogCommandService.importData(combatLog));
 	}
 
+	/**
+	 * Ingests a gzip- or zstd-compressed DOTA combat log file, e.g. {@code combatlog.txt.gz}
+	 * uploaded as is. The file is decompressed as it is read and streamed line by line
+	 * into the parser, like a plain text upload.
+	 *
+	 * @param compressedLog the compressed combat log file, UTF-8 once decompressed
+	 * @param contentType   {@code application/gzip} or {@code application/zstd}
+	 * @return the match id associated with the parsed events
+	 */
+	@PostMapping(consumes = { APPLICATION_GZIP_VALUE, APPLICATION_ZSTD_VALUE })
+	public ResponseEntity<Long> ingestCompressedCombatLog(InputStream compressedLog,
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) throws IOException {
+		var compression = Compression.forMediaType(contentType.getType() + "/" + contentType.getSubtype())
+				.orElseThrow();
+		try (var combatLog = new InputStreamReader(compression.decompress(compressedLog), StandardCharsets.UTF_8)) {
+			return ResponseEntity.ok(matchLogCommandService.importData(combatLog));
+		}
+	}
+
+	/**
+	 * Ingests many DOTA combat log files uploaded as the {@code logs} parts of a multipart request, each as its own
+	 * match. Logs are parsed concurrently and written in batches.
+	 *
+	 * @param logs the combat log files
+	 * @return the match ids, in the order of the uploaded files
+	 */
+	@PostMapping(path = "batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<Long>> ingestCombatLogs(@RequestParam("logs") List<MultipartFile> logs) {
+		Iterator<String> combatLogs = logs.stream().map(MatchController::content).iterator();
+		return ResponseEntity.ok(matchLogCommandService.importAll(combatLogs));
+	}
+
+	/**
+	 * Ingests every file of a zip archive of DOTA combat logs, each as its own match. The archive is read while it
+	 * is received; logs are parsed concurrently and written in batches.
+	 *
+	 * @param archive the zip archive
+	 * @return the match ids, in archive order
+	 */
+	@PostMapping(path = "batch", consumes = APPLICATION_ZIP_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<Long>> ingestCombatLogArchive(InputStream archive) {
+		return ResponseEntity.ok(matchLogCommandService.importAll(new CombatLogArchive(archive)));
+	}
+
+	/**
+	 * Appends the next chunk of a DOTA combat log to a stored match, e.g. while the match
+	 * is still running. Lines that were sent with an earlier chunk are skipped, so
+	 * chunks may overlap.
+	 *
+	 * @param matchId   the match identifier
+	 * @param combatLog the new lines of the combat log
+	 * @return the number of new events stored, 404 if the match is unknown
+	 */
+	@PostMapping(path = "{matchId}/events", consumes = MediaType.TEXT_PLAIN_VALUE,
+			produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Integer> appendCombatLog(@PathVariable("matchId") Long matchId, Reader combatLog) {
+		return ResponseEntity.ok(matchLogCommandService.appendData(matchId, combatLog));
+	}
+
 	/**
 	 *
 	 * Fetches the heroes and their kill counts for the given match.
 	 *
 	 * @param matchId the match identifier
-	 * @return a collection of heroes and their kill counts
+	 * @param from    optional start of the time window, {@code HH:MM:SS[.mmm]}, inclusive
+	 * @param to      optional end of the time window, {@code HH:MM:SS[.mmm]}, exclusive
+	 * @return a collection of heroes and their kill counts, as {@link HeroKills} JSON
 	 */
 	@GetMapping(path = "{matchId}", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<List<HeroKills>> getMatch(@PathVariable("matchId") Long matchId) {
-		return ResponseEntity.ok(matchLogQueryService.getHeroKillsByMatch(matchId));
+	@ApiResponses(@ApiResponse(code = 200, message = "OK", response = HeroKills.class, responseContainer = "List"))
+	public ResponseEntity<byte[]> getMatch(@PathVariable("matchId") Long matchId,
+			@RequestParam(name = "from", required = false) String from,
+			@RequestParam(name = "to", required = false) String to) {
+		var window = TimeWindow.parse(from, to);
+		return matchResponseCache.respond("kills", matchId, null, window,
+				() -> matchLogQueryService.getHeroKillsByMatch(matchId, window));
+	}
 
+	/**
+	 * Subscribes to the per-hero totals of the given match as server-sent events: a
+	 * {@code snapshot} event first, then a {@code delta} event with the kills, spells,
+	 * damage and item purchases added since the previous event whenever events are
+	 * ingested for the match.
+	 *
+	 * @param matchId the match identifier
+	 * @return the event stream
+	 */
+	@GetMapping(path = "{matchId}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter subscribe(@PathVariable("matchId") Long matchId) {
+		return matchLiveService.subscribe(matchId);
+	}
+
+	/**
+	 * For the given match, fetches the damage done by every hero in each minute of the match.
+	 *
+	 * @param matchId the match identifier
+	 * @param from    optional start of the time window, {@code HH:MM:SS[.mmm]}, inclusive
+	 * @param to      optional end of the time window, {@code HH:MM:SS[.mmm]}, exclusive
+	 * @return the damage instances and total damage per hero and minute, ordered by minute and hero, as
+	 *         {@link HeroDamageBucket} JSON
+	 */
+	@GetMapping(path = "{matchId}/timeline/damage", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiResponses(@ApiResponse(code = 200, message = "OK", response = HeroDamageBucket.class, responseContainer = "List"))
+	public ResponseEntity<byte[]> getDamageTimeline(@PathVariable("matchId") Long matchId,
+			@RequestParam(name = "from", required = false) String from,
+			@RequestParam(name = "to", required = false) String to) {
+		var window = TimeWindow.parse(from, to);
+		return matchResponseCache.respond("damage-timeline", matchId, null, window,
+				() -> matchLogQueryService.getHeroDamageTimeline(matchId, window));
 	}
 
 	/**
@@ -57,12 +181,19 @@ public class MatchController {
 	 *
 	 * @param matchId  the match identifier
 	 * @param heroName the hero name
-	 * @return a collection of items bought by the hero during the match
+	 * @param from     optional start of the time window, {@code HH:MM:SS[.mmm]}, inclusive
+	 * @param to       optional end of the time window, {@code HH:MM:SS[.mmm]}, exclusive
+	 * @return a collection of items bought by the hero during the match, as {@link HeroItem} JSON
 	 */
 	@GetMapping(path = "{matchId}/{heroName}/items", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<List<HeroItem>> getHeroItems(@PathVariable("matchId") Long matchId,
-			@PathVariable("heroName") String heroName) {
-		return ResponseEntity.ok(matchLogQueryService.getHeroItemsByMatch(matchId,heroName));
+	@ApiResponses(@ApiResponse(code = 200, message = "OK", response = HeroItem.class, responseContainer = "List"))
+	public ResponseEntity<byte[]> getHeroItems(@PathVariable("matchId") Long matchId,
+			@PathVariable("heroName") String heroName,
+			@RequestParam(name = "from", required = false) String from,
+			@RequestParam(name = "to", required = false) String to) {
+		var window = TimeWindow.parse(from, to);
+		return matchResponseCache.respond("items", matchId, heroName, window,
+				() -> matchLogQueryService.getHeroItemsByMatch(matchId, heroName, window));
 	}
 
 	/**
@@ -70,13 +201,20 @@ public class MatchController {
 	 *
 	 * @param matchId  the match identifier
 	 * @param heroName the hero name
+	 * @param from     optional start of the time window, {@code HH:MM:SS[.mmm]}, inclusive
+	 * @param to       optional end of the time window, {@code HH:MM:SS[.mmm]}, exclusive
 	 * @return a collection of spells cast by the hero and how many times they were
-	 *         cast
+	 *         cast, as {@link HeroSpells} JSON
 	 */
 	@GetMapping(path = "{matchId}/{heroName}/spells", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<List<HeroSpells>> getHeroSpells(@PathVariable("matchId") Long matchId,
-			@PathVariable("heroName") String heroName) {
-		return ResponseEntity.ok(matchLogQueryService.getHeroSpellsByMatchAndHero(matchId, heroName));
+	@ApiResponses(@ApiResponse(code = 200, message = "OK", response = HeroSpells.class, responseContainer = "List"))
+	public ResponseEntity<byte[]> getHeroSpells(@PathVariable("matchId") Long matchId,
+			@PathVariable("heroName") String heroName,
+			@RequestParam(name = "from", required = false) String from,
+			@RequestParam(name = "to", required = false) String to) {
+		var window = TimeWindow.parse(from, to);
+		return matchResponseCache.respond("spells", matchId, heroName, window,
+				() -> matchLogQueryService.getHeroSpellsByMatchAndHero(matchId, heroName, window));
 	}
 
 	/**
@@ -84,12 +222,27 @@ public class MatchController {
 	 *
 	 * @param matchId  the match identifier
 	 * @param heroName the hero name
+	 * @param from     optional start of the time window, {@code HH:MM:SS[.mmm]}, inclusive
+	 * @param to       optional end of the time window, {@code HH:MM:SS[.mmm]}, exclusive
 	 * @return a collection of "damage done" (target, number of times and total
-	 *         damage) elements
+	 *         damage) elements, as {@link HeroDamage} JSON
 	 */
 	@GetMapping(path = "{matchId}/{heroName}/damage", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<List<HeroDamage>> getHeroDamages(@PathVariable("matchId") Long matchId,
-			@PathVariable("heroName") String heroName) {
-		return ResponseEntity.ok(matchLogQueryService.getHeroDamageByMatch(matchId, heroName));
+	@ApiResponses(@ApiResponse(code = 200, message = "OK", response = HeroDamage.class, responseContainer = "List"))
+	public ResponseEntity<byte[]> getHeroDamages(@PathVariable("matchId") Long matchId,
+			@PathVariable("heroName") String heroName,
+			@RequestParam(name = "from", required = false) String from,
+			@RequestParam(name = "to", required = false) String to) {
+		var window = TimeWindow.parse(from, to);
+		return matchResponseCache.respond("damage", matchId, heroName, window,
+				() -> matchLogQueryService.getHeroDamageByMatch(matchId, heroName, window));
+	}
+
+	private static String content(MultipartFile log) {
+		try {
+			return new String(log.getBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException("The combat log " + log.getOriginalFilename() + " could not be read.", e);
+		}
 	}
 }
@@ -0,0 +1,68 @@
+package gg.bayes.challenge.config.rest.controller;
+
+import gg.bayes.challenge.business.service.stats.CrossMatchQueryService;
+import gg.bayes.challenge.config.rest.model.AbilityDamage;
+import gg.bayes.challenge.config.rest.model.HeroKillRate;
+import gg.bayes.challenge.config.rest.model.ItemPurchases;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.constraints.Min;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/stats")
+@Validated
+@RequiredArgsConstructor
+public class StatsController {
+
+	private final CrossMatchQueryService crossMatchQueryService;
+
+	/**
+	 * Fetches the number of matches ingested so far.
+	 *
+	 * @return the match count
+	 */
+	@GetMapping(path = "matches", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<Long> getMatchCount() {
+		return ResponseEntity.ok(crossMatchQueryService.getMatchCount());
+	}
+
+	/**
+	 * Fetches every hero with the matches they played, their kills and deaths across all matches.
+	 *
+	 * @return the heroes, by kills per match, descending
+	 */
+	@GetMapping(path = "heroes", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<HeroKillRate>> getHeroKillRates() {
+		return ResponseEntity.ok(crossMatchQueryService.getHeroKillRates());
+	}
+
+	/**
+	 * Fetches the items the named hero bought most often across all matches.
+	 *
+	 * @param heroName the hero name
+	 * @param limit    the maximum number of items returned
+	 * @return the items and how often they were bought, most purchased first
+	 */
+	@GetMapping(path = "heroes/{heroName}/items", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<ItemPurchases>> getMostPurchasedItems(@PathVariable("heroName") String heroName,
+			@RequestParam(name = "limit", defaultValue = "10") @Min(1) int limit) {
+		return ResponseEntity.ok(crossMatchQueryService.getMostPurchasedItems(heroName, limit));
+	}
+
+	/**
+	 * Fetches the damage done with every ability across all matches.
+	 *
+	 * @return the abilities with their hits, total and average damage, by average damage, descending
+	 */
+	@GetMapping(path = "abilities", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<List<AbilityDamage>> getAbilityDamage() {
+		return ResponseEntity.ok(crossMatchQueryService.getAbilityDamage());
+	}
+}
@@ -0,0 +1,193 @@
+package gg.bayes.challenge.config.rest.filter;
+
+import gg.bayes.challenge.common.file.Compression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Decompresses request bodies sent with a {@code Content-Encoding} of {@code gzip} or {@code zstd}. The body is
+ * decompressed while the controller reads it, so every endpoint that streams its body, such as a combat log upload,
+ * accepts compressed bodies without ever holding them whole. Other encodings are rejected with 415.
+ * <p>
+ * Multipart bodies are parsed by the container from the raw request and are not decompressed; compress the parts
+ * instead, e.g. by uploading a zip archive.
+ */
+@Component
+public class ContentEncodingFilter extends OncePerRequestFilter {
+
+	private static final String IDENTITY = "identity";
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+		if (encoding == null || encoding.isBlank() || IDENTITY.equalsIgnoreCase(encoding.trim())) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		var compression = Compression.forEncoding(encoding.trim());
+		if (compression.isEmpty()) {
+			response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(),
+					"Unsupported Content-Encoding " + encoding + ", use gzip or zstd.");
+			return;
+		}
+		filterChain.doFilter(new DecompressingRequest(request, compression.get()), response);
+	}
+
+	/**
+	 * The request as the controllers see it: a decompressed body of unknown length and no {@code Content-Encoding}.
+	 */
+	private static class DecompressingRequest extends HttpServletRequestWrapper {
+
+		private static final List<String> HIDDEN_HEADERS = List.of(HttpHeaders.CONTENT_ENCODING,
+				HttpHeaders.CONTENT_LENGTH);
+
+		private final Compression compression;
+		private ServletInputStream body;
+		private BufferedReader reader;
+
+		DecompressingRequest(HttpServletRequest request, Compression compression) {
+			super(request);
+			this.compression = compression;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() throws IOException {
+			if (reader != null) {
+				throw new IllegalStateException("getReader() has already been called for this request.");
+			}
+			return body();
+		}
+
+		@Override
+		public BufferedReader getReader() throws IOException {
+			if (reader == null) {
+				if (body != null) {
+					throw new IllegalStateException("getInputStream() has already been called for this request.");
+				}
+				String encoding = getCharacterEncoding();
+				Charset charset = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+				reader = new BufferedReader(new InputStreamReader(body(), charset));
+			}
+			return reader;
+		}
+
+		@Override
+		public int getContentLength() {
+			return -1;
+		}
+
+		@Override
+		public long getContentLengthLong() {
+			return -1;
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return isHidden(name) ? null : super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(String name) {
+			return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			var names = Collections.list(super.getHeaderNames());
+			names.removeIf(DecompressingRequest::isHidden);
+			return Collections.enumeration(names);
+		}
+
+		private ServletInputStream body() throws IOException {
+			if (body == null) {
+				body = new DecompressedInputStream(compression.decompress(getRequest().getInputStream()));
+			}
+			return body;
+		}
+
+		private static boolean isHidden(String name) {
+			return HIDDEN_HEADERS.stream().anyMatch(name::equalsIgnoreCase);
+		}
+	}
+
+	/**
+	 * The decompressed body, read blocking only: decompression pulls from the raw body as it goes, so data is never
+	 * known to be available without blocking and no {@link ReadListener} can be registered.
+	 */
+	private static class DecompressedInputStream extends ServletInputStream {
+
+		private final InputStream decompressed;
+		private boolean finished;
+
+		DecompressedInputStream(InputStream decompressed) {
+			this.decompressed = decompressed;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = decompressed.read();
+			finished = b < 0;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = decompressed.read(buffer, offset, length);
+			finished = read < 0;
+			return read;
+		}
+
+		@Override
+		public void close() throws IOException {
+			decompressed.close();
+		}
+
+		/**
+		 * @return whether a blocking read has reached the end of the decompressed body
+		 */
+		@Override
+		public boolean isFinished() {
+			return finished;
+		}
+
+		/**
+		 * @return always {@code true}, as the body is read blocking: a read waits for the compressed data it needs
+		 */
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		/**
+		 * Non-blocking reads are not supported for compressed bodies.
+		 *
+		 * @throws IllegalStateException always, as the request is not in non-blocking mode
+		 */
+		@Override
+		public void setReadListener(ReadListener readListener) {
+			throw new IllegalStateException("Compressed request bodies are read blocking, non-blocking reads are "
+					+ "not supported.");
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package gg.bayes.challenge.config.rest.filter;
+
+import gg.bayes.challenge.business.shard.MatchIdSpace;
+import gg.bayes.challenge.business.shard.ShardClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends every request about one match, {@code /api/match/{matchId}} and everything below it, to the node that owns
+ * the match, so any node can be asked about any match. Ingests stay on the node that receives them, which then owns
+ * the new match. Runs before the {@link ContentEncodingFilter}, so compressed bodies are forwarded as they came.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 100)
+@ConditionalOnProperty(prefix = "dota.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+	private static final Pattern MATCH_PATH = Pattern.compile("/api/match/(\\d{1,18})(/.*)?");
+
+	private final MatchIdSpace matchIdSpace;
+	private final ShardClient shardClient;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		Matcher matcher = MATCH_PATH.matcher(request.getRequestURI().substring(request.getContextPath().length()));
+		if (ShardClient.isForwarded(request) || !matcher.matches()) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		int owner = matchIdSpace.ownerOf(Long.parseLong(matcher.group(1)));
+		if (owner == matchIdSpace.getNodeIndex()) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		shardClient.forward(owner, request, response);
+	}
+
+}
@@ -0,0 +1,18 @@
+package gg.bayes.challenge.config.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+@Value
+public class AbilityDamage {
+    /**
+     * Ability name; {@code dota_unknown} stands for auto attacks.
+     */
+    String ability;
+    @JsonProperty("damage_instances")
+    Long damageInstances;
+    @JsonProperty("total_damage")
+    Long totalDamage;
+    @JsonProperty("average_damage")
+    Double averageDamage;
+}
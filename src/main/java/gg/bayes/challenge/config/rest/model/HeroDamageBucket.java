@@ -0,0 +1,17 @@
+package gg.bayes.challenge.config.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+@Value
+public class HeroDamageBucket {
+    String hero;
+    /**
+     * Minute of the match the damage was done in, counted from 0.
+     */
+    Integer minute;
+    @JsonProperty("damage_instances")
+    Integer damageInstances;
+    @JsonProperty("total_damage")
+    Integer totalDamage;
+}
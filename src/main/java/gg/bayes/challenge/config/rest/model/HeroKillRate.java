@@ -0,0 +1,17 @@
+package gg.bayes.challenge.config.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+@Value
+public class HeroKillRate {
+    String hero;
+    /**
+     * Number of ingested matches the hero took part in.
+     */
+    Long matches;
+    Long kills;
+    Long deaths;
+    @JsonProperty("kills_per_match")
+    Double killsPerMatch;
+}
@@ -0,0 +1,24 @@
+package gg.bayes.challenge.config.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IngestJobStatus {
+    @JsonProperty("job_id")
+    String jobId;
+    State state;
+    /**
+     * Share of the uploaded log that has been read, 0 to 100.
+     */
+    Integer progress;
+    @JsonProperty("match_id")
+    Long matchId;
+    String error;
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
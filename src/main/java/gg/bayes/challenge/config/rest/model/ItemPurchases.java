@@ -0,0 +1,9 @@
+package gg.bayes.challenge.config.rest.model;
+
+import lombok.Value;
+
+@Value
+public class ItemPurchases {
+    String item;
+    Long purchases;
+}
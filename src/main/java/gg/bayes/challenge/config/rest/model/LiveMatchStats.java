@@ -0,0 +1,44 @@
+package gg.bayes.challenge.config.rest.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Per-hero totals of a match pushed to live subscribers: the whole match in a {@code snapshot} event, then only
+ * what was added since the previous push in each {@code delta} event.
+ */
+@Value
+public class LiveMatchStats {
+    @JsonProperty("match_id")
+    Long matchId;
+    List<HeroKills> kills;
+    List<SpellCasts> spells;
+    List<TargetDamage> damage;
+    List<ItemCount> items;
+
+    @Value
+    public static class SpellCasts {
+        String hero;
+        String spell;
+        Integer casts;
+    }
+
+    @Value
+    public static class TargetDamage {
+        String hero;
+        String target;
+        @JsonProperty("damage_instances")
+        Integer damageInstances;
+        @JsonProperty("total_damage")
+        Long totalDamage;
+    }
+
+    @Value
+    public static class ItemCount {
+        String hero;
+        String item;
+        Integer purchases;
+    }
+}
@@ -0,0 +1,259 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable match held as parallel primitive columns, one slot per stored event, ordered by timestamp. Names are
+ * encoded against a dictionary local to the match; {@link #NO_NAME} marks a column that does not apply to the
+ * event type, and {@link #NO_VALUE} a missing damage.
+ * <p>
+ * Built once with a {@link Builder} and never changed afterwards, so it can be scanned by any number of threads.
+ */
+@Getter
+public class ColumnarMatch {
+
+	public static final int NO_NAME = -1;
+	public static final int NO_VALUE = 0;
+
+	private static final CombatLogEntryEntity.Type[] TYPES = CombatLogEntryEntity.Type.values();
+
+	private final Long id;
+	private final int size;
+	private final long[] timestamps;
+	private final byte[] types;
+	private final int[] actors;
+	private final int[] targets;
+	private final int[] abilities;
+	private final int[] items;
+	private final int[] damage;
+	private final String[] names;
+
+	@Getter(AccessLevel.NONE)
+	private final Map<String, Integer> nameIds;
+
+	public ColumnarMatch(Long id, int size, long[] timestamps, byte[] types, int[] actors, int[] targets,
+			int[] abilities, int[] items, int[] damage, String[] names) {
+		this.id = id;
+		this.size = size;
+		this.timestamps = timestamps;
+		this.types = types;
+		this.actors = actors;
+		this.targets = targets;
+		this.abilities = abilities;
+		this.items = items;
+		this.damage = damage;
+		this.names = names;
+		this.nameIds = new HashMap<>(names.length * 2);
+		for (int i = 0; i < names.length; i++) {
+			nameIds.put(names[i], i);
+		}
+	}
+
+	public static byte typeCode(CombatLogEntryEntity.Type type) {
+		return (byte) type.ordinal();
+	}
+
+	public CombatLogEntryEntity.Type type(int row) {
+		return TYPES[types[row]];
+	}
+
+	/**
+	 * @return the local id of the name, or {@link #NO_NAME} if no event of this match references it
+	 */
+	public int nameId(String name) {
+		return nameIds.getOrDefault(name, NO_NAME);
+	}
+
+	public String name(int nameId) {
+		return names[nameId];
+	}
+
+	/**
+	 * Binary search over the sorted timestamp column.
+	 *
+	 * @return the first row whose timestamp is at least the given one, or {@link #size} if there is none
+	 */
+	public int lowerBound(long timestamp) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (timestamps[middle] < timestamp) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Collects parsed entries into columns. Entries may arrive slightly out of timestamp order across chunks; they
+	 * are stably sorted once when the match is built.
+	 */
+	public static class Builder {
+
+		private static final int INITIAL_CAPACITY = 1024;
+
+		private int size;
+		private long[] timestamps = new long[INITIAL_CAPACITY];
+		private byte[] types = new byte[INITIAL_CAPACITY];
+		private int[] actors = new int[INITIAL_CAPACITY];
+		private int[] targets = new int[INITIAL_CAPACITY];
+		private int[] abilities = new int[INITIAL_CAPACITY];
+		private int[] items = new int[INITIAL_CAPACITY];
+		private int[] damage = new int[INITIAL_CAPACITY];
+		private final List<String> names = new ArrayList<>();
+		private final Map<String, Integer> nameIds = new HashMap<>();
+		private boolean sorted = true;
+
+		public Builder() {
+		}
+
+		/**
+		 * Starts from the columns of a stored match, for appending events to it.
+		 */
+		public Builder(ColumnarMatch match) {
+			int capacity = Math.max(INITIAL_CAPACITY, match.size * 2);
+			size = match.size;
+			timestamps = Arrays.copyOf(match.timestamps, capacity);
+			types = Arrays.copyOf(match.types, capacity);
+			actors = Arrays.copyOf(match.actors, capacity);
+			targets = Arrays.copyOf(match.targets, capacity);
+			abilities = Arrays.copyOf(match.abilities, capacity);
+			items = Arrays.copyOf(match.items, capacity);
+			damage = Arrays.copyOf(match.damage, capacity);
+			names.addAll(Arrays.asList(match.names));
+			nameIds.putAll(match.nameIds);
+		}
+
+		public Builder add(CombatLogEntryEntity entry) {
+			if (size == timestamps.length) {
+				grow();
+			}
+			if (size > 0 && entry.getTimestamp() < timestamps[size - 1]) {
+				sorted = false;
+			}
+			timestamps[size] = entry.getTimestamp();
+			types[size] = typeCode(entry.getType());
+			actors[size] = encode(entry.getActor());
+			targets[size] = encode(entry.getTarget());
+			abilities[size] = encode(entry.getAbility());
+			items[size] = encode(entry.getItem());
+			damage[size] = entry.getDamage() == null ? NO_VALUE : entry.getDamage();
+			size++;
+			return this;
+		}
+
+		/**
+		 * Adds every event of another match, e.g. the events appended to the match this builder started from.
+		 */
+		public Builder addAll(ColumnarMatch match) {
+			for (int row = 0; row < match.size; row++) {
+				if (size == timestamps.length) {
+					grow();
+				}
+				if (size > 0 && match.timestamps[row] < timestamps[size - 1]) {
+					sorted = false;
+				}
+				timestamps[size] = match.timestamps[row];
+				types[size] = match.types[row];
+				actors[size] = encode(match, match.actors[row]);
+				targets[size] = encode(match, match.targets[row]);
+				abilities[size] = encode(match, match.abilities[row]);
+				items[size] = encode(match, match.items[row]);
+				damage[size] = match.damage[row];
+				size++;
+			}
+			return this;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public ColumnarMatch build(Long id) {
+			if (!sorted) {
+				sortByTimestamp();
+			}
+			return new ColumnarMatch(id, size, Arrays.copyOf(timestamps, size), Arrays.copyOf(types, size),
+					Arrays.copyOf(actors, size), Arrays.copyOf(targets, size), Arrays.copyOf(abilities, size),
+					Arrays.copyOf(items, size), Arrays.copyOf(damage, size), names.toArray(new String[0]));
+		}
+
+		private int encode(String name) {
+			if (name == null) {
+				return NO_NAME;
+			}
+			return nameIds.computeIfAbsent(name, missing -> {
+				names.add(missing);
+				return names.size() - 1;
+			});
+		}
+
+		private int encode(ColumnarMatch match, int nameId) {
+			return nameId == NO_NAME ? NO_NAME : encode(match.names[nameId]);
+		}
+
+		private void grow() {
+			int capacity = timestamps.length * 2;
+			timestamps = Arrays.copyOf(timestamps, capacity);
+			types = Arrays.copyOf(types, capacity);
+			actors = Arrays.copyOf(actors, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			abilities = Arrays.copyOf(abilities, capacity);
+			items = Arrays.copyOf(items, capacity);
+			damage = Arrays.copyOf(damage, capacity);
+		}
+
+		private void sortByTimestamp() {
+			int[] order = IntStream.range(0, size)
+					.boxed()
+					.sorted(Comparator.comparingLong(row -> timestamps[row]))
+					.mapToInt(Integer::intValue)
+					.toArray();
+			timestamps = permute(timestamps, order);
+			types = permute(types, order);
+			actors = permute(actors, order);
+			targets = permute(targets, order);
+			abilities = permute(abilities, order);
+			items = permute(items, order);
+			damage = permute(damage, order);
+		}
+
+		private static long[] permute(long[] column, int[] order) {
+			long[] result = new long[order.length];
+			for (int i = 0; i < order.length; i++) {
+				result[i] = column[order[i]];
+			}
+			return result;
+		}
+
+		private static int[] permute(int[] column, int[] order) {
+			int[] result = new int[order.length];
+			for (int i = 0; i < order.length; i++) {
+				result[i] = column[order[i]];
+			}
+			return result;
+		}
+
+		private static byte[] permute(byte[] column, int[] order) {
+			byte[] result = new byte[order.length];
+			for (int i = 0; i < order.length; i++) {
+				result[i] = column[order[i]];
+			}
+			return result;
+		}
+
+	}
+
+}
@@ -0,0 +1,53 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.Value;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The totals a stored part of a columnar match adds to the cross-match statistics: the heroes that take part in it,
+ * kills and deaths per hero, purchases per hero and item, and damage instances and total per ability. It is stored
+ * next to the columns, so the heroes of a match and its share of the cross-match totals are known without decoding
+ * its events.
+ * <p>
+ * The summary of appended events only lists the heroes that join the match with them.
+ */
+@Value
+public class ColumnarMatchSummary {
+
+	Set<String> heroes;
+	Map<String, Integer> kills;
+	Map<String, Integer> deaths;
+	Map<String, Map<String, Integer>> purchases;
+	Map<String, long[]> abilityDamage;
+
+	/**
+	 * @return one summary holding the totals of all the given ones, e.g. of a match and the events appended to it
+	 */
+	public static ColumnarMatchSummary merge(List<ColumnarMatchSummary> summaries) {
+		Set<String> heroes = new HashSet<>();
+		Map<String, Integer> kills = new HashMap<>();
+		Map<String, Integer> deaths = new HashMap<>();
+		Map<String, Map<String, Integer>> purchases = new HashMap<>();
+		Map<String, long[]> abilityDamage = new HashMap<>();
+		for (var summary : summaries) {
+			heroes.addAll(summary.heroes);
+			summary.kills.forEach((hero, count) -> kills.merge(hero, count, Integer::sum));
+			summary.deaths.forEach((hero, count) -> deaths.merge(hero, count, Integer::sum));
+			summary.purchases.forEach((hero, items) -> items.forEach((item, count) -> purchases
+					.computeIfAbsent(hero, key -> new HashMap<>())
+					.merge(item, count, Integer::sum)));
+			summary.abilityDamage.forEach((ability, totals) -> {
+				long[] merged = abilityDamage.computeIfAbsent(ability, key -> new long[2]);
+				merged[0] += totals[0];
+				merged[1] += totals[1];
+			});
+		}
+		return new ColumnarMatchSummary(heroes, kills, deaths, purchases, abilityDamage);
+	}
+
+}
@@ -8,14 +8,23 @@ import javax.validation.constraints.NotNull;
 @Getter
 @Setter
 @Entity
-@Table(name = "dota_combat_log")
+@Table(name = "dota_combat_log", indexes = {
+		@Index(name = "idx_dota_combat_log_match_type_actor",
+				columnList = "match_id, entry_type, actor_id, entry_timestamp"),
+		@Index(name = "idx_dota_combat_log_match_type_timestamp", columnList = "match_id, entry_type, entry_timestamp") })
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class CombatLogEntryEntity {
 
+	/**
+	 * Ids reserved per sequence call. Hibernate is configured for the pooled-lo optimizer, so a sequence value
+	 * {@code v} owns the ids {@code v .. v + ID_ALLOCATION_SIZE - 1}.
+	 */
+	public static final int ID_ALLOCATION_SIZE = 50;
+
 	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dota_combat_log_sequence_generator")
-	@SequenceGenerator(name = "dota_combat_log_sequence_generator", sequenceName = "dota_combat_log_sequence", allocationSize = 1)
+	@SequenceGenerator(name = "dota_combat_log_sequence_generator", sequenceName = "dota_combat_log_sequence", allocationSize = ID_ALLOCATION_SIZE)
 	@Id
 	@Column(name = "id")
 	private Long id;
@@ -32,19 +41,36 @@ public class CombatLogEntryEntity {
 	@Enumerated(EnumType.STRING)
 	private Type type;
 
-	@Column(name = "actor")
+	/*
+	 * Hero, ability and item names are stored once in dota_name and referenced by id. The name fields carry the
+	 * parsed names between the tokenizer and the writer and are not persisted.
+	 */
+
+	@Column(name = "actor_id")
+	private Integer actorId;
+
+	@Column(name = "target_id")
+	private Integer targetId;
+
+	@Column(name = "ability_id")
+	private Integer abilityId;
+
+	@Column(name = "item_id")
+	private Integer itemId;
+
+	@Transient
 	private String actor;
 
-	@Column(name = "target")
+	@Transient
 	private String target;
 
-	@Column(name = "ability")
+	@Transient
 	private String ability;
 
 	@Column(name = "ability_level")
 	private Integer abilityLevel;
 
-	@Column(name = "item")
+	@Transient
 	private String item;
 
 	@Column(name = "damage")
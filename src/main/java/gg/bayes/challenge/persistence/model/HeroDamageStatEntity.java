@@ -0,0 +1,39 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Damage done by a hero to one target in one match, aggregated at ingest time.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "dota_hero_damage_stat", uniqueConstraints = @UniqueConstraint(columnNames = { "match_id", "hero", "target" }))
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HeroDamageStatEntity {
+
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dota_hero_damage_stat_sequence_generator")
+	@SequenceGenerator(name = "dota_hero_damage_stat_sequence_generator", sequenceName = "dota_hero_damage_stat_sequence", allocationSize = CombatLogEntryEntity.ID_ALLOCATION_SIZE)
+	@Id
+	@Column(name = "id")
+	private Long id;
+
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
+	private MatchEntity match;
+
+	@Column(name = "hero", nullable = false)
+	private String hero;
+
+	@Column(name = "target", nullable = false)
+	private String target;
+
+	@Column(name = "damage_instances", nullable = false)
+	private int damageInstances;
+
+	@Column(name = "total_damage", nullable = false)
+	private long totalDamage;
+}
@@ -0,0 +1,36 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Number of casts of one ability by a hero in one match, aggregated at ingest time.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "dota_hero_spell_stat", uniqueConstraints = @UniqueConstraint(columnNames = { "match_id", "hero", "ability" }))
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HeroSpellStatEntity {
+
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dota_hero_spell_stat_sequence_generator")
+	@SequenceGenerator(name = "dota_hero_spell_stat_sequence_generator", sequenceName = "dota_hero_spell_stat_sequence", allocationSize = CombatLogEntryEntity.ID_ALLOCATION_SIZE)
+	@Id
+	@Column(name = "id")
+	private Long id;
+
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
+	private MatchEntity match;
+
+	@Column(name = "hero", nullable = false)
+	private String hero;
+
+	@Column(name = "ability", nullable = false)
+	private String ability;
+
+	@Column(name = "casts", nullable = false)
+	private int casts;
+}
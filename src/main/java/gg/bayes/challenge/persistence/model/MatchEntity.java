@@ -1,10 +1,15 @@
 package gg.bayes.challenge.persistence.model;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.*;
 import javax.validation.constraints.AssertTrue;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 @Getter
@@ -20,15 +25,46 @@ public class MatchEntity {
             strategy = GenerationType.SEQUENCE,
             generator = "dota_match_sequence_generator"
     )
-    @SequenceGenerator(
+    @GenericGenerator(
             name = "dota_match_sequence_generator",
-            sequenceName = "dota_match_sequence",
-            allocationSize = 1
+            strategy = "gg.bayes.challenge.persistence.model.MatchIdGenerator",
+            parameters = {
+                    @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "dota_match_sequence"),
+                    @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM,
+                            value = "" + CombatLogEntryEntity.ID_ALLOCATION_SIZE)
+            }
     )
     @Id
     @Column(name = "id")
     private Long id;
 
     @OneToMany(mappedBy = "match", cascade = CascadeType.PERSIST)
-    private Set<CombatLogEntryEntity> combatLogEntries = new HashSet<>();
+    @OrderBy("timestamp ASC, id ASC")
+    @Builder.Default
+    private List<CombatLogEntryEntity> combatLogEntries = new ArrayList<>();
+
+    /**
+     * SHA-256 of the normalized combat log the match was imported from, so a repeated upload of the same log can be
+     * answered with this match; {@code null} when deduplication was off.
+     */
+    @Column(name = "content_hash", length = 64, unique = true)
+    private String contentHash;
+
+    /**
+     * Timestamp of the latest stored event and the number of events stored at it; appends resume from here.
+     */
+    @Column(name = "last_event_timestamp")
+    private Long lastEventTimestamp;
+
+    @Column(name = "events_at_last_timestamp")
+    private Integer eventsAtLastTimestamp;
+
+    /**
+     * Heroes with at least one stored event, so an append can tell which heroes join the match with it.
+     */
+    @ElementCollection
+    @CollectionTable(name = "dota_match_hero", joinColumns = @JoinColumn(name = "match_id"))
+    @Column(name = "hero", nullable = false)
+    @Builder.Default
+    private Set<String> heroes = new HashSet<>();
 }
\ No newline at end of file
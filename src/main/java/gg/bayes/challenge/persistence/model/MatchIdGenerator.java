@@ -0,0 +1,39 @@
+package gg.bayes.challenge.persistence.model;
+
+import gg.bayes.challenge.business.shard.MatchIdSpace;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+/**
+ * Draws match ids from {@code dota_match_sequence}, turned into ids of this node by the {@link MatchIdSpace}. The id
+ * space is passed in as the Hibernate setting {@value #ID_SPACE_SETTING}.
+ */
+public class MatchIdGenerator extends SequenceStyleGenerator {
+
+	public static final String ID_SPACE_SETTING = "dota.match-id-space";
+
+	private MatchIdSpace matchIdSpace;
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+		super.configure(type, params, serviceRegistry);
+		Object setting = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ID_SPACE_SETTING);
+		if (!(setting instanceof MatchIdSpace)) {
+			throw new MappingException("The Hibernate setting " + ID_SPACE_SETTING + " must hold the match id space");
+		}
+		this.matchIdSpace = (MatchIdSpace) setting;
+	}
+
+	@Override
+	public Serializable generate(SharedSessionContractImplementor session, Object object) {
+		return matchIdSpace.allocate(((Number) super.generate(session, object)).longValue());
+	}
+
+}
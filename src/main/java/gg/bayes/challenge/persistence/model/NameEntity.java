@@ -0,0 +1,28 @@
+package gg.bayes.challenge.persistence.model;
+
+import lombok.*;
+
+import javax.persistence.*;
+
+/**
+ * Dictionary of hero, ability and item names. Combat log entries reference names by this id instead of repeating
+ * the string on every row.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "dota_name", uniqueConstraints = @UniqueConstraint(columnNames = "name"))
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class NameEntity {
+
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dota_name_sequence_generator")
+	@SequenceGenerator(name = "dota_name_sequence_generator", sequenceName = "dota_name_sequence", allocationSize = 1)
+	@Id
+	@Column(name = "id")
+	private Integer id;
+
+	@Column(name = "name", nullable = false)
+	private String name;
+}
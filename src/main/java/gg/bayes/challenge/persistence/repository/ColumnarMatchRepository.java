@@ -0,0 +1,47 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.ColumnarMatch;
+import gg.bayes.challenge.persistence.model.ColumnarMatchSummary;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage for matches held as {@link ColumnarMatch} columns; the columnar counterpart of {@link MatchRepository}
+ * and {@link CombatLogEntryRepository}.
+ */
+public interface ColumnarMatchRepository {
+
+	/**
+	 * @return the next value of the match id sequence, one that has not been handed out before
+	 */
+	Long nextId();
+
+	/**
+	 * Stores a new match together with the summary of its events.
+	 */
+	void save(ColumnarMatch match, ColumnarMatchSummary summary);
+
+	/**
+	 * Stores events appended to a stored match.
+	 *
+	 * @param match    the whole match after the append, as it is to be served from now on
+	 * @param appended only the appended events
+	 * @param summary  the summary of the appended events
+	 */
+	void append(ColumnarMatch match, ColumnarMatch appended, ColumnarMatchSummary summary);
+
+	Optional<ColumnarMatch> findById(Long matchId);
+
+	/**
+	 * @return the summaries stored with the match, the one of the match as first imported, possibly merged with
+	 * later appends, followed by those of the appends stored since; empty if the match is not stored
+	 */
+	List<ColumnarMatchSummary> findSummaries(Long matchId);
+
+	/**
+	 * @return the ids of all stored matches, ascending
+	 */
+	List<Long> findAllIds();
+
+}
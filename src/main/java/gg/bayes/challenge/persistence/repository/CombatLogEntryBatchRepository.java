@@ -0,0 +1,77 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bulk write path for {@code dota_combat_log}. Rows go out as one JDBC statement batch per call and ids are
+ * taken from {@code dota_combat_log_sequence} in blocks of {@link CombatLogEntryEntity#ID_ALLOCATION_SIZE}, the
+ * same pooled-lo scheme Hibernate uses for the entity, so both paths can share the sequence.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CombatLogEntryBatchRepository {
+
+	private static final String NEXT_ID_BLOCK_SQL = "SELECT NEXT VALUE FOR dota_combat_log_sequence";
+	private static final String INSERT_SQL = "INSERT INTO dota_combat_log (id, match_id, entry_timestamp, "
+			+ "entry_type, actor_id, target_id, ability_id, ability_level, item_id, damage) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * A lock rather than {@code synchronized}: the sequence is read over JDBC while it is held, which would pin the
+	 * carrier of a virtual thread.
+	 */
+	private final ReentrantLock idLock = new ReentrantLock();
+	private long nextId;
+	private long blockEnd;
+
+	/**
+	 * Inserts the entries for the given match, assigning their ids.
+	 *
+	 * @param matchId the id of an already flushed match row
+	 * @param entries the entries to insert, with their names already encoded
+	 * @return the number of rows written
+	 */
+	public int insertAll(Long matchId, List<CombatLogEntryEntity> entries) {
+		if (entries.isEmpty()) {
+			return 0;
+		}
+		allocateIds(entries);
+		jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+			ps.setLong(1, entry.getId());
+			ps.setLong(2, matchId);
+			ps.setLong(3, entry.getTimestamp());
+			ps.setString(4, entry.getType().name());
+			ps.setObject(5, entry.getActorId(), Types.INTEGER);
+			ps.setObject(6, entry.getTargetId(), Types.INTEGER);
+			ps.setObject(7, entry.getAbilityId(), Types.INTEGER);
+			ps.setObject(8, entry.getAbilityLevel(), Types.INTEGER);
+			ps.setObject(9, entry.getItemId(), Types.INTEGER);
+			ps.setObject(10, entry.getDamage(), Types.INTEGER);
+		});
+		return entries.size();
+	}
+
+	private void allocateIds(List<CombatLogEntryEntity> entries) {
+		idLock.lock();
+		try {
+			for (var entry : entries) {
+				if (nextId == blockEnd) {
+					nextId = jdbcTemplate.queryForObject(NEXT_ID_BLOCK_SQL, Long.class);
+					blockEnd = nextId + CombatLogEntryEntity.ID_ALLOCATION_SIZE;
+				}
+				entry.setId(nextId++);
+			}
+		} finally {
+			idLock.unlock();
+		}
+	}
+
+}
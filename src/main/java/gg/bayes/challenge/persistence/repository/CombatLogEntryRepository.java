@@ -1,18 +1,111 @@
 package gg.bayes.challenge.persistence.repository;
 
+import gg.bayes.challenge.config.rest.model.HeroDamage;
+import gg.bayes.challenge.config.rest.model.HeroDamageBucket;
+import gg.bayes.challenge.config.rest.model.HeroItem;
+import gg.bayes.challenge.config.rest.model.HeroKills;
+import gg.bayes.challenge.config.rest.model.HeroSpells;
 import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
+/**
+ * Hero, ability and item names live in {@code dota_name}; queries take the actor's dictionary id and join the
+ * dictionary only for the names they return.
+ * <p>
+ * The windowed queries select {@code from <= timestamp < to}. Both indexes end in {@code entry_timestamp}, so the
+ * window is a range scan of the index rather than a filter over the rows of the match.
+ */
 @Repository
 public interface CombatLogEntryRepository extends JpaRepository<CombatLogEntryEntity, Long> {
-	// TODO: add the necessary methods for your solution
 
 	List<CombatLogEntryEntity> findAllByMatchIdAndType(Long matchId, CombatLogEntryEntity.Type type);
 
-	List<CombatLogEntryEntity> findAllByMatchIdAndActorAndType(Long matchId, String heroName,
+	List<CombatLogEntryEntity> findAllByMatchIdAndActorIdAndType(Long matchId, Integer actorId,
 			CombatLogEntryEntity.Type type);
 
+	long countByMatchId(Long matchId);
+
+	long countByMatchIdAndType(Long matchId, CombatLogEntryEntity.Type type);
+
+	@Query("SELECT new gg.bayes.challenge.config.rest.model.HeroKills(n.name, CAST(COUNT(e) AS integer)) "
+			+ "FROM CombatLogEntryEntity e, NameEntity n "
+			+ "WHERE e.match.id = :matchId AND e.type = gg.bayes.challenge.persistence.model.CombatLogEntryEntity$Type.HERO_KILLED "
+			+ "AND n.id = e.actorId "
+			+ "GROUP BY n.name")
+	List<HeroKills> countHeroKills(@Param("matchId") Long matchId);
+
+	@Query("SELECT new gg.bayes.challenge.config.rest.model.HeroSpells(n.name, CAST(COUNT(e) AS integer)) "
+			+ "FROM CombatLogEntryEntity e, NameEntity n "
+			+ "WHERE e.match.id = :matchId AND e.type = gg.bayes.challenge.persistence.model.CombatLogEntryEntity$Type.SPELL_CAST "
+			+ "AND e.actorId = :actorId AND n.id = e.abilityId "
+			+ "GROUP BY n.name")
+	List<HeroSpells> countHeroSpells(@Param("matchId") Long matchId, @Param("actorId") Integer actorId);
+
+	@Query("SELECT new gg.bayes.challenge.config.rest.model.HeroDamage(n.name, CAST(COUNT(e) AS integer), "
+			+ "CAST(SUM(e.damage) AS integer)) "
+			+ "FROM CombatLogEntryEntity e, NameEntity n "
+			+ "WHERE e.match.id = :matchId AND e.type = gg.bayes.challenge.persistence.model.CombatLogEntryEntity$Type.DAMAGE_DONE "
+			+ "AND e.actorId = :actorId AND n.id = e.targetId "
+			+ "GROUP BY n.name")
+	List<HeroDamage> sumHeroDamage(@Param("matchId") Long matchId, @Param("actorId") Integer actorId);
+
+	@Query("SELECT new gg.bayes.challenge.config.rest.model.HeroItem(n.name, e.timestamp) "
+			+ "FROM CombatLogEntryEntity e, NameEntity n "
+			+ "WHERE e.match.id = :matchId AND e.type = gg.bayes.challenge.persistence.model.CombatLogEntryEntity$Type.ITEM_PURCHASED "
+			+ "AND e.actorId = :actorId AND n.id = e.itemId "
+			+ "ORDER BY e.timestamp, e.id")
+	List<HeroItem> findHeroItems(@Param("matchId") Long matchId, @Param("actorId") Integer actorId);
+
+	@Query("SELECT new gg.bayes.challenge.config.rest.model.HeroKills(n.name, CAST(COUNT(e) AS integer)) "
+			+ "FROM CombatLogEntryEntity e, NameEntity n "
+			+ "WHERE e.match.id = :matchId AND e.type = gg.bayes.challenge.persistence.model.CombatLogEntryEntity$Type.HERO_KILLED "
+			+ "AND e.timestamp >= :from AND e.timestamp < :to "
+			+ "AND n.id = e.actorId "
+			+ "GROUP BY n.name")
+	List<HeroKills> countHeroKills(@Param("matchId") Long matchId, @Param("from") long from, @Param("to") long to);
+
+	@Query("SELECT new gg.bayes.challenge.config.rest.model.HeroSpells(n.name, CAST(COUNT(e) AS integer)) "
+			+ "FROM CombatLogEntryEntity e, NameEntity n "
+			+ "WHERE e.match.id = :matchId AND e.type = gg.bayes.challenge.persistence.model.CombatLogEntryEntity$Type.SPELL_CAST "
+			+ "AND e.actorId = :actorId "
+			+ "AND e.timestamp >= :from AND e.timestamp < :to "
+			+ "AND n.id = e.abilityId "
+			+ "GROUP BY n.name")
+	List<HeroSpells> countHeroSpells(@Param("matchId") Long matchId, @Param("actorId") Integer actorId, @Param("from") long from, @Param("to") long to);
+
+	@Query("SELECT new gg.bayes.challenge.config.rest.model.HeroDamage(n.name, CAST(COUNT(e) AS integer), "
+			+ "CAST(SUM(e.damage) AS integer)) "
+			+ "FROM CombatLogEntryEntity e, NameEntity n "
+			+ "WHERE e.match.id = :matchId AND e.type = gg.bayes.challenge.persistence.model.CombatLogEntryEntity$Type.DAMAGE_DONE "
+			+ "AND e.actorId = :actorId "
+			+ "AND e.timestamp >= :from AND e.timestamp < :to "
+			+ "AND n.id = e.targetId "
+			+ "GROUP BY n.name")
+	List<HeroDamage> sumHeroDamage(@Param("matchId") Long matchId, @Param("actorId") Integer actorId, @Param("from") long from, @Param("to") long to);
+
+	@Query("SELECT new gg.bayes.challenge.config.rest.model.HeroItem(n.name, e.timestamp) "
+			+ "FROM CombatLogEntryEntity e, NameEntity n "
+			+ "WHERE e.match.id = :matchId AND e.type = gg.bayes.challenge.persistence.model.CombatLogEntryEntity$Type.ITEM_PURCHASED "
+			+ "AND e.actorId = :actorId "
+			+ "AND e.timestamp >= :from AND e.timestamp < :to "
+			+ "AND n.id = e.itemId "
+			+ "ORDER BY e.timestamp, e.id")
+	List<HeroItem> findHeroItems(@Param("matchId") Long matchId, @Param("actorId") Integer actorId, @Param("from") long from, @Param("to") long to);
+
+	@Query("SELECT new gg.bayes.challenge.config.rest.model.HeroDamageBucket(n.name, "
+			+ "CAST(e.timestamp / 60000 AS integer), CAST(COUNT(e) AS integer), CAST(SUM(e.damage) AS integer)) "
+			+ "FROM CombatLogEntryEntity e, NameEntity n "
+			+ "WHERE e.match.id = :matchId AND e.type = gg.bayes.challenge.persistence.model.CombatLogEntryEntity$Type.DAMAGE_DONE "
+			+ "AND e.timestamp >= :from AND e.timestamp < :to "
+			+ "AND n.id = e.actorId "
+			+ "GROUP BY n.name, CAST(e.timestamp / 60000 AS integer) "
+			+ "ORDER BY CAST(e.timestamp / 60000 AS integer), n.name")
+	List<HeroDamageBucket> sumHeroDamagePerMinute(@Param("matchId") Long matchId, @Param("from") long from,
+			@Param("to") long to);
+
 }
@@ -0,0 +1,16 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.HeroDamageStatEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HeroDamageStatRepository extends JpaRepository<HeroDamageStatEntity, Long> {
+
+	List<HeroDamageStatEntity> findAllByMatchId(Long matchId);
+
+	List<HeroDamageStatEntity> findAllByMatchIdAndHero(Long matchId, String hero);
+
+}
@@ -0,0 +1,14 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.HeroKillStatEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HeroKillStatRepository extends JpaRepository<HeroKillStatEntity, Long> {
+
+	List<HeroKillStatEntity> findAllByMatchId(Long matchId);
+
+}
@@ -0,0 +1,21 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.HeroSpellStatEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HeroSpellStatRepository extends JpaRepository<HeroSpellStatEntity, Long> {
+
+	List<HeroSpellStatEntity> findAllByMatchId(Long matchId);
+
+	List<HeroSpellStatEntity> findAllByMatchIdAndHero(Long matchId, String hero);
+
+	@Query("SELECT DISTINCT s.hero FROM HeroSpellStatEntity s WHERE s.match.id = :matchId ORDER BY s.hero")
+	List<String> findHeroesByMatchId(@Param("matchId") Long matchId);
+
+}
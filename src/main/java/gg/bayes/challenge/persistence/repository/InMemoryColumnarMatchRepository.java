@@ -0,0 +1,55 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.ColumnarMatch;
+import gg.bayes.challenge.persistence.model.ColumnarMatchSummary;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps every columnar match on the heap for the lifetime of the application.
+ */
+public class InMemoryColumnarMatchRepository implements ColumnarMatchRepository {
+
+	private final AtomicLong ids = new AtomicLong();
+	private final ConcurrentMap<Long, ColumnarMatch> matches = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Long, List<ColumnarMatchSummary>> summaries = new ConcurrentHashMap<>();
+
+	@Override
+	public Long nextId() {
+		return ids.incrementAndGet();
+	}
+
+	@Override
+	public void save(ColumnarMatch match, ColumnarMatchSummary summary) {
+		summaries.put(match.getId(), new CopyOnWriteArrayList<>(List.of(summary)));
+		matches.put(match.getId(), match);
+	}
+
+	@Override
+	public void append(ColumnarMatch match, ColumnarMatch appended, ColumnarMatchSummary summary) {
+		summaries.get(match.getId()).add(summary);
+		matches.put(match.getId(), match);
+	}
+
+	@Override
+	public Optional<ColumnarMatch> findById(Long matchId) {
+		return Optional.ofNullable(matches.get(matchId));
+	}
+
+	@Override
+	public List<ColumnarMatchSummary> findSummaries(Long matchId) {
+		return List.copyOf(summaries.getOrDefault(matchId, List.of()));
+	}
+
+	@Override
+	public List<Long> findAllIds() {
+		return matches.keySet().stream().sorted().collect(Collectors.toList());
+	}
+
+}
@@ -2,8 +2,29 @@ package gg.bayes.challenge.persistence.repository;
 
 import gg.bayes.challenge.persistence.model.MatchEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
 @Repository
 public interface MatchRepository extends JpaRepository<MatchEntity, Long> {
+
+	/**
+	 * Loads the match and holds a row lock on it until the transaction ends, so appends to one match run one at a
+	 * time.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT m FROM MatchEntity m WHERE m.id = :matchId")
+	Optional<MatchEntity> findByIdForUpdate(@Param("matchId") Long matchId);
+
+	/**
+	 * @return the id of the match imported from a log with the given content hash
+	 */
+	@Query("SELECT m.id FROM MatchEntity m WHERE m.contentHash = :contentHash")
+	Optional<Long> findIdByContentHash(@Param("contentHash") String contentHash);
+
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.persistence.model.ColumnarMatch;
+import gg.bayes.challenge.persistence.model.ColumnarMatchSummary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary layout of one match segment file. All numbers are big-endian, strings are a byte length (int) followed by
+ * UTF-8 bytes.
+ *
+ * <pre>
+ * header      magic "DOTA" (int), version (short), match id (long), sequence (int), event count (int),
+ *             name count (int), summary offset (long)
+ * events      event count fixed-width records of {@value #RECORD_BYTES} bytes, in timestamp order:
+ *             timestamp (long), type (byte), actor, target, ability, item (int name ids, -1 for none), damage (int)
+ * dictionary  name count strings; the n-th entry is name id n
+ * summary     heroes: count (int) and names; kills and deaths: count (int) and hero, count (int) pairs;
+ *             purchases: count (int) and hero, item, count (int) triples; ability damage: count (int) and
+ *             ability, instances (long), total (long) triples
+ * </pre>
+ * The sequence numbers the delta segments of a match: a delta holds its own number, a full segment the number of the
+ * last delta folded into it. The summary offset lets the summary be read without decoding the events.
+ */
+final class MatchSegmentCodec {
+
+	static final int MAGIC = 0x444F5441;
+	static final short VERSION = 2;
+	static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES
+			+ Integer.BYTES + Long.BYTES;
+	static final int RECORD_BYTES = Long.BYTES + Byte.BYTES + 5 * Integer.BYTES;
+
+	private static final int SEQUENCE_OFFSET = Integer.BYTES + Short.BYTES + Long.BYTES;
+	private static final int SUMMARY_OFFSET = HEADER_BYTES - Long.BYTES;
+
+	private MatchSegmentCodec() {
+	}
+
+	static ByteBuffer encode(ColumnarMatch match, int sequence, ColumnarMatchSummary summary) {
+		String[] names = match.getNames();
+		byte[][] encodedNames = new byte[names.length][];
+		int dictionaryBytes = 0;
+		for (int i = 0; i < names.length; i++) {
+			encodedNames[i] = names[i].getBytes(StandardCharsets.UTF_8);
+			dictionaryBytes += Integer.BYTES + encodedNames[i].length;
+		}
+		byte[] encodedSummary = encode(summary);
+
+		int size = match.getSize();
+		long summaryOffset = HEADER_BYTES + (long) size * RECORD_BYTES + dictionaryBytes;
+		var buffer = ByteBuffer.allocate(Math.toIntExact(summaryOffset + encodedSummary.length));
+		buffer.putInt(MAGIC).putShort(VERSION).putLong(match.getId()).putInt(sequence).putInt(size)
+				.putInt(names.length).putLong(summaryOffset);
+		for (int row = 0; row < size; row++) {
+			buffer.putLong(match.getTimestamps()[row])
+					.put(match.getTypes()[row])
+					.putInt(match.getActors()[row])
+					.putInt(match.getTargets()[row])
+					.putInt(match.getAbilities()[row])
+					.putInt(match.getItems()[row])
+					.putInt(match.getDamage()[row]);
+		}
+		for (byte[] name : encodedNames) {
+			buffer.putInt(name.length).put(name);
+		}
+		return buffer.put(encodedSummary).flip();
+	}
+
+	/**
+	 * @throws IllegalStateException if the buffer does not hold a complete segment of a known version
+	 */
+	static ColumnarMatch decode(ByteBuffer buffer) {
+		try {
+			checkHeader(buffer);
+			buffer.position(Integer.BYTES + Short.BYTES);
+			long id = buffer.getLong();
+			buffer.getInt();
+			int size = buffer.getInt();
+			int nameCount = buffer.getInt();
+			buffer.getLong();
+
+			long[] timestamps = new long[size];
+			byte[] types = new byte[size];
+			int[] actors = new int[size];
+			int[] targets = new int[size];
+			int[] abilities = new int[size];
+			int[] items = new int[size];
+			int[] damage = new int[size];
+			for (int row = 0; row < size; row++) {
+				timestamps[row] = buffer.getLong();
+				types[row] = buffer.get();
+				actors[row] = buffer.getInt();
+				targets[row] = buffer.getInt();
+				abilities[row] = buffer.getInt();
+				items[row] = buffer.getInt();
+				damage[row] = buffer.getInt();
+			}
+
+			String[] names = new String[nameCount];
+			for (int i = 0; i < nameCount; i++) {
+				names[i] = getString(buffer);
+			}
+			return new ColumnarMatch(id, size, timestamps, types, actors, targets, abilities, items, damage, names);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IllegalStateException("Truncated match segment", e);
+		}
+	}
+
+	/**
+	 * Reads the header only.
+	 *
+	 * @throws IllegalStateException if the buffer does not start with the header of a known version
+	 */
+	static int decodeSequence(ByteBuffer buffer) {
+		try {
+			checkHeader(buffer);
+			return buffer.getInt(SEQUENCE_OFFSET);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IllegalStateException("Truncated match segment", e);
+		}
+	}
+
+	/**
+	 * Reads the header and the summary, skipping the events and the dictionary.
+	 *
+	 * @throws IllegalStateException if the buffer does not hold a complete segment of a known version
+	 */
+	static ColumnarMatchSummary decodeSummary(ByteBuffer buffer) {
+		try {
+			checkHeader(buffer);
+			buffer.position(Math.toIntExact(buffer.getLong(SUMMARY_OFFSET)));
+			Set<String> heroes = new HashSet<>();
+			for (int i = buffer.getInt(); i > 0; i--) {
+				heroes.add(getString(buffer));
+			}
+			Map<String, Integer> kills = getCounts(buffer);
+			Map<String, Integer> deaths = getCounts(buffer);
+			Map<String, Map<String, Integer>> purchases = new HashMap<>();
+			for (int i = buffer.getInt(); i > 0; i--) {
+				purchases.computeIfAbsent(getString(buffer), hero -> new HashMap<>()).put(getString(buffer),
+						buffer.getInt());
+			}
+			Map<String, long[]> abilityDamage = new HashMap<>();
+			for (int i = buffer.getInt(); i > 0; i--) {
+				abilityDamage.put(getString(buffer), new long[] { buffer.getLong(), buffer.getLong() });
+			}
+			return new ColumnarMatchSummary(heroes, kills, deaths, purchases, abilityDamage);
+		} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException
+				| ArithmeticException | NegativeArraySizeException e) {
+			throw new IllegalStateException("Truncated match segment", e);
+		}
+	}
+
+	private static void checkHeader(ByteBuffer buffer) {
+		if (buffer.getInt(0) != MAGIC || buffer.getShort(Integer.BYTES) != VERSION) {
+			throw new IllegalStateException("Not a match segment of version " + VERSION);
+		}
+	}
+
+	private static byte[] encode(ColumnarMatchSummary summary) {
+		var bytes = new ByteArrayOutputStream();
+		try (var out = new DataOutputStream(bytes)) {
+			out.writeInt(summary.getHeroes().size());
+			for (String hero : summary.getHeroes()) {
+				putString(out, hero);
+			}
+			putCounts(out, summary.getKills());
+			putCounts(out, summary.getDeaths());
+			out.writeInt(summary.getPurchases().values().stream().mapToInt(Map::size).sum());
+			for (var hero : summary.getPurchases().entrySet()) {
+				for (var item : hero.getValue().entrySet()) {
+					putString(out, hero.getKey());
+					putString(out, item.getKey());
+					out.writeInt(item.getValue());
+				}
+			}
+			out.writeInt(summary.getAbilityDamage().size());
+			for (var ability : summary.getAbilityDamage().entrySet()) {
+				putString(out, ability.getKey());
+				out.writeLong(ability.getValue()[0]);
+				out.writeLong(ability.getValue()[1]);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void putCounts(DataOutputStream out, Map<String, Integer> counts) throws IOException {
+		out.writeInt(counts.size());
+		for (var count : counts.entrySet()) {
+			putString(out, count.getKey());
+			out.writeInt(count.getValue());
+		}
+	}
+
+	private static void putString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static Map<String, Integer> getCounts(ByteBuffer buffer) {
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = buffer.getInt(); i > 0; i--) {
+			counts.put(getString(buffer), buffer.getInt());
+		}
+		return counts;
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
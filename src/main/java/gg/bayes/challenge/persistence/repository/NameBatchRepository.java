@@ -0,0 +1,48 @@
+package gg.bayes.challenge.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * JDBC access to the {@code dota_name} dictionary. Rows are written with {@code MERGE ... KEY (id)}, so several
+ * ingests may write the same id and name without conflicting.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NameBatchRepository {
+
+	private static final String NEXT_ID_SQL = "SELECT NEXT VALUE FOR dota_name_sequence";
+	private static final String FIND_ID_SQL = "SELECT id FROM dota_name WHERE name = ?";
+	private static final String FIND_NAME_SQL = "SELECT name FROM dota_name WHERE id = ?";
+	private static final String MERGE_SQL = "MERGE INTO dota_name (id, name) KEY (id) VALUES (?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public int nextId() {
+		return jdbcTemplate.queryForObject(NEXT_ID_SQL, Integer.class);
+	}
+
+	public Integer findIdByName(String name) {
+		return DataAccessUtils.singleResult(jdbcTemplate.queryForList(FIND_ID_SQL, Integer.class, name));
+	}
+
+	public String findNameById(int id) {
+		return DataAccessUtils.singleResult(jdbcTemplate.queryForList(FIND_NAME_SQL, String.class, id));
+	}
+
+	public void mergeAll(Map<Integer, String> names) {
+		if (names.isEmpty()) {
+			return;
+		}
+		jdbcTemplate.batchUpdate(MERGE_SQL, new ArrayList<>(names.entrySet()), names.size(), (ps, name) -> {
+			ps.setInt(1, name.getKey());
+			ps.setString(2, name.getValue());
+		});
+	}
+
+}
@@ -0,0 +1,246 @@
+package gg.bayes.challenge.persistence.repository;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import gg.bayes.challenge.persistence.model.ColumnarMatch;
+import gg.bayes.challenge.persistence.model.ColumnarMatchSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Keeps every columnar match in segment files, see {@link MatchSegmentCodec}: one full segment per match, followed by
+ * one delta segment per append, so an append writes and syncs only its own events and their summary. The append
+ * after {@value #MAX_DELTAS} deltas folds the match into a new full segment instead, which bounds the files read to
+ * load a match.
+ * <p>
+ * Startup only lists the directory to continue the id sequence; a match is memory-mapped and decoded the first time
+ * it is queried, and the decoded columns stay in a cache bounded by event count. A summary is read from its segment
+ * without decoding the events.
+ * <p>
+ * A segment is written under a temporary name and moved into place once complete, so a crash during an ingest
+ * never leaves a partial segment behind. A full segment records the last delta folded into it, so deltas that a
+ * crash left behind after a fold are ignored, and removed at the next startup.
+ */
+@Slf4j
+public class SegmentColumnarMatchRepository implements ColumnarMatchRepository {
+
+	static final int MAX_DELTAS = 16;
+
+	private static final String SEGMENT_SUFFIX = ".seg";
+	private static final String PARTIAL_SUFFIX = ".partial";
+	private static final Pattern SEGMENT_NAME = Pattern.compile("match-(\\d+)\\" + SEGMENT_SUFFIX);
+	private static final Pattern DELTA_NAME = Pattern.compile("match-(\\d+)-(\\d+)\\" + SEGMENT_SUFFIX);
+
+	private final Path directory;
+	private final AtomicLong ids;
+	private final LoadingCache<Long, ColumnarMatch> matches;
+
+	public SegmentColumnarMatchRepository(Path directory, long cacheWeight) {
+		this(directory, cacheWeight, LongUnaryOperator.identity());
+	}
+
+	/**
+	 * @param sequenceValueOf the value of the id sequence a stored match id was handed out for, when ids are not the
+	 *                        values of the sequence themselves
+	 */
+	public SegmentColumnarMatchRepository(Path directory, long cacheWeight, LongUnaryOperator sequenceValueOf) {
+		this.directory = directory;
+		this.ids = new AtomicLong(sequenceValueOf.applyAsLong(lastSegmentId(directory)));
+		this.matches = Caffeine.newBuilder()
+				.maximumWeight(cacheWeight)
+				.<Long, ColumnarMatch>weigher((matchId, match) -> match.getSize() + 1)
+				.build(this::read);
+		log.info("Serving match segments from {}, continuing the id sequence after {}", directory, ids.get());
+	}
+
+	@Override
+	public Long nextId() {
+		return ids.incrementAndGet();
+	}
+
+	@Override
+	public void save(ColumnarMatch match, ColumnarMatchSummary summary) {
+		write(match.getId(), segmentOf(match.getId()), MatchSegmentCodec.encode(match, 0, summary));
+		matches.put(match.getId(), match);
+	}
+
+	/**
+	 * Writes the appended events as the next delta of the match, or, if the match has {@value #MAX_DELTAS} deltas
+	 * already, the whole match as its new full segment with the summaries of the deltas merged in.
+	 */
+	@Override
+	public void append(ColumnarMatch match, ColumnarMatch appended, ColumnarMatchSummary summary) {
+		Long matchId = match.getId();
+		int folded = sequenceOf(matchId);
+		List<Path> deltas = deltasOf(matchId, folded);
+		int sequence = folded + deltas.size() + 1;
+		if (deltas.size() < MAX_DELTAS) {
+			write(matchId, deltaOf(matchId, sequence), MatchSegmentCodec.encode(appended, sequence, summary));
+		} else {
+			List<ColumnarMatchSummary> summaries = new ArrayList<>(findSummaries(matchId));
+			summaries.add(summary);
+			write(matchId, segmentOf(matchId),
+					MatchSegmentCodec.encode(match, sequence, ColumnarMatchSummary.merge(summaries)));
+			deltas.forEach(SegmentColumnarMatchRepository::delete);
+		}
+		matches.put(matchId, match);
+	}
+
+	@Override
+	public Optional<ColumnarMatch> findById(Long matchId) {
+		return Optional.ofNullable(matches.get(matchId));
+	}
+
+	@Override
+	public List<ColumnarMatchSummary> findSummaries(Long matchId) {
+		Path segment = segmentOf(matchId);
+		if (!Files.exists(segment)) {
+			return List.of();
+		}
+		List<ColumnarMatchSummary> summaries = new ArrayList<>();
+		summaries.add(map(segment, MatchSegmentCodec::decodeSummary));
+		for (Path delta : deltasOf(matchId, sequenceOf(matchId))) {
+			summaries.add(map(delta, MatchSegmentCodec::decodeSummary));
+		}
+		return summaries;
+	}
+
+	@Override
+	public List<Long> findAllIds() {
+		try (Stream<Path> segments = Files.list(directory)) {
+			return segmentIds(segments).sorted().boxed().collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new UncheckedIOException("The segment directory " + directory + " could not be read.", e);
+		}
+	}
+
+	private ColumnarMatch read(Long matchId) {
+		Path segment = segmentOf(matchId);
+		if (!Files.exists(segment)) {
+			return null;
+		}
+		var match = map(segment, MatchSegmentCodec::decode);
+		List<Path> deltas = deltasOf(matchId, sequenceOf(matchId));
+		if (deltas.isEmpty()) {
+			return match;
+		}
+		var builder = new ColumnarMatch.Builder(match);
+		for (Path delta : deltas) {
+			builder.addAll(map(delta, MatchSegmentCodec::decode));
+		}
+		return builder.build(matchId);
+	}
+
+	private void write(Long matchId, Path segment, ByteBuffer buffer) {
+		try {
+			Path partial = Files.createTempFile(directory, "match-" + matchId + "-", PARTIAL_SUFFIX);
+			try (var channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(true);
+			}
+			Files.move(partial, segment, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException("The segment of match " + matchId + " could not be written.", e);
+		}
+	}
+
+	private int sequenceOf(Long matchId) {
+		return map(segmentOf(matchId), MatchSegmentCodec::decodeSequence);
+	}
+
+	/**
+	 * @return the deltas stored after the given one, in order
+	 */
+	private List<Path> deltasOf(Long matchId, int folded) {
+		List<Path> deltas = new ArrayList<>();
+		for (int sequence = folded + 1; Files.exists(deltaOf(matchId, sequence)); sequence++) {
+			deltas.add(deltaOf(matchId, sequence));
+		}
+		return deltas;
+	}
+
+	private Path segmentOf(Long matchId) {
+		return directory.resolve("match-" + matchId + SEGMENT_SUFFIX);
+	}
+
+	private Path deltaOf(Long matchId, int sequence) {
+		return directory.resolve("match-" + matchId + "-" + sequence + SEGMENT_SUFFIX);
+	}
+
+	private static <T> T map(Path segment, Function<ByteBuffer, T> decoder) {
+		try (var channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			return decoder.apply(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			throw new UncheckedIOException("The segment " + segment + " could not be read.", e);
+		} catch (IllegalStateException e) {
+			throw new IllegalStateException(segment + " is not a valid match segment", e);
+		}
+	}
+
+	private static void delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Could not delete {}", file, e);
+		}
+	}
+
+	private static LongStream segmentIds(Stream<Path> files) {
+		return files.map(file -> SEGMENT_NAME.matcher(file.getFileName().toString()))
+				.filter(Matcher::matches)
+				.mapToLong(matcher -> Long.parseLong(matcher.group(1)));
+	}
+
+	/**
+	 * Also removes the partial segments of ingests that were interrupted by a crash, and the deltas that were folded
+	 * into a full segment but not yet deleted when it happened.
+	 */
+	private static long lastSegmentId(Path directory) {
+		try {
+			Files.createDirectories(directory);
+			try (Stream<Path> partials = Files.list(directory)) {
+				for (Path partial : (Iterable<Path>) partials.filter(
+						file -> file.getFileName().toString().endsWith(PARTIAL_SUFFIX))::iterator) {
+					Files.delete(partial);
+				}
+			}
+			try (Stream<Path> files = Files.list(directory)) {
+				for (Path delta : (Iterable<Path>) files::iterator) {
+					var matcher = DELTA_NAME.matcher(delta.getFileName().toString());
+					if (matcher.matches() && Integer.parseInt(matcher.group(2)) <= map(
+							directory.resolve("match-" + matcher.group(1) + SEGMENT_SUFFIX),
+							MatchSegmentCodec::decodeSequence)) {
+						Files.delete(delta);
+					}
+				}
+			}
+			try (Stream<Path> segments = Files.list(directory)) {
+				return segmentIds(segments).max().orElse(0);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("The segment directory " + directory + " could not be read.", e);
+		}
+	}
+
+}
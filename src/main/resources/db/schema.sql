@@ -0,0 +1,83 @@
+-- Schema of the JPA storage engine, created by the fast-startup profile in place of Hibernate's schema generation.
+-- Hibernate validates the entities against it on startup; keep it in line with the entities in persistence.model.
+
+create sequence dota_combat_log_sequence start with 1 increment by 50;
+create sequence dota_hero_damage_stat_sequence start with 1 increment by 50;
+create sequence dota_hero_kill_stat_sequence start with 1 increment by 50;
+create sequence dota_hero_spell_stat_sequence start with 1 increment by 50;
+create sequence dota_match_sequence start with 1 increment by 50;
+create sequence dota_name_sequence start with 1 increment by 1;
+
+create table dota_match (
+    id                       bigint not null,
+    content_hash             varchar(64),
+    events_at_last_timestamp integer,
+    last_event_timestamp     bigint,
+    primary key (id),
+    constraint uk_dota_match_content_hash unique (content_hash)
+);
+
+create table dota_match_hero (
+    match_id bigint       not null,
+    hero     varchar(255) not null,
+    primary key (match_id, hero),
+    constraint fk_dota_match_hero_match foreign key (match_id) references dota_match
+);
+
+create table dota_name (
+    id   integer      not null,
+    name varchar(255) not null,
+    primary key (id),
+    constraint uk_dota_name_name unique (name)
+);
+
+create table dota_combat_log (
+    id              bigint       not null,
+    ability_id      integer,
+    ability_level   integer,
+    actor_id        integer,
+    damage          integer,
+    item_id         integer,
+    target_id       integer,
+    entry_timestamp bigint       not null,
+    entry_type      varchar(255) not null,
+    match_id        bigint       not null,
+    primary key (id),
+    constraint fk_dota_combat_log_match foreign key (match_id) references dota_match
+);
+
+create index idx_dota_combat_log_match_type_actor on dota_combat_log (match_id, entry_type, actor_id, entry_timestamp);
+create index idx_dota_combat_log_match_type_timestamp on dota_combat_log (match_id, entry_type, entry_timestamp);
+
+create table dota_hero_damage_stat (
+    id               bigint       not null,
+    damage_instances integer      not null,
+    hero             varchar(255) not null,
+    target           varchar(255) not null,
+    total_damage     bigint       not null,
+    match_id         bigint       not null,
+    primary key (id),
+    constraint uk_dota_hero_damage_stat unique (match_id, hero, target),
+    constraint fk_dota_hero_damage_stat_match foreign key (match_id) references dota_match
+);
+
+create table dota_hero_kill_stat (
+    id       bigint       not null,
+    hero     varchar(255) not null,
+    kills    integer      not null,
+    match_id bigint       not null,
+    primary key (id),
+    constraint uk_dota_hero_kill_stat unique (match_id, hero),
+    constraint fk_dota_hero_kill_stat_match foreign key (match_id) references dota_match
+);
+
+create table dota_hero_spell_stat (
+    id       bigint       not null,
+    ability  varchar(255) not null,
+    casts    integer      not null,
+    hero     varchar(255) not null,
+    match_id bigint       not null,
+    primary key (id),
+    constraint uk_dota_hero_spell_stat unique (match_id, hero, ability),
+    constraint fk_dota_hero_spell_stat_match foreign key (match_id) references dota_match
+);
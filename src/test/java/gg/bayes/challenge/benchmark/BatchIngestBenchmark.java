@@ -0,0 +1,95 @@
+package gg.bayes.challenge.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Matches per second imported by one {@code POST /api/match} per log against one multipart
+ * {@code POST /api/match/batch} of all logs, both through the full MVC stack. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "dota.ingest.deduplicate=false")
+@AutoConfigureMockMvc
+class BatchIngestBenchmark {
+
+	private static final String[] SAMPLES = { "/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt" };
+	private static final int MATCHES = 64;
+	private static final int WARMUP_ITERATIONS = 1;
+	private static final int MEASURED_ITERATIONS = 3;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void matchesPerSecond() throws Exception {
+		List<byte[]> logs = new ArrayList<>(MATCHES);
+		for (int i = 0; i < MATCHES; i++) {
+			logs.add(IOUtils.resourceToByteArray(SAMPLES[i % SAMPLES.length]));
+		}
+
+		Upload sequential = () -> {
+			for (byte[] log : logs) {
+				mvc.perform(post("/api/match").contentType(MediaType.TEXT_PLAIN).content(log))
+						.andExpect(status().isOk());
+			}
+		};
+		Upload batch = () -> {
+			MockMultipartHttpServletRequestBuilder request = multipart("/api/match/batch");
+			for (int i = 0; i < logs.size(); i++) {
+				request.file(new MockMultipartFile("logs", "combatlog_" + i + ".txt", MediaType.TEXT_PLAIN_VALUE,
+						logs.get(i)));
+			}
+			mvc.perform(request)
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.length()").value(MATCHES));
+		};
+
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			sequential.run();
+			batch.run();
+		}
+		// Every import grows the tables, which slows later inserts; alternating keeps both paths on equal terms.
+		long sequentialNanos = 0;
+		long batchNanos = 0;
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			sequentialNanos += time(sequential);
+			batchNanos += time(batch);
+		}
+		report("sequential posts", sequentialNanos);
+		report("batch upload", batchNanos);
+	}
+
+	private static long time(Upload upload) throws Exception {
+		long started = System.nanoTime();
+		upload.run();
+		return System.nanoTime() - started;
+	}
+
+	private static void report(String path, long nanos) {
+		log.info("[{}]: {} matches/s", path, String.format("%.1f", MATCHES * MEASURED_ITERATIONS / (nanos / 1e9)));
+	}
+
+	@FunctionalInterface
+	private interface Upload {
+		void run() throws Exception;
+	}
+
+}
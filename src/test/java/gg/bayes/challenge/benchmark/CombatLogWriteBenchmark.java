@@ -0,0 +1,113 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.business.dictionary.NameDictionary;
+import gg.bayes.challenge.business.parser.CombatLogTokenizer;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.model.MatchEntity;
+import gg.bayes.challenge.persistence.repository.CombatLogEntryBatchRepository;
+import gg.bayes.challenge.persistence.repository.MatchRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows per second written to {@code dota_combat_log} by JPA with one INSERT per row (the old cascade path), by
+ * JPA with statement batching, and by {@link CombatLogEntryBatchRepository}. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+class CombatLogWriteBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 3;
+	private static final int MEASURED_ITERATIONS = 10;
+
+	@Autowired
+	private CombatLogTokenizer combatLogTokenizer;
+
+	@Autowired
+	private MatchRepository matchRepository;
+
+	@Autowired
+	private CombatLogEntryBatchRepository combatLogEntryBatchRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private NameDictionary nameDictionary;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@ParameterizedTest
+	@ValueSource(strings = { "/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt" })
+	void writeThroughput(String file) throws Exception {
+		String combatLog = IOUtils.resourceToString(file, StandardCharsets.UTF_8);
+
+		measure(file, "jpa per-row", combatLog, (match, entries) -> {
+			entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+			entries.forEach(entityManager::persist);
+			entityManager.flush();
+		});
+		measure(file, "jpa batched", combatLog, (match, entries) -> {
+			entries.forEach(entityManager::persist);
+			entityManager.flush();
+		});
+		measure(file, "jdbc batch", combatLog,
+				(match, entries) -> combatLogEntryBatchRepository.insertAll(match.getId(), entries));
+	}
+
+	private void measure(String file, String path, String combatLog,
+			BiConsumer<MatchEntity, List<CombatLogEntryEntity>> writer) {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			write(combatLog, writer);
+		}
+		long rows = 0;
+		long started = System.nanoTime();
+		for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+			rows += write(combatLog, writer);
+		}
+		double seconds = (System.nanoTime() - started) / 1e9;
+		log.info("{} [{}]: {} rows in {} s, {} rows/s", file, path, rows, String.format("%.3f", seconds),
+				Math.round(rows / seconds));
+		assertThat(rows).isPositive();
+	}
+
+	private int write(String combatLog, BiConsumer<MatchEntity, List<CombatLogEntryEntity>> writer) {
+		List<CombatLogEntryEntity> entries = combatLog.lines()
+				.map(combatLogTokenizer::tokenize)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		transactionTemplate.executeWithoutResult(status -> {
+			var match = matchRepository.saveAndFlush(new MatchEntity());
+			Map<Integer, String> usedNames = new HashMap<>();
+			entries.forEach(entry -> {
+				entry.setMatch(match);
+				nameDictionary.encode(entry, usedNames);
+			});
+			nameDictionary.persist(usedNames);
+			writer.accept(match, entries);
+			entityManager.clear();
+		});
+		return entries.size();
+	}
+
+}
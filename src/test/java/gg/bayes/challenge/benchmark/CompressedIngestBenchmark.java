@@ -0,0 +1,99 @@
+package gg.bayes.challenge.benchmark;
+
+import com.github.luben.zstd.Zstd;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * End-to-end time of one {@code POST /api/match} of a sample log sent plain, gzip-encoded and as a zstd file, all
+ * through the full MVC stack, together with the bytes each one uploads. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = "dota.ingest.deduplicate=false")
+@AutoConfigureMockMvc
+class CompressedIngestBenchmark {
+
+	private static final String[] SAMPLES = { "/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt" };
+	private static final int WARMUP_ITERATIONS = 10;
+	private static final int MEASURED_ITERATIONS = 30;
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void compressedAndPlainUploads() throws Exception {
+		for (String sample : SAMPLES) {
+			byte[] plain = IOUtils.resourceToByteArray(sample);
+			byte[] gzip = gzip(plain);
+			byte[] zstd = Zstd.compress(plain, 3);
+
+			Upload plainUpload = () -> mvc.perform(post("/api/match").contentType(MediaType.TEXT_PLAIN).content(plain))
+					.andExpect(status().isOk());
+			Upload gzipUpload = () -> mvc.perform(post("/api/match").contentType(MediaType.TEXT_PLAIN)
+							.header(HttpHeaders.CONTENT_ENCODING, "gzip").content(gzip))
+					.andExpect(status().isOk());
+			Upload zstdUpload = () -> mvc.perform(post("/api/match").contentType("application/zstd").content(zstd))
+					.andExpect(status().isOk());
+
+			for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+				plainUpload.run();
+				gzipUpload.run();
+				zstdUpload.run();
+			}
+			// Every import grows the tables, which slows later inserts; alternating keeps the three on equal terms.
+			long plainNanos = 0;
+			long gzipNanos = 0;
+			long zstdNanos = 0;
+			for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+				plainNanos += time(plainUpload);
+				gzipNanos += time(gzipUpload);
+				zstdNanos += time(zstdUpload);
+			}
+			report(sample, "plain", plain.length, plain.length, plainNanos);
+			report(sample, "gzip", gzip.length, plain.length, gzipNanos);
+			report(sample, "zstd", zstd.length, plain.length, zstdNanos);
+		}
+	}
+
+	private static byte[] gzip(byte[] plain) throws IOException {
+		var compressed = new ByteArrayOutputStream();
+		try (var gzip = new GZIPOutputStream(compressed)) {
+			gzip.write(plain);
+		}
+		return compressed.toByteArray();
+	}
+
+	private static long time(Upload upload) throws Exception {
+		long started = System.nanoTime();
+		upload.run();
+		return System.nanoTime() - started;
+	}
+
+	private static void report(String sample, String path, int bytes, int plainBytes, long nanos) {
+		log.info("{} [{}]: {} KB uploaded ({}x smaller), {} ms/upload", sample, path, bytes / 1024,
+				String.format("%.1f", (double) plainBytes / bytes),
+				String.format("%.1f", nanos / 1e6 / MEASURED_ITERATIONS));
+	}
+
+	@FunctionalInterface
+	private interface Upload {
+		void run() throws Exception;
+	}
+
+}
@@ -0,0 +1,123 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.DotaChallengeApplication;
+import gg.bayes.challenge.common.concurrent.VirtualThreads;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Latency percentiles of {@value #READERS} concurrent readers, each sending {@value #REQUESTS_PER_READER} match
+ * queries over real HTTP, against the Tomcat worker pool and against virtual threads. The query cache is off, so
+ * every request reaches the database. Run with {@code mvn test -Pbenchmark}; the virtual-thread case needs a JDK
+ * with virtual threads and is skipped otherwise, since the fallback runs on the same worker pool and comparing the
+ * two would only measure run-to-run noise.
+ */
+@Slf4j
+@Tag("benchmark")
+class ConcurrentReadBenchmark {
+
+	private static final int READERS = 1000;
+	private static final int REQUESTS_PER_READER = 20;
+	private static final String[] QUERIES = { "", "/bloodseeker/spells", "/bane/damage", "/mars/items" };
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void concurrentReaders(boolean virtualThreads) throws Exception {
+		assumeTrue(!virtualThreads || VirtualThreads.isAvailable(), "This JDK has no virtual threads");
+		try (var context = new SpringApplicationBuilder(DotaChallengeApplication.class).run(
+				"--server.port=0",
+				"--server.tomcat.accept-count=" + READERS,
+				"--spring.main.banner-mode=off",
+				"--spring.jpa.properties.hibernate.generate_statistics=false",
+				"--dota.query-cache.enabled=false",
+				"--dota.threading.virtual-threads=" + virtualThreads,
+				"--logging.level.root=WARN")) {
+			int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+			var client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+			String matchId = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/match"))
+							.header("Content-Type", "text/plain")
+							.POST(HttpRequest.BodyPublishers.ofByteArray(
+									IOUtils.resourceToByteArray("/data/combatlog_1.log.txt")))
+							.build(), HttpResponse.BodyHandlers.ofString())
+					.body();
+			String base = "http://localhost:" + port + "/api/match/" + matchId;
+
+			// The first round warms up the JIT, the connection pools and the Tomcat threads alike.
+			run(client, base);
+			long[] latencies = run(client, base);
+
+			String mode = virtualThreads ? "virtual threads" : "platform worker pool";
+			log.info("{} readers x {} requests [{}]: p50 {} ms, p99 {} ms, max {} ms", READERS, REQUESTS_PER_READER,
+					mode, millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+					millis(latencies[latencies.length - 1]));
+		}
+	}
+
+	/**
+	 * @return the latency of every request in nanoseconds, sorted
+	 */
+	private static long[] run(HttpClient client, String base) throws Exception {
+		ExecutorService readers = Executors.newFixedThreadPool(READERS);
+		try {
+			var start = new CountDownLatch(1);
+			List<Future<long[]>> results = new ArrayList<>(READERS);
+			for (int reader = 0; reader < READERS; reader++) {
+				int offset = reader;
+				results.add(readers.submit(() -> {
+					long[] latencies = new long[REQUESTS_PER_READER];
+					start.await();
+					for (int i = 0; i < REQUESTS_PER_READER; i++) {
+						var request = HttpRequest.newBuilder(
+								URI.create(base + QUERIES[(offset + i) % QUERIES.length])).GET().build();
+						long started = System.nanoTime();
+						var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+						latencies[i] = System.nanoTime() - started;
+						assertThat(response.statusCode()).isEqualTo(200);
+					}
+					return latencies;
+				}));
+			}
+			start.countDown();
+
+			long[] all = new long[READERS * REQUESTS_PER_READER];
+			for (int reader = 0; reader < READERS; reader++) {
+				System.arraycopy(results.get(reader).get(), 0, all, reader * REQUESTS_PER_READER,
+						REQUESTS_PER_READER);
+			}
+			Arrays.sort(all);
+			return all;
+		} finally {
+			readers.shutdownNow();
+		}
+	}
+
+	private static long percentile(long[] sorted, double quantile) {
+		return sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+	}
+
+	private static String millis(long nanos) {
+		return String.format("%.1f", nanos / 1e6);
+	}
+
+}
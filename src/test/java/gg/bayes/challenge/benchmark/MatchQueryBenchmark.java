@@ -0,0 +1,86 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.business.dictionary.NameDictionary;
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.business.service.match.MatchLogQueryService;
+import gg.bayes.challenge.business.service.match.impl.MatchLogQueryServiceImpl;
+import gg.bayes.challenge.config.rest.model.HeroDamage;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.repository.CombatLogEntryRepository;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latency and allocated bytes per damage request, for the busiest hero of each sample log, for the three ways of
+ * answering it: loading entities and grouping them in Java (the original implementation), a database GROUP BY
+ * projection, and the summary table read by {@link MatchLogQueryService}. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class MatchQueryBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 200;
+	private static final int MEASURED_ITERATIONS = 1000;
+
+	@Autowired
+	private MatchLogCommandService matchLogCommandService;
+
+	@Autowired
+	private MatchLogQueryServiceImpl matchLogQueryService;
+
+	@Autowired
+	private CombatLogEntryRepository combatLogEntryRepository;
+
+	@Autowired
+	private NameDictionary nameDictionary;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@ParameterizedTest
+	@CsvSource({ "/data/combatlog_1.log.txt, death_prophet", "/data/combatlog_2.log.txt, ember_spirit" })
+	void damageQuery(String file, String hero) throws Exception {
+		Long matchId = matchLogCommandService.importData(IOUtils.resourceToString(file, StandardCharsets.UTF_8));
+		Integer actorId = nameDictionary.find(hero);
+
+		measure(file, "stream grouping", () -> groupInJava(matchId, actorId));
+		measure(file, "group by projection", () -> combatLogEntryRepository.sumHeroDamage(matchId, actorId));
+		measure(file, "summary table", () -> matchLogQueryService.getHeroDamageByMatch(matchId, hero));
+	}
+
+	private List<HeroDamage> groupInJava(Long matchId, Integer actorId) {
+		var combatLog = combatLogEntryRepository.findAllByMatchIdAndActorIdAndType(matchId, actorId,
+				CombatLogEntryEntity.Type.DAMAGE_DONE);
+		Map<Integer, AbstractMap.SimpleEntry<Integer, Long>> map = combatLog.stream().collect(toMap(
+				CombatLogEntryEntity::getTargetId, b -> new AbstractMap.SimpleEntry<>(b.getDamage(), 1L),
+				(v1, v2) -> new AbstractMap.SimpleEntry<>(v1.getKey() + v2.getKey(), v1.getValue() + v2.getValue())));
+		var response = new LinkedList<HeroDamage>();
+		map.forEach((k, v) -> response.add(
+				new HeroDamage(nameDictionary.nameOf(k), v.getValue().intValue(), v.getKey())));
+		return response;
+	}
+
+	private void measure(String file, String path, Supplier<List<HeroDamage>> query) throws Exception {
+		var rows = new AtomicInteger();
+		RequestMeasurement.measure(file, path, WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+				() -> rows.addAndGet(transactionTemplate.execute(status -> query.get()).size()));
+		assertThat(rows.get()).isPositive();
+	}
+
+}
@@ -0,0 +1,61 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.config.rest.cache.MatchResponseCache;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Latency and allocated bytes per dashboard poll of a hero's items through the full MVC stack: with the serialized
+ * response dropped before every request, so it is queried from the query cache and serialized again, answered from
+ * the serialized bytes, and revalidated with {@code If-None-Match}. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureMockMvc
+class RepeatPollBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 2000;
+	private static final int MEASURED_ITERATIONS = 20000;
+	private static final String PATH = "/api/match/{matchId}/{heroName}/items";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private MatchLogCommandService matchLogCommandService;
+
+	@Autowired
+	private MatchResponseCache matchResponseCache;
+
+	@ParameterizedTest
+	@ValueSource(strings = { "/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt" })
+	void repeatedPolls(String file) throws Exception {
+		Long matchId = matchLogCommandService.importData(IOUtils.resourceToString(file, StandardCharsets.UTF_8));
+		String etag = mvc.perform(get(PATH, matchId, "mars")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		measure(file, "serialized per request", () -> {
+			matchResponseCache.invalidate(matchId);
+			mvc.perform(get(PATH, matchId, "mars"));
+		});
+		measure(file, "cached bytes", () -> mvc.perform(get(PATH, matchId, "mars")));
+		measure(file, "If-None-Match", () -> mvc.perform(get(PATH, matchId, "mars")
+				.header(HttpHeaders.IF_NONE_MATCH, etag)));
+	}
+
+	private static void measure(String file, String path, RequestMeasurement.Request poll) throws Exception {
+		RequestMeasurement.measure(file, path, WARMUP_ITERATIONS, MEASURED_ITERATIONS, poll);
+	}
+
+}
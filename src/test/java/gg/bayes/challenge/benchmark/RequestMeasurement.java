@@ -0,0 +1,40 @@
+package gg.bayes.challenge.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the latency and the bytes allocated on the calling thread per request, after a warmup, and logs both.
+ */
+@Slf4j
+final class RequestMeasurement {
+
+	private RequestMeasurement() {
+	}
+
+	static void measure(String file, String path, int warmupIterations, int measuredIterations, Request request)
+			throws Exception {
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		for (int i = 0; i < warmupIterations; i++) {
+			request.run();
+		}
+		long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+		long started = System.nanoTime();
+		for (int i = 0; i < measuredIterations; i++) {
+			request.run();
+		}
+		long elapsed = System.nanoTime() - started;
+		long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		log.info("{} [{}]: {} us/request, {} KB allocated/request", file, path,
+				String.format("%.1f", elapsed / 1e3 / measuredIterations),
+				String.format("%.1f", allocated / 1024.0 / measuredIterations));
+	}
+
+	@FunctionalInterface
+	interface Request {
+		void run() throws Exception;
+	}
+
+}
@@ -0,0 +1,117 @@
+package gg.bayes.challenge.benchmark;
+
+import gg.bayes.challenge.DotaChallengeApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cold-start time of the default and fast-startup profiles: each run starts a new JVM and measures the time until
+ * its first successful {@code GET /api/match/{matchId}}, reporting the median of {@value #RUNS} runs. The
+ * fast-startup profile is also run with the class-data sharing archive when {@code mvn package -Pappcds} has built
+ * one. Run with {@code mvn test -Pbenchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+class StartupTimeBenchmark {
+
+	private static final int RUNS = 5;
+	private static final Duration TIMEOUT = Duration.ofMinutes(2);
+	private static final Path CDS_DIRECTORY = Path.of("target", "cds");
+	private static final Path CDS_ARCHIVE = CDS_DIRECTORY.resolve("dota-challenge.jsa");
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void timeToFirstMatchResponse() throws Exception {
+		String classpath = System.getProperty("java.class.path");
+		report("default profile", classpath, List.of());
+		report("fast-startup profile", classpath, List.of("--spring.profiles.active=fast-startup"));
+		if (Files.exists(CDS_ARCHIVE)) {
+			report("fast-startup profile, AppCDS", cdsClasspath(), List.of("--spring.profiles.active=fast-startup"),
+					"-XX:SharedArchiveFile=" + CDS_ARCHIVE);
+		} else {
+			log.info("No class-data sharing archive at {}; build it with mvn package -Pappcds", CDS_ARCHIVE);
+		}
+	}
+
+	private void report(String variant, String classpath, List<String> arguments, String... jvmOptions)
+			throws Exception {
+		long[] millis = new long[RUNS];
+		for (int i = 0; i < RUNS; i++) {
+			millis[i] = timeToFirstResponse(classpath, arguments, jvmOptions);
+		}
+		Arrays.sort(millis);
+		log.info("{}: {} ms to the first GET /api/match/{matchId} (median of {}, min {}, max {})", variant,
+				millis[RUNS / 2], RUNS, millis[0], millis[RUNS - 1]);
+	}
+
+	private long timeToFirstResponse(String classpath, List<String> arguments, String... jvmOptions)
+			throws Exception {
+		int port;
+		try (var socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(Arrays.asList(jvmOptions));
+		command.addAll(List.of("-classpath", classpath, DotaChallengeApplication.class.getName(),
+				"--server.port=" + port));
+		command.addAll(arguments);
+		var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/match/1")).GET().build();
+
+		long started = System.nanoTime();
+		Process process = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.start();
+		try {
+			while (System.nanoTime() - started < TIMEOUT.toNanos()) {
+				try {
+					if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+						return (System.nanoTime() - started) / 1_000_000;
+					}
+				} catch (ConnectException e) {
+					// Not listening yet.
+				}
+				if (!process.isAlive()) {
+					throw new IllegalStateException("The application exited with " + process.exitValue());
+				}
+				Thread.sleep(10);
+			}
+			throw new IllegalStateException("The application did not answer within " + TIMEOUT);
+		} finally {
+			process.destroy();
+			process.waitFor();
+		}
+	}
+
+	/**
+	 * The class path the archive was recorded with, which a run must repeat for the archive to be used.
+	 */
+	private static String cdsClasspath() throws IOException {
+		try (var jars = Files.list(CDS_DIRECTORY)) {
+			String applicationJar = jars.filter(jar -> jar.toString().endsWith("-cds.jar"))
+					.findFirst()
+					.orElseThrow()
+					.toString();
+			return applicationJar + File.pathSeparator + CDS_DIRECTORY.resolve("lib") + File.separator + "*";
+		}
+	}
+
+}
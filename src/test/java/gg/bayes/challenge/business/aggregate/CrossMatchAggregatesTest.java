@@ -0,0 +1,78 @@
+package gg.bayes.challenge.business.aggregate;
+
+import gg.bayes.challenge.business.dictionary.NamePool;
+import gg.bayes.challenge.business.parser.CombatLogTokenizer;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.config.rest.model.AbilityDamage;
+import gg.bayes.challenge.config.rest.model.HeroKillRate;
+import gg.bayes.challenge.config.rest.model.ItemPurchases;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrossMatchAggregatesTest {
+
+	private final CrossMatchAggregates aggregates = new CrossMatchAggregates();
+
+	/**
+	 * The same match is added once from parsed entries, as on ingest, and once from the summaries stored with an
+	 * imported half and an appended half, as on a restart of the segment store; both must count the same.
+	 */
+	@Test
+	void totalsAddUpAcrossMatches() throws Exception {
+		List<CombatLogEntryEntity> entries = parse("/data/combatlog_1.log.txt");
+		var fromEntries = new MatchStatsAccumulator();
+		fromEntries.addAll(entries);
+		int half = entries.size() / 2;
+		var imported = new MatchStatsAccumulator();
+		imported.addAll(entries.subList(0, half));
+		var appended = new MatchStatsAccumulator();
+		appended.addAll(entries.subList(half, entries.size()));
+		appended.removeHeroes(imported.getHeroes());
+		var fromSummaries = new MatchStatsAccumulator();
+		fromSummaries.addAll(imported.summary());
+		fromSummaries.addAll(appended.summary());
+
+		aggregates.add(fromEntries);
+		aggregates.add(fromSummaries);
+
+		assertThat(aggregates.getMatchCount()).isEqualTo(2);
+		List<HeroKillRate> heroes = aggregates.getHeroKillRates();
+		assertThat(heroes).hasSize(10).allMatch(hero -> hero.getMatches() == 2);
+		assertThat(heroes.get(0)).extracting(HeroKillRate::getHero, HeroKillRate::getKills, HeroKillRate::getKillsPerMatch)
+				.containsExactly("bloodseeker", 22L, 11.0);
+		assertThat(heroes.stream().mapToLong(HeroKillRate::getKills).sum())
+				.isEqualTo(heroes.stream().mapToLong(HeroKillRate::getDeaths).sum());
+
+		List<ItemPurchases> items = aggregates.getMostPurchasedItems("mars", 100);
+		assertThat(items.stream().mapToLong(ItemPurchases::getPurchases).sum()).isEqualTo(2 * 28);
+		assertThat(items).isSortedAccordingTo((a, b) -> Long.compare(b.getPurchases(), a.getPurchases()));
+		assertThat(aggregates.getMostPurchasedItems("mars", 3)).isEqualTo(items.subList(0, 3));
+		assertThat(aggregates.getMostPurchasedItems("npc_dota_hero_mars", 100)).isEqualTo(items);
+		assertThat(aggregates.getMostPurchasedItems("unknown_hero", 3)).isEmpty();
+
+		long hits = entries.stream().filter(entry -> entry.getType() == CombatLogEntryEntity.Type.DAMAGE_DONE).count();
+		List<AbilityDamage> abilities = aggregates.getAbilityDamage();
+		assertThat(abilities.stream().mapToLong(AbilityDamage::getDamageInstances).sum()).isEqualTo(2 * hits);
+		assertThat(abilities).allMatch(ability ->
+				ability.getAverageDamage() == (double) ability.getTotalDamage() / ability.getDamageInstances());
+		assertThat(abilities).extracting(AbilityDamage::getAverageDamage)
+				.isSortedAccordingTo((a, b) -> Double.compare(b, a));
+	}
+
+	private static List<CombatLogEntryEntity> parse(String file) throws Exception {
+		var tokenizer = new CombatLogTokenizer(new NamePool(new IngestProperties()));
+		return IOUtils.resourceToString(file, StandardCharsets.UTF_8).lines()
+				.map(tokenizer::tokenize)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,70 @@
+package gg.bayes.challenge.business.dictionary;
+
+import gg.bayes.challenge.business.parser.CombatLogTokenizer;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NamePoolTest {
+
+	@Test
+	void repeatedNamesShareOneInstance() {
+		var namePool = new NamePool(new IngestProperties());
+		String line = "bane hits bane";
+
+		String first = namePool.intern(line, 0, 4);
+		String second = namePool.intern(line, 10, 14);
+
+		assertThat(first).isEqualTo("bane");
+		assertThat(second).isSameAs(first);
+		assertThat(namePool.getHits()).isEqualTo(1);
+		assertThat(namePool.getMisses()).isEqualTo(1);
+		assertThat(namePool.getHitRatio()).isEqualTo(0.5);
+	}
+
+	@Test
+	void collidingNamesAreStillCutCorrectly() {
+		var ingestProperties = new IngestProperties();
+		ingestProperties.setNamePoolSize(1);
+		var namePool = new NamePool(ingestProperties);
+
+		assertThat(namePool.intern("mars puck", 0, 4)).isEqualTo("mars");
+		assertThat(namePool.intern("mars puck", 5, 9)).isEqualTo("puck");
+		assertThat(namePool.intern("mars puck", 0, 4)).isEqualTo("mars");
+		assertThat(namePool.getHits()).isZero();
+	}
+
+	@Test
+	void parsedLogHoldsOneInstancePerDistinctName() throws Exception {
+		var namePool = new NamePool(new IngestProperties());
+		var tokenizer = new CombatLogTokenizer(namePool);
+		List<CombatLogEntryEntity> entries = IOUtils.resourceToString("/data/combatlog_1.log.txt",
+				StandardCharsets.UTF_8).lines()
+				.map(tokenizer::tokenize)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+
+		Set<String> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<String> names = entries.stream()
+				.flatMap(entry -> Stream.of(entry.getActor(), entry.getTarget(), entry.getAbility(), entry.getItem()))
+				.filter(Objects::nonNull)
+				.peek(instances::add)
+				.collect(Collectors.toSet());
+
+		assertThat(instances).hasSameSizeAs(names);
+		assertThat(namePool.getHitRatio()).isGreaterThan(0.9);
+	}
+
+}
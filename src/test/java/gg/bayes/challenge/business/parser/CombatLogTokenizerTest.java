@@ -0,0 +1,122 @@
+package gg.bayes.challenge.business.parser;
+
+import gg.bayes.challenge.business.dictionary.NamePool;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CombatLogTokenizerTest {
+
+	private final CombatLogTokenizer tokenizer = new CombatLogTokenizer(new NamePool(new IngestProperties()));
+
+	/**
+	 * Golden-file check: the tokenizer must emit exactly what the old regex pipeline emitted for the sample
+	 * logs. The only intended difference is that the old damage and level patterns ({@code [1-9]+} and
+	 * {@code [1-9]}) stopped at the first zero digit, so "for 105 damage" was stored as 1; those two fields are
+	 * compared after applying the same truncation to the tokenizer output.
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = { "/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt" })
+	void tokenizerMatchesLegacyParser(String file) throws Exception {
+		String combatLog = IOUtils.resourceToString(file, StandardCharsets.UTF_8);
+
+		List<CombatLogEntryEntity> expected = new LegacyRegexCombatLogParser().parse(combatLog);
+		List<CombatLogEntryEntity> actual = combatLog.lines()
+				.map(tokenizer::tokenize)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+
+		assertThat(actual).hasSameSizeAs(expected);
+		for (int i = 0; i < expected.size(); i++) {
+			var legacy = expected.get(i);
+			var entry = actual.get(i);
+			assertThat(entry.getType()).as("type #%d", i).isEqualTo(legacy.getType());
+			assertThat(entry.getTimestamp()).as("timestamp #%d", i).isEqualTo(legacy.getTimestamp());
+			assertThat(entry.getActor()).as("actor #%d", i).isEqualTo(legacy.getActor());
+			assertThat(entry.getTarget()).as("target #%d", i).isEqualTo(legacy.getTarget());
+			assertThat(entry.getAbility()).as("ability #%d", i).isEqualTo(legacy.getAbility());
+			assertThat(entry.getItem()).as("item #%d", i).isEqualTo(legacy.getItem());
+			assertThat(legacyTruncation(entry.getDamage(), Integer.MAX_VALUE)).as("damage #%d", i)
+					.isEqualTo(legacy.getDamage());
+			assertThat(legacyTruncation(entry.getAbilityLevel(), 1)).as("level #%d", i)
+					.isEqualTo(legacy.getAbilityLevel());
+		}
+	}
+
+	@Test
+	void parsesHitWithFullDamageValue() {
+		var entry = tokenizer.tokenize("[00:10:42.031] npc_dota_hero_bane hits npc_dota_hero_abyssal_underlord "
+				+ "with item_mjollnir for 105 damage (740->635)");
+
+		assertThat(entry.getType()).isEqualTo(CombatLogEntryEntity.Type.DAMAGE_DONE);
+		assertThat(entry.getTimestamp()).isEqualTo(642031L);
+		assertThat(entry.getActor()).isEqualTo("bane");
+		assertThat(entry.getTarget()).isEqualTo("abyssal_underlord");
+		assertThat(entry.getAbility()).isEqualTo("mjollnir");
+		assertThat(entry.getDamage()).isEqualTo(105);
+	}
+
+	@Test
+	void parsesCastWithMultiDigitLevel() {
+		var entry = tokenizer.tokenize("[01:02:03.004] npc_dota_hero_pangolier casts ability "
+				+ "pangolier_swashbuckle (lvl 10) on dota_unknown");
+
+		assertThat(entry.getType()).isEqualTo(CombatLogEntryEntity.Type.SPELL_CAST);
+		assertThat(entry.getTimestamp()).isEqualTo(3723004L);
+		assertThat(entry.getAbility()).isEqualTo("pangolier_swashbuckle");
+		assertThat(entry.getAbilityLevel()).isEqualTo(10);
+	}
+
+	@Test
+	void ignoresNonHeroKillsAndUnknownEvents() {
+		assertThat(tokenizer.tokenize("[00:12:15.108] npc_dota_neutral_harpy_scout is killed by npc_dota_hero_puck"))
+				.isNull();
+		assertThat(tokenizer.tokenize("[00:12:21.207] npc_dota_hero_puck is killed by npc_dota_creep_goodguys_ranged"))
+				.isNull();
+		assertThat(tokenizer.tokenize("[00:08:41.061] game state is now 8")).isNull();
+		assertThat(tokenizer.tokenize("[00:09:01.000] npc_dota_hero_mars uses item_quelling_blade")).isNull();
+		assertThat(tokenizer.tokenize("")).isNull();
+	}
+
+	@Test
+	void tellsEventsWeDoNotStoreFromMalformedLines() {
+		var parsed = new ParsedLines(8);
+		List.of("[00:08:46.693] npc_dota_hero_snapfire buys item item_clarity",
+				"[00:12:15.108] npc_dota_neutral_harpy_scout is killed by npc_dota_hero_puck",
+				"[00:08:41.061] game state is now 8",
+				"[00:09:01.000] npc_dota_hero_mars uses item_quelling_blade",
+				"",
+				"npc_dota_hero_mars buys item item_clarity",
+				"[00:10:42.031] npc_dota_hero_bane hits npc_dota_hero_abyssal_underlord with item_mjollnir",
+				"[00:08:43.460] npc_dota_hero_pangolier casts ability pangolier_swashbuckle")
+				.forEach(line -> tokenizer.tokenize(line, parsed));
+
+		assertThat(parsed.getEntries()).hasSize(1);
+		assertThat(parsed.getNotStoredLines()).isEqualTo(3);
+		assertThat(parsed.getMalformedLines()).isEqualTo(4);
+		assertThat(parsed.getLineCount()).isEqualTo(8);
+	}
+
+	private static Integer legacyTruncation(Integer value, int maxDigits) {
+		if (value == null) {
+			return null;
+		}
+		String digits = value.toString();
+		int end = 0;
+		while (end < digits.length() && end < maxDigits && digits.charAt(end) != '0') {
+			end++;
+		}
+		return end == 0 ? null : Integer.valueOf(digits.substring(0, end));
+	}
+
+}
@@ -0,0 +1,147 @@
+package gg.bayes.challenge.business.parser;
+
+import gg.bayes.challenge.common.constants.Constants;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The regex pipeline that {@link CombatLogTokenizer} replaced, kept verbatim as the reference for the
+ * golden-file test. Only the parallel streams and the shared set were made sequential so that the output
+ * keeps the line order of the log.
+ */
+class LegacyRegexCombatLogParser {
+
+	List<CombatLogEntryEntity> parse(String combatLog) {
+		combatLog = handleSpecialCharacters(combatLog);
+		List<CombatLogEntryEntity> result = new ArrayList<>();
+		for (String item : pruneLog(combatLog)) {
+			var combatLogEntryEntity = new CombatLogEntryEntity();
+			if (item.contains(Constants.KILL_KEYWORD)) {
+				setKillSection(item, combatLogEntryEntity, result);
+			} else if (item.contains(Constants.BUY_KEYWORD)) {
+				setBuySection(item, combatLogEntryEntity, result);
+			} else if (item.contains(Constants.CAST_KEYWORD)) {
+				setCastSection(item, combatLogEntryEntity, result);
+			} else if (item.contains(Constants.HIT_KEYWORD)) {
+				setHitSection(item, combatLogEntryEntity, result);
+			}
+		}
+		return result;
+	}
+
+	private static String handleSpecialCharacters(String combatLog) {
+		combatLog = combatLog.replaceAll("\\[", "~");
+		combatLog = combatLog.replaceAll("\\]", "");
+		combatLog = combatLog.replaceAll("\\(", "");
+		combatLog = combatLog.replaceAll("\\)", "");
+		return combatLog;
+	}
+
+	private List<String> pruneLog(String combatLog) {
+		List<String> splitLog = Arrays.asList(combatLog.split("~"));
+		splitLog = splitLog.stream()
+				.filter(item -> StringUtils.hasLength(item)
+						&& (item.contains(Constants.CAST_KEYWORD) || item.contains(Constants.KILL_KEYWORD)
+						|| item.contains(Constants.BUY_KEYWORD) || item.contains(Constants.HIT_KEYWORD)))
+				.collect(Collectors.toList());
+
+		splitLog = splitLog.stream().map(item -> {
+			if (item.contains(Constants.HERO_KEYWORD) || item.contains(Constants.ITEM_KEYWORD)) {
+				item = item.replace(Constants.HERO_KEYWORD, "");
+				item = item.replace(Constants.ITEM_KEYWORD, "");
+			}
+			return item;
+		}).collect(Collectors.toList());
+
+		return splitLog;
+	}
+
+	private void setKillSection(String item, CombatLogEntryEntity combatLogEntryEntity,
+			List<CombatLogEntryEntity> result) {
+		if (!item.contains(Constants.NON_HERO_KEYWORD)) {
+			final Matcher matcher = Pattern.compile("\\w+?(?= is killed by)", Pattern.MULTILINE).matcher(item);
+			final Matcher matcher2 = Pattern.compile("(?<= is killed by )\\w+", Pattern.MULTILINE).matcher(item);
+
+			combatLogEntryEntity.setActor(matcher2.find() ? matcher2.group(0) : null);
+			combatLogEntryEntity.setTarget(matcher.find() ? matcher.group(0) : null);
+			combatLogEntryEntity.setType(CombatLogEntryEntity.Type.HERO_KILLED);
+			combatLogEntryEntity.setTimestamp(findTimeStamp(item));
+			result.add(combatLogEntryEntity);
+		}
+	}
+
+	private void setBuySection(String item, CombatLogEntryEntity combatLogEntryEntity,
+			List<CombatLogEntryEntity> result) {
+		final Matcher matcherOfBuy = Pattern.compile("\\w+?(?= buys)", Pattern.MULTILINE).matcher(item);
+		final Matcher matcherOfItem = Pattern.compile("(?<= item )\\w+", Pattern.MULTILINE).matcher(item);
+
+		combatLogEntryEntity.setActor(matcherOfBuy.find() ? matcherOfBuy.group(0) : null);
+		combatLogEntryEntity.setItem(matcherOfItem.find() ? matcherOfItem.group(0) : null);
+		combatLogEntryEntity.setType(CombatLogEntryEntity.Type.ITEM_PURCHASED);
+		combatLogEntryEntity.setTimestamp(findTimeStamp(item));
+		result.add(combatLogEntryEntity);
+	}
+
+	private void setCastSection(String item, CombatLogEntryEntity combatLogEntryEntity,
+			List<CombatLogEntryEntity> result) {
+		final Matcher matcherOfCast = Pattern.compile("\\w+?(?= casts ability)", Pattern.MULTILINE).matcher(item);
+		final Matcher matcherOfLevel = Pattern.compile("(?<= lvl )[1-9]", Pattern.MULTILINE).matcher(item);
+		final Matcher matcherOfAbility = Pattern.compile("(?<= ability )\\w+", Pattern.MULTILINE).matcher(item);
+
+		combatLogEntryEntity.setActor(matcherOfCast.find() ? matcherOfCast.group(0) : null);
+		combatLogEntryEntity.setAbilityLevel(matcherOfLevel.find() ? Integer.parseInt(matcherOfLevel.group(0)) : null);
+		combatLogEntryEntity.setAbility(matcherOfAbility.find() ? matcherOfAbility.group(0) : null);
+		combatLogEntryEntity.setType(CombatLogEntryEntity.Type.SPELL_CAST);
+		combatLogEntryEntity.setTimestamp(findTimeStamp(item));
+		result.add(combatLogEntryEntity);
+	}
+
+	private void setHitSection(String item, CombatLogEntryEntity combatLogEntryEntity,
+			List<CombatLogEntryEntity> result) {
+		final Matcher matcherOfHit = Pattern.compile("\\w+?(?= hits)", Pattern.MULTILINE).matcher(item);
+		final Matcher matcherOfAfterHit = Pattern.compile("(?<= hits )\\w+", Pattern.MULTILINE).matcher(item);
+		final Matcher matcherOfWith = Pattern.compile("(?<= with )\\w+", Pattern.MULTILINE).matcher(item);
+		final Matcher matcherOfAfterWith = Pattern.compile("(?<= for )[1-9]+", Pattern.MULTILINE).matcher(item);
+
+		combatLogEntryEntity.setActor(matcherOfHit.find() ? matcherOfHit.group(0) : null);
+		combatLogEntryEntity.setTarget(matcherOfAfterHit.find() ? matcherOfAfterHit.group(0) : null);
+		combatLogEntryEntity.setAbility(matcherOfWith.find() ? matcherOfWith.group(0) : null);
+		combatLogEntryEntity.setDamage(
+				matcherOfAfterWith.find() ? Integer.parseInt(matcherOfAfterWith.group(0)) : null);
+		combatLogEntryEntity.setType(CombatLogEntryEntity.Type.DAMAGE_DONE);
+		combatLogEntryEntity.setTimestamp(findTimeStamp(item));
+		result.add(combatLogEntryEntity);
+	}
+
+	private Long findTimeStamp(String item) {
+		final Matcher matcherOfTime = Pattern.compile("\\d[0-9]+", Pattern.MULTILINE).matcher(item);
+		int index = 0;
+		long result = 0;
+
+		while (matcherOfTime.find()) {
+			if (index == 0) {
+				result += Long.parseLong(matcherOfTime.group(0)) * Constants.HOUR_EQ_SECONDS
+						* Constants.MILLISECOND_MULTIPLIER;
+			} else if (index == 1) {
+				result += Long.parseLong(matcherOfTime.group(0)) * Constants.MINUTE_EQ_SECONDS
+						* Constants.MILLISECOND_MULTIPLIER;
+			} else if (index == 2) {
+				result += Long.parseLong(matcherOfTime.group(0)) * Constants.MILLISECOND_MULTIPLIER;
+			} else if (index == 3) {
+				result += Long.parseLong(matcherOfTime.group(0));
+				break;
+			}
+			index += 1;
+		}
+
+		return result;
+	}
+
+}
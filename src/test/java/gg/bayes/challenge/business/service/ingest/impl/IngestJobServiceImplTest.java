@@ -0,0 +1,120 @@
+package gg.bayes.challenge.business.service.ingest.impl;
+
+import gg.bayes.challenge.business.service.match.ContentHash;
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.common.exception.IngestQueueFullException;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.config.rest.model.IngestJobStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IngestJobServiceImplTest {
+
+	private final MatchLogCommandService matchLogCommandService = mock(MatchLogCommandService.class);
+	private final CountDownLatch release = new CountDownLatch(1);
+	private IngestJobServiceImpl service;
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		service.destroy();
+	}
+
+	@Test
+	void rejectsSubmissionsOnceWorkersAndQueueAreBusy() throws Exception {
+		when(matchLogCommandService.importData(any(Reader.class), anyString())).thenAnswer(invocation -> {
+			release.await(10, TimeUnit.SECONDS);
+			return 42L;
+		});
+		var properties = new IngestProperties();
+		properties.setAsyncWorkers(1);
+		properties.setAsyncQueueCapacity(1);
+		service = new IngestJobServiceImpl(matchLogCommandService, properties);
+
+		var running = service.submit(new StringReader("log"));
+		var queued = service.submit(new StringReader("log"));
+		var rejected = new StringReader("log");
+		assertThatThrownBy(() -> service.submit(rejected))
+				.isInstanceOf(IngestQueueFullException.class);
+		// Rejected before the body is spooled.
+		assertThat(rejected.read()).isEqualTo('l');
+
+		release.countDown();
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+			assertThat(service.getStatus(running.getJobId())).get()
+					.extracting(IngestJobStatus::getState, IngestJobStatus::getMatchId)
+					.containsExactly(IngestJobStatus.State.COMPLETED, 42L);
+			assertThat(service.getStatus(queued.getJobId())).get()
+					.extracting(IngestJobStatus::getState)
+					.isEqualTo(IngestJobStatus.State.COMPLETED);
+		});
+	}
+
+	@Test
+	void keepsUnfinishedJobsPastTheRetention() throws Exception {
+		when(matchLogCommandService.importData(any(Reader.class), anyString())).thenAnswer(invocation -> {
+			release.await(10, TimeUnit.SECONDS);
+			return 42L;
+		});
+		var properties = new IngestProperties();
+		properties.setAsyncWorkers(1);
+		properties.setAsyncJobRetention(Duration.ofMillis(50));
+		service = new IngestJobServiceImpl(matchLogCommandService, properties);
+
+		var running = service.submit(new StringReader("log"));
+		var queued = service.submit(new StringReader("log"));
+		Thread.sleep(200);
+		assertThat(service.getStatus(running.getJobId())).get()
+				.extracting(IngestJobStatus::getState).isEqualTo(IngestJobStatus.State.RUNNING);
+		assertThat(service.getStatus(queued.getJobId())).get()
+				.extracting(IngestJobStatus::getState).isEqualTo(IngestJobStatus.State.QUEUED);
+
+		release.countDown();
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+			assertThat(service.getStatus(running.getJobId())).isEmpty();
+			assertThat(service.getStatus(queued.getJobId())).isEmpty();
+		});
+	}
+
+	@Test
+	void importsTheSpoolWithTheHashTakenWhileSpoolingIt() {
+		service = new IngestJobServiceImpl(matchLogCommandService, new IngestProperties());
+
+		service.submit(new StringReader("first line\nsecond line\n"));
+
+		verify(matchLogCommandService, timeout(5000)).importData(any(Reader.class),
+				eq(ContentHash.of(List.of("first line", "second line"))));
+	}
+
+	@Test
+	void reportsFailedIngests() {
+		when(matchLogCommandService.importData(any(Reader.class), anyString()))
+				.thenThrow(new RuntimeException("There is no data to process for the related file."));
+		service = new IngestJobServiceImpl(matchLogCommandService, new IngestProperties());
+
+		var job = service.submit(new StringReader("nothing to see"));
+
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(service.getStatus(job.getJobId())).get()
+				.extracting(IngestJobStatus::getState, IngestJobStatus::getError)
+				.containsExactly(IngestJobStatus.State.FAILED, "There is no data to process for the related file."));
+	}
+
+}
@@ -0,0 +1,148 @@
+package gg.bayes.challenge.business.service.live.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import gg.bayes.challenge.business.aggregate.MatchStatsAccumulator;
+import gg.bayes.challenge.business.event.MatchIngestedEvent;
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.business.service.match.MatchLogQueryService;
+import gg.bayes.challenge.business.service.match.MatchPosition;
+import gg.bayes.challenge.config.properties.LiveProperties;
+import gg.bayes.challenge.config.rest.cache.MatchResponseCache;
+import gg.bayes.challenge.config.rest.controller.MatchController;
+import gg.bayes.challenge.config.rest.model.HeroKills;
+import gg.bayes.challenge.persistence.model.ColumnarMatchSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class MatchLiveServiceImplTest {
+
+	private static final long MATCH_ID = 1L;
+
+	private final MatchLogCommandService matchLogCommandService = mock(MatchLogCommandService.class);
+	private final MatchLogQueryService matchLogQueryService = mock(MatchLogQueryService.class);
+	private MatchLiveServiceImpl service;
+	private MockMvc mvc;
+
+	@BeforeEach
+	void setup() {
+		var properties = new LiveProperties();
+		properties.setPushInterval(Duration.ofHours(1));
+		service = new MatchLiveServiceImpl(matchLogQueryService, matchLogCommandService, properties,
+				new ObjectMapper());
+		mvc = MockMvcBuilders.standaloneSetup(new MatchController(matchLogCommandService, matchLogQueryService,
+				service, mock(MatchResponseCache.class))).build();
+		when(matchLogQueryService.getHeroesByMatch(MATCH_ID)).thenReturn(List.of());
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.destroy();
+	}
+
+	@Test
+	void deltasCoveredByTheSnapshotOfAConnectingSubscriberAreNotSentToIt() throws Exception {
+		readSnapshot(position(1), 3, null);
+		var first = subscribe();
+
+		// Pending when the second subscriber connects, so already part of its snapshot.
+		service.onMatchIngested(kill(position(2)));
+		// Committed before the snapshot is read, but announced while it is.
+		readSnapshot(position(3), 5, kill(position(3)));
+		var second = subscribe();
+		service.onMatchIngested(kill(position(4)));
+		service.pushDeltas();
+
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+			assertThat(kills(first)).isEqualTo(6);
+			assertThat(kills(second)).isEqualTo(6);
+		});
+	}
+
+	@Test
+	void deltasPushedWhileTheSnapshotIsReadFollowIt() throws Exception {
+		readSnapshot(position(1), 3, null);
+		var first = subscribe();
+		service.onMatchIngested(kill(position(2)));
+		when(matchLogCommandService.readAtPosition(eq(MATCH_ID), any())).thenAnswer(invocation -> {
+			// The pending deltas are pushed, and another append is announced, before the snapshot is queued.
+			service.pushDeltas();
+			service.onMatchIngested(kill(position(3)));
+			service.pushDeltas();
+			return snapshotAt(invocation.getArgument(1), position(2), 4);
+		});
+		var second = subscribe();
+
+		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+			assertThat(kills(first)).isEqualTo(5);
+			assertThat(kills(second)).isEqualTo(5);
+		});
+		assertThat(second.getContentAsString()).startsWith("event:snapshot");
+	}
+
+	private void readSnapshot(MatchPosition position, int kills, MatchIngestedEvent announcedWhileReading) {
+		when(matchLogCommandService.readAtPosition(eq(MATCH_ID), any())).thenAnswer(invocation -> {
+			if (announcedWhileReading != null) {
+				service.onMatchIngested(announcedWhileReading);
+			}
+			return snapshotAt(invocation.getArgument(1), position, kills);
+		});
+	}
+
+	private Object snapshotAt(Function<MatchPosition, ?> read, MatchPosition position, int kills) {
+		when(matchLogQueryService.getHeroKillsByMatch(anyLong())).thenReturn(List.of(new HeroKills("bane", kills)));
+		return read.apply(position);
+	}
+
+	private MockHttpServletResponse subscribe() throws Exception {
+		return mvc.perform(get("/api/match/{matchId}/live", MATCH_ID))
+				.andExpect(request().asyncStarted())
+				.andReturn()
+				.getResponse();
+	}
+
+	/**
+	 * @return the kills of bane over every event the subscriber received
+	 */
+	private static int kills(MockHttpServletResponse subscription) throws Exception {
+		int kills = 0;
+		for (String event : subscription.getContentAsString().split("\n\n")) {
+			String data = event.substring(event.indexOf("data:") + "data:".length());
+			List<Integer> heroKills = JsonPath.read(data, "$.kills[?(@.hero == 'bane')].kills");
+			kills += heroKills.stream().mapToInt(Integer::intValue).sum();
+		}
+		return kills;
+	}
+
+	private static MatchIngestedEvent kill(MatchPosition position) {
+		var stats = new MatchStatsAccumulator();
+		stats.addAll(new ColumnarMatchSummary(Set.of(), Map.of("bane", 1), Map.of(), Map.of(), Map.of()));
+		return new MatchIngestedEvent(MATCH_ID, stats, true, position);
+	}
+
+	private static MatchPosition position(long lastTimestamp) {
+		return new MatchPosition(lastTimestamp, 1);
+	}
+
+}
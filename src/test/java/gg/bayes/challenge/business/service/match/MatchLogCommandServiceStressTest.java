@@ -0,0 +1,82 @@
+package gg.bayes.challenge.business.service.match;
+
+import gg.bayes.challenge.business.dictionary.NamePool;
+import gg.bayes.challenge.business.parser.CombatLogTokenizer;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import gg.bayes.challenge.persistence.repository.CombatLogEntryRepository;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ingests the same log many times at once, with deduplication off so each ingest gets its own match, and checks
+ * that every match ends up with exactly the entries a sequential parse produces.
+ */
+@SpringBootTest(properties = { "dota.ingest.chunk-size=1500", "dota.ingest.deduplicate=false" })
+class MatchLogCommandServiceStressTest {
+
+	private static final String COMBATLOG_FILE = "/data/combatlog_1.log.txt";
+	private static final int CONCURRENT_INGESTS = 16;
+
+	@Autowired
+	private MatchLogCommandService matchLogCommandService;
+
+	@Autowired
+	private CombatLogEntryRepository combatLogEntryRepository;
+
+	@Test
+	void concurrentIngestsProduceIdenticalEntryCounts() throws Exception {
+		String combatLog = IOUtils.resourceToString(COMBATLOG_FILE, StandardCharsets.UTF_8);
+		Map<CombatLogEntryEntity.Type, Long> expected = combatLog.lines()
+				.map(new CombatLogTokenizer(new NamePool(new IngestProperties()))::tokenize)
+				.filter(Objects::nonNull)
+				.collect(Collectors.groupingBy(CombatLogEntryEntity::getType,
+						() -> new EnumMap<>(CombatLogEntryEntity.Type.class), Collectors.counting()));
+
+		var executor = Executors.newFixedThreadPool(CONCURRENT_INGESTS);
+		var start = new CountDownLatch(1);
+		List<Future<Long>> matchIds = new ArrayList<>();
+		try {
+			for (int i = 0; i < CONCURRENT_INGESTS; i++) {
+				Callable<Long> ingest = () -> {
+					start.await();
+					return matchLogCommandService.importData(combatLog);
+				};
+				matchIds.add(executor.submit(ingest));
+			}
+			start.countDown();
+
+			Set<Long> distinctMatchIds = new HashSet<>();
+			for (var matchId : matchIds) {
+				distinctMatchIds.add(matchId.get());
+				Map<CombatLogEntryEntity.Type, Long> actual = new EnumMap<>(CombatLogEntryEntity.Type.class);
+				for (var type : CombatLogEntryEntity.Type.values()) {
+					actual.put(type, combatLogEntryRepository.countByMatchIdAndType(matchId.get(), type));
+				}
+				assertThat(actual).isEqualTo(expected);
+			}
+			assertThat(distinctMatchIds).hasSize(CONCURRENT_INGESTS);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -0,0 +1,108 @@
+package gg.bayes.challenge.business.service.match.impl;
+
+import gg.bayes.challenge.business.aggregate.MatchStatsAccumulator;
+import gg.bayes.challenge.business.event.MatchIngestedEvent;
+import gg.bayes.challenge.business.metrics.QueryMetrics;
+import gg.bayes.challenge.business.service.match.MatchPosition;
+import gg.bayes.challenge.config.properties.QueryCacheProperties;
+import gg.bayes.challenge.config.rest.model.HeroKills;
+import gg.bayes.challenge.config.rest.model.HeroSpells;
+import gg.bayes.challenge.persistence.model.ColumnarMatchSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingMatchLogQueryServiceTest {
+
+	private static final MatchPosition POSITION = new MatchPosition(0, 1);
+
+	private final MatchLogQueryServiceImpl delegate = mock(MatchLogQueryServiceImpl.class);
+	private final QueryCacheProperties properties = new QueryCacheProperties();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private CachingMatchLogQueryService service;
+
+	@BeforeEach
+	void setup() {
+		when(delegate.getHeroKillsByMatch(1L)).thenReturn(List.of(new HeroKills("bane", 3)));
+		when(delegate.getHeroesByMatch(1L)).thenReturn(List.of("bane"));
+		when(delegate.getHeroSpellsByMatchAndHero(1L, "bane")).thenReturn(List.of(new HeroSpells("bane_nightmare", 4)));
+		service = new CachingMatchLogQueryService(delegate, properties, new QueryMetrics(meterRegistry), meterRegistry);
+	}
+
+	@Test
+	void repeatedQueriesAreServedFromCache() {
+		assertThat(service.getHeroKillsByMatch(1L)).containsExactly(new HeroKills("bane", 3));
+		assertThat(service.getHeroKillsByMatch(1L)).containsExactly(new HeroKills("bane", 3));
+
+		verify(delegate, times(1)).getHeroKillsByMatch(1L);
+		assertThat(meterRegistry.get("cache.gets").tag("cache", CachingMatchLogQueryService.CACHE_NAME)
+				.tag("result", "hit").functionCounter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void ingestInvalidatesAndOptionallyWarmsTheMatch() {
+		service.getHeroKillsByMatch(1L);
+		service.onMatchIngested(new MatchIngestedEvent(1L, new MatchStatsAccumulator(), false, POSITION));
+		service.getHeroKillsByMatch(1L);
+		verify(delegate, times(2)).getHeroKillsByMatch(1L);
+
+		properties.setWarmOnIngest(true);
+		service.onMatchIngested(new MatchIngestedEvent(1L, new MatchStatsAccumulator(), false, POSITION));
+		service.getHeroSpellsByMatchAndHero(1L, "bane");
+		verify(delegate, times(3)).getHeroKillsByMatch(1L);
+		verify(delegate, times(1)).getHeroSpellsByMatchAndHero(1L, "bane");
+	}
+
+	@Test
+	void warmsEveryHeroOfTheIngestedEvents() {
+		properties.setWarmOnIngest(true);
+		var stats = new MatchStatsAccumulator();
+		stats.addAll(new ColumnarMatchSummary(Set.of("mars"), Map.of(), Map.of(), Map.of(), Map.of()));
+
+		service.onMatchIngested(new MatchIngestedEvent(1L, stats, true, POSITION));
+		service.getHeroItemsByMatch(1L, "mars");
+		service.getHeroItemsByMatch(1L, "bane");
+
+		verify(delegate, times(1)).getHeroItemsByMatch(1L, "mars");
+		verify(delegate, times(1)).getHeroItemsByMatch(1L, "bane");
+	}
+
+	@Test
+	void queryRacingAnIngestDoesNotCacheItsStaleAnswer() {
+		when(delegate.getHeroKillsByMatch(2L)).thenAnswer(invocation -> {
+			// The ingest commits while the query is running.
+			service.onMatchIngested(new MatchIngestedEvent(2L, new MatchStatsAccumulator(), true, POSITION));
+			return List.of(new HeroKills("bane", 3));
+		}).thenReturn(List.of(new HeroKills("bane", 4)));
+		service.getHeroKillsByMatch(1L);
+
+		assertThat(service.getHeroKillsByMatch(2L)).containsExactly(new HeroKills("bane", 3));
+		assertThat(service.getHeroKillsByMatch(2L)).containsExactly(new HeroKills("bane", 4));
+		assertThat(service.getHeroKillsByMatch(2L)).containsExactly(new HeroKills("bane", 4));
+		service.getHeroKillsByMatch(1L);
+
+		verify(delegate, times(2)).getHeroKillsByMatch(2L);
+		verify(delegate, times(1)).getHeroKillsByMatch(1L);
+	}
+
+	@Test
+	void disabledCacheAlwaysDelegates() {
+		properties.setEnabled(false);
+		service.getHeroKillsByMatch(1L);
+		service.getHeroKillsByMatch(1L);
+
+		verify(delegate, times(2)).getHeroKillsByMatch(1L);
+	}
+
+}
@@ -0,0 +1,123 @@
+package gg.bayes.challenge.business.service.match.impl;
+
+import gg.bayes.challenge.business.aggregate.CrossMatchAggregates;
+import gg.bayes.challenge.business.metrics.IngestMetrics;
+import gg.bayes.challenge.business.metrics.QueryMetrics;
+import gg.bayes.challenge.business.parser.ParallelCombatLogParser;
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.business.service.match.TimeWindow;
+import gg.bayes.challenge.business.shard.MatchIdSpace;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.config.rest.model.HeroDamage;
+import gg.bayes.challenge.config.rest.model.HeroDamageBucket;
+import gg.bayes.challenge.persistence.repository.InMemoryColumnarMatchRepository;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The columnar engine must answer every query exactly like the JPA engine for the same log, with and without a
+ * time window.
+ */
+@SpringBootTest
+class ColumnarMatchLogQueryServiceTest {
+
+	@Autowired
+	private MatchLogCommandService matchLogCommandService;
+
+	@Autowired
+	private MatchLogQueryServiceImpl matchLogQueryService;
+
+	@Autowired
+	private ParallelCombatLogParser parallelCombatLogParser;
+
+	@Autowired
+	private IngestProperties ingestProperties;
+
+	@Autowired
+	private ApplicationEventPublisher applicationEventPublisher;
+
+	@Autowired
+	private QueryMetrics queryMetrics;
+
+	@Autowired
+	private IngestMetrics ingestMetrics;
+
+	@Autowired
+	private MatchIdSpace matchIdSpace;
+
+	@ParameterizedTest
+	@ValueSource(strings = { "/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt" })
+	void answersLikeTheJpaEngine(String file) throws Exception {
+		String combatLog = IOUtils.resourceToString(file, StandardCharsets.UTF_8);
+		var columnarMatchRepository = new InMemoryColumnarMatchRepository();
+		var columnarCommandService = new ColumnarMatchLogCommandService(columnarMatchRepository,
+				parallelCombatLogParser, ingestProperties, applicationEventPublisher, new CrossMatchAggregates(),
+				ingestMetrics, matchIdSpace);
+		var columnarQueryService = new ColumnarMatchLogQueryService(columnarMatchRepository, queryMetrics);
+
+		Long jpaMatchId = matchLogCommandService.importData(combatLog);
+		Long columnarMatchId = columnarCommandService.importData(combatLog);
+
+		assertThat(columnarQueryService.getHeroKillsByMatch(columnarMatchId)).isNotEmpty()
+				.containsExactlyInAnyOrderElementsOf(matchLogQueryService.getHeroKillsByMatch(jpaMatchId));
+		var heroes = matchLogQueryService.getHeroesByMatch(jpaMatchId);
+		assertThat(columnarQueryService.getHeroesByMatch(columnarMatchId)).containsExactlyInAnyOrderElementsOf(heroes);
+		for (String hero : heroes) {
+			assertThat(columnarQueryService.getHeroSpellsByMatchAndHero(columnarMatchId, hero))
+					.containsExactlyInAnyOrderElementsOf(
+							matchLogQueryService.getHeroSpellsByMatchAndHero(jpaMatchId, hero));
+			assertThat(columnarQueryService.getHeroDamageByMatch(columnarMatchId, hero))
+					.containsExactlyInAnyOrderElementsOf(matchLogQueryService.getHeroDamageByMatch(jpaMatchId, hero));
+			assertThat(columnarQueryService.getHeroItemsByMatch(columnarMatchId, hero))
+					.containsExactlyElementsOf(matchLogQueryService.getHeroItemsByMatch(jpaMatchId, hero));
+		}
+		assertThat(columnarQueryService.getHeroItemsByMatch(columnarMatchId, "unknown_hero")).isEmpty();
+		assertThat(columnarQueryService.getHeroKillsByMatch(columnarMatchId + 1)).isEmpty();
+		assertThat(columnarQueryService.getHeroDamageTimeline(columnarMatchId, TimeWindow.ALL)).isNotEmpty();
+
+		for (var window : List.of(TimeWindow.ALL, TimeWindow.parse("00:10:00", "00:20:00"),
+				TimeWindow.parse("00:25:00.5", null), TimeWindow.parse(null, "00:12:30"))) {
+			assertThat(columnarQueryService.getHeroKillsByMatch(columnarMatchId, window))
+					.containsExactlyInAnyOrderElementsOf(matchLogQueryService.getHeroKillsByMatch(jpaMatchId, window));
+			assertThat(columnarQueryService.getHeroDamageTimeline(columnarMatchId, window))
+					.containsExactlyElementsOf(matchLogQueryService.getHeroDamageTimeline(jpaMatchId, window));
+			for (String hero : heroes) {
+				assertThat(columnarQueryService.getHeroSpellsByMatchAndHero(columnarMatchId, hero, window))
+						.containsExactlyInAnyOrderElementsOf(
+								matchLogQueryService.getHeroSpellsByMatchAndHero(jpaMatchId, hero, window));
+				assertThat(columnarQueryService.getHeroDamageByMatch(columnarMatchId, hero, window))
+						.containsExactlyInAnyOrderElementsOf(
+								matchLogQueryService.getHeroDamageByMatch(jpaMatchId, hero, window));
+				assertThat(columnarQueryService.getHeroItemsByMatch(columnarMatchId, hero, window))
+						.containsExactlyElementsOf(matchLogQueryService.getHeroItemsByMatch(jpaMatchId, hero, window));
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = { "/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt" })
+	void timelineAddsUpToTheMatchTotals(String file) throws Exception {
+		Long matchId = matchLogCommandService.importData(IOUtils.resourceToString(file, StandardCharsets.UTF_8));
+
+		for (String hero : matchLogQueryService.getHeroesByMatch(matchId)) {
+			long timeline = matchLogQueryService.getHeroDamageTimeline(matchId, TimeWindow.ALL).stream()
+					.filter(bucket -> bucket.getHero().equals(hero))
+					.mapToLong(HeroDamageBucket::getTotalDamage)
+					.sum();
+			long total = matchLogQueryService.getHeroDamageByMatch(matchId, hero).stream()
+					.mapToLong(HeroDamage::getTotalDamage)
+					.sum();
+			assertThat(timeline).isEqualTo(total);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+package gg.bayes.challenge.business.shard;
+
+import gg.bayes.challenge.config.properties.ShardingProperties;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MatchIdSpaceTest {
+
+	@Test
+	void nodesAllocateDistinctIdsTheyOwn() {
+		Set<Long> allocated = new HashSet<>();
+		for (int node = 0; node < 3; node++) {
+			var matchIdSpace = new MatchIdSpace(sharding(3, node));
+			for (long sequenceValue = 1; sequenceValue <= 1000; sequenceValue++) {
+				long id = matchIdSpace.allocate(sequenceValue);
+				assertThat(matchIdSpace.ownerOf(id)).isEqualTo(node);
+				assertThat(matchIdSpace.sequenceValueOf(id)).isEqualTo(sequenceValue);
+				assertThat(allocated.add(id)).isTrue();
+			}
+		}
+	}
+
+	@Test
+	void addingANodeMovesNoMatch() {
+		var grown = new MatchIdSpace(sharding(4, 0));
+		for (int node = 0; node < 3; node++) {
+			var matchIdSpace = new MatchIdSpace(sharding(3, node));
+			for (long sequenceValue = 1; sequenceValue <= 1000; sequenceValue++) {
+				assertThat(grown.ownerOf(matchIdSpace.allocate(sequenceValue))).isEqualTo(node);
+			}
+		}
+	}
+
+	@Test
+	void usesTheSequenceAsIsWithoutSharding() {
+		var matchIdSpace = new MatchIdSpace(new ShardingProperties());
+
+		assertThat(matchIdSpace.allocate(42)).isEqualTo(42);
+		assertThat(matchIdSpace.sequenceValueOf(42)).isEqualTo(42);
+		assertThat(matchIdSpace.isLocal(43)).isTrue();
+	}
+
+	private static ShardingProperties sharding(int nodes, int nodeIndex) {
+		var sharding = new ShardingProperties();
+		sharding.setEnabled(true);
+		sharding.setNodes(IntStream.range(0, nodes)
+				.mapToObj(node -> URI.create("http://node-" + node))
+				.collect(Collectors.toList()));
+		sharding.setNodeIndex(nodeIndex);
+		return sharding;
+	}
+
+}
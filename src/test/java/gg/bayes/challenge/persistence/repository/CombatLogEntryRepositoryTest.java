@@ -0,0 +1,62 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.business.dictionary.NameDictionary;
+import gg.bayes.challenge.business.service.match.MatchLogCommandService;
+import gg.bayes.challenge.business.service.match.MatchLogQueryService;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The GROUP BY projections must agree with the summary tables written at ingest time.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest
+class CombatLogEntryRepositoryTest {
+
+	private static final String COMBATLOG_FILE = "/data/combatlog_2.log.txt";
+
+	@Autowired
+	private MatchLogCommandService matchLogCommandService;
+
+	@Autowired
+	private MatchLogQueryService matchLogQueryService;
+
+	@Autowired
+	private CombatLogEntryRepository combatLogEntryRepository;
+
+	@Autowired
+	private NameDictionary nameDictionary;
+
+	private Long matchId;
+
+	@BeforeAll
+	void setup() throws Exception {
+		matchId = matchLogCommandService.importData(IOUtils.resourceToString(COMBATLOG_FILE, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void projectionsMatchSummaryTables() {
+		var kills = combatLogEntryRepository.countHeroKills(matchId);
+		assertThat(kills).isNotEmpty().containsExactlyInAnyOrderElementsOf(
+				matchLogQueryService.getHeroKillsByMatch(matchId));
+
+		for (var hero : kills) {
+			Integer actorId = nameDictionary.find(hero.getHero());
+			assertThat(combatLogEntryRepository.countHeroSpells(matchId, actorId))
+					.containsExactlyInAnyOrderElementsOf(
+							matchLogQueryService.getHeroSpellsByMatchAndHero(matchId, hero.getHero()));
+			assertThat(combatLogEntryRepository.sumHeroDamage(matchId, actorId))
+					.containsExactlyInAnyOrderElementsOf(
+							matchLogQueryService.getHeroDamageByMatch(matchId, hero.getHero()));
+		}
+	}
+
+}
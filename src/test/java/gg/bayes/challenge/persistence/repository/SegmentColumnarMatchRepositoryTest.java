@@ -0,0 +1,145 @@
+package gg.bayes.challenge.persistence.repository;
+
+import gg.bayes.challenge.business.aggregate.MatchStatsAccumulator;
+import gg.bayes.challenge.business.dictionary.NamePool;
+import gg.bayes.challenge.business.parser.CombatLogTokenizer;
+import gg.bayes.challenge.config.properties.IngestProperties;
+import gg.bayes.challenge.persistence.model.ColumnarMatch;
+import gg.bayes.challenge.persistence.model.ColumnarMatchSummary;
+import gg.bayes.challenge.persistence.model.CombatLogEntryEntity;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentColumnarMatchRepositoryTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void servesMatchesOfEarlierRunsAfterRestart() throws Exception {
+		var repository = new SegmentColumnarMatchRepository(directory, 1_000_000);
+		var entries = parse("/data/combatlog_1.log.txt");
+		var match = build(entries, repository.nextId());
+		repository.save(match, summarize(entries));
+		Files.writeString(directory.resolve("match-9-123.partial"), "interrupted");
+		Path folded = directory.resolve("match-" + match.getId() + "-0.seg");
+		Files.writeString(folded, "folded before the crash");
+
+		var restarted = new SegmentColumnarMatchRepository(directory, 1_000_000);
+		var loaded = restarted.findById(match.getId()).orElseThrow();
+
+		assertThat(loaded.getSize()).isEqualTo(match.getSize()).isPositive();
+		assertThat(loaded.getTimestamps()).isEqualTo(match.getTimestamps());
+		assertThat(loaded.getTypes()).isEqualTo(match.getTypes());
+		assertThat(loaded.getActors()).isEqualTo(match.getActors());
+		assertThat(loaded.getTargets()).isEqualTo(match.getTargets());
+		assertThat(loaded.getAbilities()).isEqualTo(match.getAbilities());
+		assertThat(loaded.getItems()).isEqualTo(match.getItems());
+		assertThat(loaded.getDamage()).isEqualTo(match.getDamage());
+		assertThat(loaded.getNames()).isEqualTo(match.getNames());
+		assertThat(restarted.findById(match.getId() + 1)).isEmpty();
+		assertThat(restarted.findAllIds()).containsExactly(match.getId());
+		assertThat(restarted.nextId()).isEqualTo(match.getId() + 1);
+		assertThat(directory.resolve("match-9-123.partial")).doesNotExist();
+		assertThat(folded).doesNotExist();
+		assertThat(restarted.findSummaries(match.getId())).singleElement()
+				.usingRecursiveComparison()
+				.isEqualTo(summarize(entries));
+	}
+
+	@Test
+	void storesAppendsAsDeltasUntilTheyAreFolded() throws Exception {
+		var repository = new SegmentColumnarMatchRepository(directory, 1_000_000);
+		var entries = parse("/data/combatlog_1.log.txt");
+		Long matchId = repository.nextId();
+		int parts = SegmentColumnarMatchRepository.MAX_DELTAS + 3;
+		int partSize = entries.size() / parts + 1;
+		var match = build(entries.subList(0, partSize), matchId);
+		repository.save(match, summarize(entries.subList(0, partSize)));
+		for (int from = partSize; from < entries.size(); from += partSize) {
+			var part = entries.subList(from, Math.min(from + partSize, entries.size()));
+			var appended = build(part, matchId);
+			match = new ColumnarMatch.Builder(match).addAll(appended).build(matchId);
+			repository.append(match, appended, summarize(part));
+		}
+
+		// The 17th append folded the 16 deltas before it into the full segment, the 18th started a new delta.
+		try (Stream<Path> files = Files.list(directory)) {
+			assertThat(files.map(file -> file.getFileName().toString()))
+					.containsExactlyInAnyOrder("match-1.seg", "match-1-18.seg");
+		}
+		var restarted = new SegmentColumnarMatchRepository(directory, 1_000_000);
+		var loaded = restarted.findById(matchId).orElseThrow();
+		var whole = build(entries, matchId);
+		assertThat(loaded.getTimestamps()).isEqualTo(whole.getTimestamps());
+		assertThat(loaded.getActors()).isEqualTo(whole.getActors());
+		assertThat(loaded.getItems()).isEqualTo(whole.getItems());
+		assertThat(loaded.getNames()).isEqualTo(whole.getNames());
+		var summaries = restarted.findSummaries(matchId);
+		assertThat(summaries).hasSize(2);
+		assertThat(ColumnarMatchSummary.merge(summaries).getKills()).isEqualTo(summarize(entries).getKills());
+	}
+
+	@Test
+	void continuesTheSequenceOfAShardedNodeAfterRestart() throws Exception {
+		LongUnaryOperator sequenceValueOf = id -> id / 64;
+		var repository = new SegmentColumnarMatchRepository(directory, 1_000_000, sequenceValueOf);
+		var entries = parse("/data/combatlog_2.log.txt");
+		long sequenceValue = repository.nextId();
+		repository.save(build(entries, sequenceValue * 64 + 5), summarize(entries));
+
+		var restarted = new SegmentColumnarMatchRepository(directory, 1_000_000, sequenceValueOf);
+
+		assertThat(restarted.nextId()).isEqualTo(sequenceValue + 1);
+	}
+
+	@Test
+	void rejectsTruncatedSegments() throws Exception {
+		var repository = new SegmentColumnarMatchRepository(directory, 1_000_000);
+		var entries = parse("/data/combatlog_2.log.txt");
+		repository.save(build(entries, repository.nextId()), summarize(entries));
+		Path segment = directory.resolve("match-1.seg");
+		byte[] bytes = Files.readAllBytes(segment);
+		Files.write(segment, Arrays.copyOf(bytes, bytes.length / 2));
+
+		var restarted = new SegmentColumnarMatchRepository(directory, 1_000_000);
+		assertThatThrownBy(() -> restarted.findById(1L))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("match-1.seg");
+	}
+
+	private static List<CombatLogEntryEntity> parse(String file) throws Exception {
+		var tokenizer = new CombatLogTokenizer(new NamePool(new IngestProperties()));
+		return IOUtils.resourceToString(file, StandardCharsets.UTF_8).lines()
+				.map(tokenizer::tokenize)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+	}
+
+	private static ColumnarMatch build(List<CombatLogEntryEntity> entries, Long id) {
+		var builder = new ColumnarMatch.Builder();
+		entries.forEach(builder::add);
+		return builder.build(id);
+	}
+
+	private static ColumnarMatchSummary summarize(List<CombatLogEntryEntity> entries) {
+		var stats = new MatchStatsAccumulator();
+		stats.addAll(entries);
+		return stats.summary();
+	}
+
+}
@@ -0,0 +1,79 @@
+package gg.bayes.challenge.rest.controller;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The endpoints served from the columnar engine instead of JPA.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "dota.storage.engine=columnar")
+class ColumnarEngineIntegrationTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void ingestAndQuery() throws Exception {
+		String matchId = mvc.perform(post("/api/match")
+						.contentType(MediaType.TEXT_PLAIN)
+						.content(IOUtils.resourceToString("/data/combatlog_1.log.txt", StandardCharsets.UTF_8)))
+				.andExpect(status().isOk())
+				.andReturn()
+				.getResponse()
+				.getContentAsString();
+
+		mvc.perform(get("/api/match/{matchId}", matchId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(10))
+				.andExpect(jsonPath("$[?(@.hero == 'bloodseeker')].kills", contains(11)));
+		mvc.perform(get("/api/match/{matchId}/{heroName}/spells", matchId, "abyssal_underlord"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.spell == 'abyssal_underlord_firestorm')].casts", contains(67)));
+		mvc.perform(get("/api/match/{matchId}/{heroName}/items", matchId, "mars"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(28));
+	}
+
+	@Test
+	void appendExtendsTheStoredMatch() throws Exception {
+		List<String> lines = IOUtils.resourceToString("/data/combatlog_1.log.txt", StandardCharsets.UTF_8).lines()
+				.collect(Collectors.toList());
+		int half = lines.size() / 2;
+		String matchId = mvc.perform(post("/api/match")
+						.contentType(MediaType.TEXT_PLAIN)
+						.content(String.join("\n", lines.subList(0, half))))
+				.andExpect(status().isOk())
+				.andReturn()
+				.getResponse()
+				.getContentAsString();
+		mvc.perform(post("/api/match/{matchId}/events", matchId)
+						.contentType(MediaType.TEXT_PLAIN)
+						.content(String.join("\n", lines.subList(half - 20, lines.size()))))
+				.andExpect(status().isOk());
+
+		mvc.perform(get("/api/match/{matchId}", matchId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(10))
+				.andExpect(jsonPath("$[?(@.hero == 'bloodseeker')].kills", contains(11)));
+		mvc.perform(get("/api/match/{matchId}/{heroName}/items", matchId, "mars"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(28));
+	}
+
+}
@@ -0,0 +1,62 @@
+package gg.bayes.challenge.rest.controller;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The fast-startup profile starts against the schema of {@code db/schema.sql}, which Hibernate validates, so this
+ * also fails whenever the entities and the script drift apart.
+ */
+@AutoConfigureMockMvc
+@ActiveProfiles("fast-startup")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:fast-startup")
+class FastStartupProfileTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Test
+	void ingestAndQueryOnTheScriptedSchema() throws Exception {
+		String matchId = mvc.perform(post("/api/match")
+						.contentType(MediaType.TEXT_PLAIN)
+						.content(IOUtils.resourceToString("/data/combatlog_1.log.txt", StandardCharsets.UTF_8)))
+				.andExpect(status().isOk())
+				.andReturn()
+				.getResponse()
+				.getContentAsString();
+
+		mvc.perform(get("/api/match/{matchId}", matchId))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.hero == 'bloodseeker')].kills", contains(11)));
+		mvc.perform(get("/api/match/{matchId}/{heroName}/spells", matchId, "abyssal_underlord"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[?(@.spell == 'abyssal_underlord_firestorm')].casts", contains(67)));
+	}
+
+	@Test
+	void springfoxAndTheH2ConsoleAreLeftOut() {
+		assertThat(context.getBeanNamesForType(Docket.class)).isEmpty();
+		assertThat(context.containsBean("h2Console")).isFalse();
+	}
+
+}
@@ -1,21 +1,53 @@
 package gg.bayes.challenge.rest.controller;
 
+import com.github.luben.zstd.Zstd;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /*
  * Integration test template to get you started. Add tests and make modifications as you see fit.
@@ -24,6 +56,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
 @AutoConfigureMockMvc
+@AutoConfigureMetrics
 class MatchControllerIntegrationTest {
 
     private static final String COMBATLOG_FILE_1 = "/data/combatlog_1.log.txt";
@@ -32,6 +65,9 @@ class MatchControllerIntegrationTest {
     @Autowired
     private MockMvc mvc;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Map<String, Long> matchIds;
 
     @BeforeAll
@@ -50,6 +86,364 @@ class MatchControllerIntegrationTest {
         assertThat(mvc).isNotNull();
     }
 
+    @Test
+    void ingestedMatchReturnsHeroKills() throws Exception {
+        mvc.perform(get("/api/match/{matchId}", matchIds.get(COMBATLOG_FILE_1)))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$", hasSize(10)))
+           .andExpect(jsonPath("$[?(@.hero == 'bloodseeker')].kills", contains(11)))
+           .andExpect(jsonPath("$[?(@.hero == 'snapfire')].kills", contains(2)));
+    }
+
+    @Test
+    void ingestedMatchReturnsHeroSpells() throws Exception {
+        mvc.perform(get("/api/match/{matchId}/{heroName}/spells", matchIds.get(COMBATLOG_FILE_1), "abyssal_underlord"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$", hasSize(4)))
+           .andExpect(jsonPath("$[?(@.spell == 'abyssal_underlord_firestorm')].casts", contains(67)))
+           .andExpect(jsonPath("$[?(@.spell == 'abyssal_underlord_pit_of_malice')].casts", contains(14)));
+    }
+
+    @Test
+    void ingestedMatchReturnsHeroDamage() throws Exception {
+        mvc.perform(get("/api/match/{matchId}/{heroName}/damage", matchIds.get(COMBATLOG_FILE_1), "bane"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$", hasSize(5)))
+           .andExpect(jsonPath("$[?(@.target == 'puck')].damage_instances", contains(32)))
+           .andExpect(jsonPath("$[?(@.target == 'puck')].total_damage", contains(2761)));
+    }
+
+    @Test
+    void ingestedMatchReturnsHeroItems() throws Exception {
+        mvc.perform(get("/api/match/{matchId}/{heroName}/items", matchIds.get(COMBATLOG_FILE_1), "mars"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$", hasSize(28)));
+    }
+
+    @Test
+    void timeWindowNarrowsTheResults() throws Exception {
+        mvc.perform(get("/api/match/{matchId}/{heroName}/items", matchIds.get(COMBATLOG_FILE_1), "mars")
+                        .param("from", "00:10:00")
+                        .param("to", "00:20:00"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$[*].timestamp", everyItem(allOf(greaterThanOrEqualTo(600_000), lessThan(1_200_000)))));
+        mvc.perform(get("/api/match/{matchId}/timeline/damage", matchIds.get(COMBATLOG_FILE_1))
+                        .param("from", "00:15:00"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$[0].minute").value(15))
+           .andExpect(jsonPath("$[0].total_damage").isNumber());
+        mvc.perform(get("/api/match/{matchId}", matchIds.get(COMBATLOG_FILE_1)).param("from", "ten minutes"))
+           .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/match/{matchId}", matchIds.get(COMBATLOG_FILE_1))
+                        .param("from", "00:20:00")
+                        .param("to", "00:10:00"))
+           .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void batchUploadImportsEveryLogAsItsOwnMatch() throws Exception {
+        var log1 = new MockMultipartFile("logs", "combatlog_1.txt", MediaType.TEXT_PLAIN_VALUE,
+                variant(COMBATLOG_FILE_1, "batch a").getBytes(StandardCharsets.UTF_8));
+        var log2 = new MockMultipartFile("logs", "combatlog_2.txt", MediaType.TEXT_PLAIN_VALUE,
+                variant(COMBATLOG_FILE_2, "batch a").getBytes(StandardCharsets.UTF_8));
+        var log3 = new MockMultipartFile("logs", "combatlog_3.txt", MediaType.TEXT_PLAIN_VALUE,
+                variant(COMBATLOG_FILE_1, "batch b").getBytes(StandardCharsets.UTF_8));
+        String response = mvc.perform(multipart("/api/match/batch").file(log1).file(log2).file(log3))
+                             .andExpect(status().isOk())
+                             .andExpect(jsonPath("$", hasSize(3)))
+                             .andReturn()
+                             .getResponse()
+                             .getContentAsString();
+        List<Integer> batchIds = JsonPath.read(response, "$");
+
+        assertThat(batchIds).doesNotHaveDuplicates().noneMatch(id -> matchIds.containsValue(id.longValue()));
+        for (int index : new int[] { 0, 2 }) {
+            mvc.perform(get("/api/match/{matchId}", batchIds.get(index)))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$", hasSize(10)))
+               .andExpect(jsonPath("$[?(@.hero == 'bloodseeker')].kills", contains(11)));
+        }
+        mvc.perform(get("/api/match/{matchId}/{heroName}/items", batchIds.get(1), "mars"))
+           .andExpect(status().isOk())
+           .andExpect(content().json(mvc.perform(get("/api/match/{matchId}/{heroName}/items",
+                                                      matchIds.get(COMBATLOG_FILE_2), "mars"))
+                                        .andReturn()
+                                        .getResponse()
+                                        .getContentAsString(), true));
+    }
+
+    @Test
+    void archiveUploadImportsEveryFileOfTheArchive() throws Exception {
+        var archive = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("season/"));
+            zip.putNextEntry(new ZipEntry("season/combatlog_1.txt"));
+            zip.write(IOUtils.resourceToByteArray(COMBATLOG_FILE_1));
+            zip.putNextEntry(new ZipEntry("season/combatlog_2.txt"));
+            zip.write(IOUtils.resourceToByteArray(COMBATLOG_FILE_2));
+        }
+
+        String response = mvc.perform(post("/api/match/batch")
+                                              .contentType("application/zip")
+                                              .content(archive.toByteArray()))
+                             .andExpect(status().isOk())
+                             .andExpect(jsonPath("$", hasSize(2)))
+                             .andReturn()
+                             .getResponse()
+                             .getContentAsString();
+        Integer firstId = JsonPath.read(response, "$[0]");
+
+        mvc.perform(get("/api/match/{matchId}/{heroName}/spells", firstId, "abyssal_underlord"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$[?(@.spell == 'abyssal_underlord_firestorm')].casts", contains(67)));
+    }
+
+    @Test
+    void asyncIngestCompletesWithTheSameResults() throws Exception {
+        String fileContent = IOUtils.resourceToString(COMBATLOG_FILE_1, StandardCharsets.UTF_8);
+        String jobId = JsonPath.read(mvc.perform(post("/api/match/jobs")
+                                                .contentType(MediaType.TEXT_PLAIN)
+                                                .content(fileContent))
+                                        .andExpect(status().isAccepted())
+                                        .andExpect(header().exists("Location"))
+                                        .andReturn()
+                                        .getResponse()
+                                        .getContentAsString(), "$.job_id");
+
+        await().atMost(30, TimeUnit.SECONDS).untilAsserted(() ->
+                mvc.perform(get("/api/match/jobs/{jobId}", jobId))
+                   .andExpect(status().isOk())
+                   .andExpect(jsonPath("$.state").value("COMPLETED"))
+                   .andExpect(jsonPath("$.progress").value(100)));
+        Integer matchId = JsonPath.read(mvc.perform(get("/api/match/jobs/{jobId}", jobId))
+                                           .andReturn()
+                                           .getResponse()
+                                           .getContentAsString(), "$.match_id");
+
+        mvc.perform(get("/api/match/{matchId}", matchId))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$[?(@.hero == 'bloodseeker')].kills", contains(11)));
+        mvc.perform(get("/api/match/jobs/{jobId}", "unknown"))
+           .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void appendedChunksAddUpToTheWholeLog() throws Exception {
+        List<String> lines = IOUtils.resourceToString(COMBATLOG_FILE_1, StandardCharsets.UTF_8).lines()
+                                    .collect(Collectors.toList());
+        int third = lines.size() / 3;
+        String matchId = mvc.perform(post("/api/match")
+                                     .contentType(MediaType.TEXT_PLAIN)
+                                     .content(String.join("\n", lines.subList(0, third))))
+                            .andExpect(status().isOk())
+                            .andReturn()
+                            .getResponse()
+                            .getContentAsString();
+        // Overlapping chunks: the lines resent at the start of each chunk must not be stored twice.
+        append(matchId, lines.subList(third - 50, 2 * third));
+        append(matchId, lines.subList(2 * third - 10, lines.size()));
+        mvc.perform(post("/api/match/{matchId}/events", matchId)
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .content(String.join("\n", lines)))
+           .andExpect(status().isOk())
+           .andExpect(content().string("0"));
+
+        Long wholeMatchId = matchIds.get(COMBATLOG_FILE_1);
+        assertSameResponse("/api/match/{matchId}", matchId, wholeMatchId);
+        for (String hero : List.of("abyssal_underlord", "bane", "mars", "bloodseeker")) {
+            assertSameResponse("/api/match/{matchId}/" + hero + "/spells", matchId, wholeMatchId);
+            assertSameResponse("/api/match/{matchId}/" + hero + "/damage", matchId, wholeMatchId);
+            assertSameResponse("/api/match/{matchId}/" + hero + "/items", matchId, wholeMatchId);
+        }
+        mvc.perform(post("/api/match/{matchId}/events", Long.MAX_VALUE)
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .content(lines.get(0)))
+           .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void liveSubscribersReceiveASnapshotAndThenDeltas() throws Exception {
+        List<String> lines = IOUtils.resourceToString(COMBATLOG_FILE_1, StandardCharsets.UTF_8).lines()
+                                    .collect(Collectors.toList());
+        int half = lines.size() / 2;
+        String matchId = mvc.perform(post("/api/match")
+                                     .contentType(MediaType.TEXT_PLAIN)
+                                     .content(String.join("\n", lines.subList(0, half))))
+                            .andExpect(status().isOk())
+                            .andReturn()
+                            .getResponse()
+                            .getContentAsString();
+        var subscription = mvc.perform(get("/api/match/{matchId}/live", matchId))
+                              .andExpect(request().asyncStarted())
+                              .andReturn()
+                              .getResponse();
+
+        append(matchId, lines.subList(half, lines.size()));
+        await().atMost(10, TimeUnit.SECONDS).until(() -> subscription.getContentAsString().contains("event:delta"));
+
+        // Snapshot and deltas add up to the totals of the whole match.
+        String[] events = subscription.getContentAsString().split("\n\n");
+        assertThat(events[0]).startsWith("event:snapshot");
+        int kills = 0;
+        for (String event : events) {
+            String data = event.substring(event.indexOf("data:") + "data:".length());
+            List<Integer> heroKills = JsonPath.read(data, "$.kills[?(@.hero == 'bloodseeker')].kills");
+            kills += heroKills.stream().mapToInt(Integer::intValue).sum();
+        }
+        assertThat(kills).isEqualTo(11);
+    }
+
+    @Test
+    void crossMatchStatsIncludeEveryIngestedMatch() throws Exception {
+        long before = Long.parseLong(mvc.perform(get("/api/stats/matches"))
+                                        .andReturn().getResponse().getContentAsString());
+        ingestLog(variant(COMBATLOG_FILE_1, "cross-match"));
+
+        mvc.perform(get("/api/stats/matches"))
+           .andExpect(status().isOk())
+           .andExpect(content().string(String.valueOf(before + 1)));
+        mvc.perform(get("/api/stats/heroes"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$[?(@.hero == 'bloodseeker')].kills_per_match", contains(11.0)));
+        mvc.perform(get("/api/stats/heroes/{heroName}/items", "mars").param("limit", "3"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$", hasSize(3)));
+        mvc.perform(get("/api/stats/abilities"))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$[?(@.ability == 'dota_unknown')].damage_instances", everyItem(greaterThanOrEqualTo(1))));
+    }
+
+    @Test
+    void repeatedUploadsReturnTheStoredMatch() throws Exception {
+        long before = Long.parseLong(mvc.perform(get("/api/stats/matches"))
+                                        .andReturn().getResponse().getContentAsString());
+        // Line endings and blank lines are not part of the content.
+        String resent = IOUtils.resourceToString(COMBATLOG_FILE_1, StandardCharsets.UTF_8)
+                               .replace("\n", "\r\n") + "\r\n\r\n";
+        double linesParsed = count("dota.ingest.lines");
+        double rowsWritten = count("dota.ingest.rows");
+
+        assertThat(ingestLog(resent)).isEqualTo(matchIds.get(COMBATLOG_FILE_1));
+        // The repeat is recognized before it is parsed or written.
+        assertThat(count("dota.ingest.lines")).isEqualTo(linesParsed);
+        assertThat(count("dota.ingest.rows")).isEqualTo(rowsWritten);
+        var log2 = new MockMultipartFile("logs", "combatlog_2.txt", MediaType.TEXT_PLAIN_VALUE,
+                IOUtils.resourceToByteArray(COMBATLOG_FILE_2));
+        mvc.perform(multipart("/api/match/batch").file(log2).file(log2))
+           .andExpect(status().isOk())
+           .andExpect(jsonPath("$[*]", everyItem(equalTo(matchIds.get(COMBATLOG_FILE_2).intValue()))));
+        mvc.perform(get("/api/stats/matches"))
+           .andExpect(content().string(String.valueOf(before)));
+    }
+
+    @Test
+    void compressedUploadsAreIngestedLikeThePlainLog() throws Exception {
+        byte[] combatLog = IOUtils.resourceToByteArray(COMBATLOG_FILE_1);
+        var gzipped = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(combatLog);
+        }
+        byte[] zstd = Zstd.compress(combatLog);
+
+        String gzipEncodedId = mvc.perform(post("/api/match")
+                                           .contentType(MediaType.TEXT_PLAIN)
+                                           .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                                           .content(gzipped.toByteArray()))
+                                  .andExpect(status().isOk())
+                                  .andReturn().getResponse().getContentAsString();
+        String zstdFileId = mvc.perform(post("/api/match")
+                                        .contentType("application/zstd")
+                                        .content(zstd))
+                               .andExpect(status().isOk())
+                               .andReturn().getResponse().getContentAsString();
+
+        Long plainId = matchIds.get(COMBATLOG_FILE_1);
+        for (String matchId : List.of(gzipEncodedId, zstdFileId)) {
+            assertSameResponse("/api/match/{matchId}", matchId, plainId);
+            assertSameResponse("/api/match/{matchId}/mars/items", matchId, plainId);
+        }
+        mvc.perform(post("/api/match")
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .header(HttpHeaders.CONTENT_ENCODING, "br")
+                            .content(combatLog))
+           .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    void corruptCompressedUploadsAreRejected() throws Exception {
+        var gzipped = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(gzipped)) {
+            gzip.write(IOUtils.resourceToByteArray(COMBATLOG_FILE_1));
+        }
+        byte[] truncated = Arrays.copyOf(gzipped.toByteArray(), gzipped.size() / 2);
+
+        mvc.perform(post("/api/match")
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                            .content(truncated))
+           .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/match")
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                            .content("not gzip at all"))
+           .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void ingestAndQueryMetricsArePublishedForPrometheus() throws Exception {
+        mvc.perform(get("/api/match/{matchId}", matchIds.get(COMBATLOG_FILE_2)))
+           .andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/prometheus"))
+           .andExpect(status().isOk())
+           .andExpect(content().string(allOf(
+                   containsString("dota_ingest_seconds_count{operation=\"import\",outcome=\"success\""),
+                   containsString("dota_ingest_stage_seconds_count{stage=\"parse\""),
+                   containsString("dota_ingest_events_total{type=\"damage_done\""),
+                   containsString("dota_ingest_lines_ignored_total{reason=\"not_stored\""),
+                   containsString("dota_query_seconds_count{query=\"kills\""))));
+    }
+
+    @Test
+    void unchangedResponsesAreRevalidatedByETag() throws Exception {
+        List<String> lines = variant(COMBATLOG_FILE_2, "etag").lines().collect(Collectors.toList());
+        String matchId = String.valueOf(ingestLog(String.join("\n", lines.subList(0, lines.size() / 2))));
+        String etag = mvc.perform(get("/api/match/{matchId}/{heroName}/items", matchId, "mars"))
+                         .andExpect(status().isOk())
+                         .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                         .andReturn()
+                         .getResponse()
+                         .getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"");
+
+        mvc.perform(get("/api/match/{matchId}/{heroName}/items", matchId, "mars")
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+           .andExpect(status().isNotModified())
+           .andExpect(header().string(HttpHeaders.ETAG, etag))
+           .andExpect(content().bytes(new byte[0]));
+
+        append(matchId, lines);
+        mvc.perform(get("/api/match/{matchId}/{heroName}/items", matchId, "mars")
+                            .header(HttpHeaders.IF_NONE_MATCH, etag))
+           .andExpect(status().isOk())
+           .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+        assertSameResponse("/api/match/{matchId}/mars/items", matchId, matchIds.get(COMBATLOG_FILE_2));
+    }
+
+    private void append(String matchId, List<String> lines) throws Exception {
+        mvc.perform(post("/api/match/{matchId}/events", matchId)
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .content(String.join("\n", lines)))
+           .andExpect(status().isOk());
+    }
+
+    private void assertSameResponse(String path, Object matchId, Object expectedMatchId) throws Exception {
+        String expected = mvc.perform(get(path, expectedMatchId)).andReturn().getResponse().getContentAsString();
+        mvc.perform(get(path, matchId))
+           .andExpect(status().isOk())
+           .andExpect(content().json(expected));
+    }
+
     /**
      * Helper method that ingests a combat log file and returns the match id associated with all parsed events.
      *
@@ -58,8 +452,10 @@ class MatchControllerIntegrationTest {
      * @throws Exception if an error happens when reading or ingesting the file
      */
     private Long ingestMatch(String file) throws Exception {
-        String fileContent = IOUtils.resourceToString(file, StandardCharsets.UTF_8);
+        return ingestLog(IOUtils.resourceToString(file, StandardCharsets.UTF_8));
+    }
 
+    private Long ingestLog(String fileContent) throws Exception {
         return Long.parseLong(mvc.perform(post("/api/match")
                                          .contentType(MediaType.TEXT_PLAIN)
                                          .content(fileContent))
@@ -67,4 +463,17 @@ class MatchControllerIntegrationTest {
                                  .getResponse()
                                  .getContentAsString());
     }
+
+    /**
+     * The sample log with one extra line the parser ignores, so it is imported as a new match rather than answered
+     * with the match of the sample.
+     */
+    private static String variant(String file, String marker) throws Exception {
+        return IOUtils.resourceToString(file, StandardCharsets.UTF_8) + "\n[00:00:00.000] " + marker;
+    }
+
+    private double count(String counter) {
+        return meterRegistry.find(counter).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
 }
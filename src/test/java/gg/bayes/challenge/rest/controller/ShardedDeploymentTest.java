@@ -0,0 +1,166 @@
+package gg.bayes.challenge.rest.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gg.bayes.challenge.DotaChallengeApplication;
+import gg.bayes.challenge.business.shard.MatchIdSpace;
+import gg.bayes.challenge.business.shard.ShardClient;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Three nodes on localhost, each with its own database, sharing the matches: every node ingests into matches it
+ * owns, answers about any match by asking its owner, and sums the leaderboards of all nodes.
+ */
+class ShardedDeploymentTest {
+
+	private static final int NODES = 3;
+
+	private static final HttpClient client = HttpClient.newHttpClient();
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+	private static List<String> nodes;
+
+	@BeforeAll
+	static void startNodes() throws IOException {
+		nodes = new ArrayList<>();
+		for (int node = 0; node < NODES; node++) {
+			try (var socket = new ServerSocket(0)) {
+				nodes.add("http://localhost:" + socket.getLocalPort());
+			}
+		}
+		for (int node = 0; node < NODES; node++) {
+			contexts.add(new SpringApplicationBuilder(DotaChallengeApplication.class).run(
+					"--server.port=" + URI.create(nodes.get(node)).getPort(),
+					"--spring.datasource.url=jdbc:h2:mem:node" + node,
+					"--spring.main.banner-mode=off",
+					"--dota.sharding.enabled=true",
+					"--dota.sharding.nodes=" + String.join(",", nodes),
+					"--dota.sharding.node-index=" + node));
+		}
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		contexts.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	void matchesAreStoredOnTheirOwnerAndReachableFromEveryNode() throws Exception {
+		String[] logs = { "/data/combatlog_1.log.txt", "/data/combatlog_2.log.txt", "/data/combatlog_1.log.txt" };
+		List<Long> matchIds = new ArrayList<>();
+		for (int node = 0; node < NODES; node++) {
+			String combatLog = IOUtils.resourceToString(logs[node], StandardCharsets.UTF_8)
+					+ "\n[00:00:00.000] node " + node;
+			long matchId = Long.parseLong(send(node, "/api/match", combatLog));
+			assertThat(contexts.get(node).getBean(MatchIdSpace.class).isLocal(matchId)).isTrue();
+			assertThat(matchId % MatchIdSpace.MAX_NODES).isEqualTo(node);
+			matchIds.add(matchId);
+		}
+		assertThat(matchIds).doesNotHaveDuplicates();
+
+		for (int owner = 0; owner < NODES; owner++) {
+			String path = "/api/match/" + matchIds.get(owner);
+			JsonNode heroKills = get(owner, path);
+			assertThat(heroKills).isNotEmpty();
+			for (int node = 0; node < NODES; node++) {
+				assertThat(get(node, path)).isEqualTo(heroKills);
+				assertThat(get(node, path + "/mars/items")).isEqualTo(get(owner, path + "/mars/items"));
+			}
+		}
+	}
+
+	@Test
+	void leaderboardsAddUpTheNodes() throws Exception {
+		for (int node = 0; node < NODES; node++) {
+			send(node, "/api/match", IOUtils.resourceToString("/data/combatlog_1.log.txt", StandardCharsets.UTF_8)
+					+ "\n[00:00:00.000] leaderboard " + node);
+		}
+		long matches = 0;
+		long kills = 0;
+		for (int node = 0; node < NODES; node++) {
+			matches += getLocal(node, "/api/stats/matches").asLong();
+			kills += sum(getLocal(node, "/api/stats/heroes"), "kills");
+		}
+		for (int node = 0; node < NODES; node++) {
+			assertThat(get(node, "/api/stats/matches").asLong()).isEqualTo(matches);
+			assertThat(sum(get(node, "/api/stats/heroes"), "kills")).isEqualTo(kills);
+			assertThat(get(node, "/api/stats/heroes/mars/items?limit=3").size()).isEqualTo(3);
+			assertThat(get(node, "/api/stats/abilities")).isEqualTo(get(0, "/api/stats/abilities"));
+		}
+	}
+
+	@Test
+	void appendsAreForwardedWithTheirBody() throws Exception {
+		String combatLog = IOUtils.resourceToString("/data/combatlog_2.log.txt", StandardCharsets.UTF_8);
+		List<String> lines = combatLog.lines().collect(Collectors.toList());
+		long matchId = Long.parseLong(send(0, "/api/match", String.join("\n", lines.subList(0, lines.size() / 2))));
+		int other = 1;
+		assertThat(contexts.get(other).getBean(MatchIdSpace.class).isLocal(matchId)).isFalse();
+
+		send(other, "/api/match/" + matchId + "/events", combatLog);
+
+		long wholeMatchId = Long.parseLong(send(other, "/api/match", combatLog + "\n[00:00:00.000] whole"));
+		assertThat(get(other, "/api/match/" + matchId))
+				.containsExactlyInAnyOrderElementsOf(get(0, "/api/match/" + wholeMatchId));
+		var unknown = client.send(HttpRequest.newBuilder(URI.create(nodes.get(other) + "/api/match/"
+								+ (matchId + MatchIdSpace.MAX_NODES) + "/events"))
+						.header("Content-Type", "text/plain")
+						.POST(HttpRequest.BodyPublishers.ofString(lines.get(0)))
+						.build(), HttpResponse.BodyHandlers.discarding());
+		assertThat(unknown.statusCode()).isEqualTo(404);
+	}
+
+	private static String send(int node, String path, String body) throws Exception {
+		var response = client.send(HttpRequest.newBuilder(URI.create(nodes.get(node) + path))
+				.header("Content-Type", "text/plain")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build(), HttpResponse.BodyHandlers.ofString());
+		assertThat(response.statusCode()).isEqualTo(200);
+		return response.body();
+	}
+
+	private static JsonNode get(int node, String path) throws Exception {
+		return get(HttpRequest.newBuilder(URI.create(nodes.get(node) + path)));
+	}
+
+	/**
+	 * Asks the node like another node would, for the answer over its own matches only.
+	 */
+	private static JsonNode getLocal(int node, String path) throws Exception {
+		return get(HttpRequest.newBuilder(URI.create(nodes.get(node) + path))
+				.header(ShardClient.FORWARDED_HEADER, "test"));
+	}
+
+	private static JsonNode get(HttpRequest.Builder request) throws Exception {
+		var response = client.send(request.GET().build(), HttpResponse.BodyHandlers.ofString());
+		assertThat(response.statusCode()).isEqualTo(200);
+		return objectMapper.readTree(response.body());
+	}
+
+	private static long sum(JsonNode rows, String field) {
+		long sum = 0;
+		for (JsonNode row : rows) {
+			sum += row.get(field).asLong();
+		}
+		return sum;
+	}
+
+}